@@ -1,7 +1,19 @@
 package com.checkmarx.sdk.config;
 
 //import com.cx.restclient.httpClient.CxHttpClient;
+import com.checkmarx.sdk.service.BackoffPollingStrategy;
+import com.checkmarx.sdk.service.PollingStrategy;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
@@ -10,6 +22,7 @@ import org.springframework.oxm.jaxb.Jaxb2Marshaller;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.ws.client.core.WebServiceTemplate;
 import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class CxConfig {
@@ -25,7 +38,7 @@ public class CxConfig {
         RestTemplate restTemplate = new RestTemplate();
 
         HttpComponentsClientHttpRequestFactory requestFactory = new
-                HttpComponentsClientHttpRequestFactory(HttpClientBuilder.create().useSystemProperties().build());
+                HttpComponentsClientHttpRequestFactory(cxHttpClient());
         requestFactory.setConnectTimeout(properties.getHttpConnectionTimeout());
         requestFactory.setReadTimeout(properties.getHttpReadTimeout());
         restTemplate.setRequestFactory(requestFactory);
@@ -35,6 +48,65 @@ public class CxConfig {
         return restTemplate;
     }
 
+    /**
+     * RestTemplate sharing the connection pool of cxRestTemplate, but writing request bodies straight to the
+     * connection instead of buffering them, for uploads of source archives
+     */
+    @Bean(name = "cxUploadRestTemplate")
+    public RestTemplate getUploadRestTemplate() {
+        RestTemplate restTemplate = new RestTemplate();
+
+        HttpComponentsClientHttpRequestFactory requestFactory = new
+                HttpComponentsClientHttpRequestFactory(cxHttpClient());
+        requestFactory.setConnectTimeout(properties.getHttpConnectionTimeout());
+        requestFactory.setReadTimeout(properties.getHttpReadTimeout());
+        requestFactory.setBufferRequestBody(false);
+        restTemplate.setRequestFactory(requestFactory);
+        return restTemplate;
+    }
+
+    /**
+     * HttpClient with a connection pool sized for concurrent calls to the same Checkmarx host.  Idle/expired
+     * connections are evicted in the background, and pool utilization is published as metrics (httpcomponents.httpclient.pool.*).
+     * Closed with the context, which stops the eviction thread and the pool.
+     */
+    @Bean(name = "cxHttpClient", destroyMethod = "close")
+    public CloseableHttpClient cxHttpClient() {
+        /* same socket factories as HttpClientBuilder.useSystemProperties, which only applies them to its own connection manager */
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                .build();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        connectionManager.setMaxTotal(properties.getHttpMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getHttpMaxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity(properties.getHttpValidateAfterInactivity());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "cxRestTemplate").bindTo(Metrics.globalRegistry);
+
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getHttpIdleConnectionTimeout(), TimeUnit.MILLISECONDS)
+                .setKeepAliveStrategy((response, context) -> {
+                    long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? keepAlive : properties.getHttpKeepAlive();
+                });
+        /* gzip/deflate responses are requested and decompressed unless disabled */
+        if (!properties.getHttpCompression()) {
+            builder.disableContentCompression();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Default polling strategy.  To replace it, declare another PollingStrategy bean marked as @Primary
+     */
+    @Bean
+    public PollingStrategy pollingStrategy() {
+        return new BackoffPollingStrategy(properties);
+    }
+
     @Bean
     public Jaxb2Marshaller marshaller() {
         Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
@@ -46,10 +46,46 @@ public class CxProperties {
     private String jiraAssigneeField = "jira-assignee";
     private Integer httpConnectionTimeout = 30000;
     private Integer httpReadTimeout = 120000;
+    private Integer tokenRefreshAhead = 60;
+    private Integer httpMaxConnections = 50;
+    private Integer httpMaxConnectionsPerRoute = 20;
+    private Integer httpIdleConnectionTimeout = 30000;
+    private Integer httpKeepAlive = 30000;
+    private Integer httpValidateAfterInactivity = 2000;
+    private Boolean httpCompression = true;
     private Integer scanPolling = 20000;
     private Integer reportPolling = 5000;
     private Integer reportTimeout = 300000;
+    private Integer pollingMaxInterval = 120000;
+    private Double pollingMultiplier = 2.0;
+    private Double pollingJitter = 0.2;
     private Integer codeSnippetLength = 2500;
+    private Integer descriptionConcurrency = 4;
+    private Integer descriptionCacheSize = 10000;
+    private Integer descriptionCacheTtl = 60;
+    private Boolean descriptionByQuery = false;
+    private String queryDescriptionCacheFile;
+    private Integer teamCacheTtl = 5;
+    private Integer projectCacheSize = 10000;
+    private Integer projectCacheTtl = 60;
+    private Integer projectCacheRefresh = 5;
+    private Integer referenceDataTtl = 60;
+    private Integer scanSubmissionConcurrency = 4;
+    private Integer sourceCompressionConcurrency = Runtime.getRuntime().availableProcessors();
+    private Integer sourceDedupTtl = 0;
+    private String sourceDedupFile;
+    private String reportCacheDir;
+    private Integer reportCacheSize = 1024;
+    private Integer reportCacheTtl = 60;
+    private Boolean globalStringPool = false;
+    /**
+     * Minutes for which a write of unchanged project settings (scan settings, exclusions, git repository) is skipped,
+     * 0 (the default) to always write them.  Settings changed outside of this client are not seen within the TTL, so
+     * they stay stale on the server until it expires or the server rejects a write or scan of the project.
+     */
+    private Integer settingsCacheTtl = 0;
+    private String settingsCacheFile;
+    private Boolean referenceDataWarmup = true;
     private String TEAM_PATH_SEPARATOR_9 = "/";
     private String TEAM_PATH_SEPARATOR_8 = "\\";
 
@@ -291,6 +327,62 @@ public class CxProperties {
         this.httpReadTimeout = httpReadTimeout;
     }
 
+    public Integer getTokenRefreshAhead() {
+        return tokenRefreshAhead;
+    }
+
+    public void setTokenRefreshAhead(Integer tokenRefreshAhead) {
+        this.tokenRefreshAhead = tokenRefreshAhead;
+    }
+
+    public Integer getHttpMaxConnections() {
+        return httpMaxConnections;
+    }
+
+    public void setHttpMaxConnections(Integer httpMaxConnections) {
+        this.httpMaxConnections = httpMaxConnections;
+    }
+
+    public Integer getHttpMaxConnectionsPerRoute() {
+        return httpMaxConnectionsPerRoute;
+    }
+
+    public void setHttpMaxConnectionsPerRoute(Integer httpMaxConnectionsPerRoute) {
+        this.httpMaxConnectionsPerRoute = httpMaxConnectionsPerRoute;
+    }
+
+    public Integer getHttpIdleConnectionTimeout() {
+        return httpIdleConnectionTimeout;
+    }
+
+    public void setHttpIdleConnectionTimeout(Integer httpIdleConnectionTimeout) {
+        this.httpIdleConnectionTimeout = httpIdleConnectionTimeout;
+    }
+
+    public Integer getHttpKeepAlive() {
+        return httpKeepAlive;
+    }
+
+    public void setHttpKeepAlive(Integer httpKeepAlive) {
+        this.httpKeepAlive = httpKeepAlive;
+    }
+
+    public Integer getHttpValidateAfterInactivity() {
+        return httpValidateAfterInactivity;
+    }
+
+    public void setHttpValidateAfterInactivity(Integer httpValidateAfterInactivity) {
+        this.httpValidateAfterInactivity = httpValidateAfterInactivity;
+    }
+
+    public Boolean getHttpCompression() {
+        return httpCompression;
+    }
+
+    public void setHttpCompression(Boolean httpCompression) {
+        this.httpCompression = httpCompression;
+    }
+
     public Integer getScanPolling() {
         return scanPolling;
     }
@@ -307,6 +399,30 @@ public class CxProperties {
         this.reportTimeout = reportTimeout;
     }
 
+    public Integer getPollingMaxInterval() {
+        return pollingMaxInterval;
+    }
+
+    public void setPollingMaxInterval(Integer pollingMaxInterval) {
+        this.pollingMaxInterval = pollingMaxInterval;
+    }
+
+    public Double getPollingMultiplier() {
+        return pollingMultiplier;
+    }
+
+    public void setPollingMultiplier(Double pollingMultiplier) {
+        this.pollingMultiplier = pollingMultiplier;
+    }
+
+    public Double getPollingJitter() {
+        return pollingJitter;
+    }
+
+    public void setPollingJitter(Double pollingJitter) {
+        this.pollingJitter = pollingJitter;
+    }
+
     public Double getVersion() {
         return version;
     }
@@ -352,6 +468,46 @@ public class CxProperties {
         this.codeSnippetLength = codeSnippetLength;
     }
 
+    public Integer getDescriptionConcurrency() {
+        return descriptionConcurrency;
+    }
+
+    public void setDescriptionConcurrency(Integer descriptionConcurrency) {
+        this.descriptionConcurrency = descriptionConcurrency;
+    }
+
+    public Integer getDescriptionCacheSize() {
+        return descriptionCacheSize;
+    }
+
+    public void setDescriptionCacheSize(Integer descriptionCacheSize) {
+        this.descriptionCacheSize = descriptionCacheSize;
+    }
+
+    public Integer getDescriptionCacheTtl() {
+        return descriptionCacheTtl;
+    }
+
+    public void setDescriptionCacheTtl(Integer descriptionCacheTtl) {
+        this.descriptionCacheTtl = descriptionCacheTtl;
+    }
+
+    public Boolean getDescriptionByQuery() {
+        return descriptionByQuery;
+    }
+
+    public void setDescriptionByQuery(Boolean descriptionByQuery) {
+        this.descriptionByQuery = descriptionByQuery;
+    }
+
+    public String getQueryDescriptionCacheFile() {
+        return queryDescriptionCacheFile;
+    }
+
+    public void setQueryDescriptionCacheFile(String queryDescriptionCacheFile) {
+        this.queryDescriptionCacheFile = queryDescriptionCacheFile;
+    }
+
     public void setEnableOsa(Boolean enableOsa) {
         this.enableOsa = enableOsa;
     }
@@ -383,6 +539,134 @@ public class CxProperties {
         this.soapScope = soapScope;
     }
 
+    public Integer getTeamCacheTtl() {
+        return teamCacheTtl;
+    }
+
+    public void setTeamCacheTtl(Integer teamCacheTtl) {
+        this.teamCacheTtl = teamCacheTtl;
+    }
+
+    public Integer getProjectCacheSize() {
+        return projectCacheSize;
+    }
+
+    public void setProjectCacheSize(Integer projectCacheSize) {
+        this.projectCacheSize = projectCacheSize;
+    }
+
+    public Integer getProjectCacheTtl() {
+        return projectCacheTtl;
+    }
+
+    public void setProjectCacheTtl(Integer projectCacheTtl) {
+        this.projectCacheTtl = projectCacheTtl;
+    }
+
+    public Integer getProjectCacheRefresh() {
+        return projectCacheRefresh;
+    }
+
+    public void setProjectCacheRefresh(Integer projectCacheRefresh) {
+        this.projectCacheRefresh = projectCacheRefresh;
+    }
+
+    public Integer getReferenceDataTtl() {
+        return referenceDataTtl;
+    }
+
+    public void setReferenceDataTtl(Integer referenceDataTtl) {
+        this.referenceDataTtl = referenceDataTtl;
+    }
+
+    public Boolean getReferenceDataWarmup() {
+        return referenceDataWarmup;
+    }
+
+    public void setReferenceDataWarmup(Boolean referenceDataWarmup) {
+        this.referenceDataWarmup = referenceDataWarmup;
+    }
+
+    public Integer getScanSubmissionConcurrency() {
+        return scanSubmissionConcurrency;
+    }
+
+    public void setScanSubmissionConcurrency(Integer scanSubmissionConcurrency) {
+        this.scanSubmissionConcurrency = scanSubmissionConcurrency;
+    }
+
+    public Integer getSourceCompressionConcurrency() {
+        return sourceCompressionConcurrency;
+    }
+
+    public void setSourceCompressionConcurrency(Integer sourceCompressionConcurrency) {
+        this.sourceCompressionConcurrency = sourceCompressionConcurrency;
+    }
+
+    public Integer getSourceDedupTtl() {
+        return sourceDedupTtl;
+    }
+
+    public void setSourceDedupTtl(Integer sourceDedupTtl) {
+        this.sourceDedupTtl = sourceDedupTtl;
+    }
+
+    public String getSourceDedupFile() {
+        return sourceDedupFile;
+    }
+
+    public void setSourceDedupFile(String sourceDedupFile) {
+        this.sourceDedupFile = sourceDedupFile;
+    }
+
+    public String getReportCacheDir() {
+        return reportCacheDir;
+    }
+
+    public void setReportCacheDir(String reportCacheDir) {
+        this.reportCacheDir = reportCacheDir;
+    }
+
+    public Integer getReportCacheSize() {
+        return reportCacheSize;
+    }
+
+    public void setReportCacheSize(Integer reportCacheSize) {
+        this.reportCacheSize = reportCacheSize;
+    }
+
+    public Integer getReportCacheTtl() {
+        return reportCacheTtl;
+    }
+
+    public void setReportCacheTtl(Integer reportCacheTtl) {
+        this.reportCacheTtl = reportCacheTtl;
+    }
+
+    public Boolean getGlobalStringPool() {
+        return globalStringPool;
+    }
+
+    public void setGlobalStringPool(Boolean globalStringPool) {
+        this.globalStringPool = globalStringPool;
+    }
+
+    public Integer getSettingsCacheTtl() {
+        return settingsCacheTtl;
+    }
+
+    public void setSettingsCacheTtl(Integer settingsCacheTtl) {
+        this.settingsCacheTtl = settingsCacheTtl;
+    }
+
+    public String getSettingsCacheFile() {
+        return settingsCacheFile;
+    }
+
+    public void setSettingsCacheFile(String settingsCacheFile) {
+        this.settingsCacheFile = settingsCacheFile;
+    }
+
     public String getTeamPathSeparator(){
         if(version < 9.0){
             return TEAM_PATH_SEPARATOR_8;
@@ -0,0 +1,245 @@
+package com.checkmarx.sdk.dto;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Additional details of an issue mapped from a report (the categories and recommended fix link of its query, and the
+ * state and source/sink of each of its results), held as typed values.
+ * <p>
+ * This is also the legacy {@code Map<String, Object>} view of the details, with the keys "categories",
+ * "recommendedFix" and "results", a list of maps with the keys "state", "source" and "sink" (the latter two being maps
+ * with the keys "file", "line", "column" and "object").  The map view is only built the first time it is used, so
+ * callers that only use the typed getters never allocate it.  Once built, the map replaces the typed values, so the
+ * details are only held once, and the typed getters are served from the map (reflecting changes made through it).
+ */
+public class AdditionalIssueDetails extends AbstractMap<String, Object> {
+
+    public static final String CATEGORIES = "categories";
+    public static final String RECOMMENDED_FIX = "recommendedFix";
+    public static final String RESULTS = "results";
+    /* typed values, until the map view replaces them */
+    private String categories;
+    private String recommendedFix;
+    private List<ResultState> results;
+    private Map<String, Object> map;
+
+    /**
+     * @param categories categories of the query
+     * @param recommendedFix link to the description of the query
+     * @param results state and source/sink of each result of the issue
+     */
+    public AdditionalIssueDetails(String categories, String recommendedFix, List<ResultState> results) {
+        this.categories = categories;
+        this.recommendedFix = recommendedFix;
+        this.results = new ArrayList<>(results);
+    }
+
+    public synchronized String getCategories() {
+        return map == null ? categories : string(map.get(CATEGORIES));
+    }
+
+    public synchronized String getRecommendedFix() {
+        return map == null ? recommendedFix : string(map.get(RECOMMENDED_FIX));
+    }
+
+    public synchronized List<ResultState> getResults() {
+        if (map == null) {
+            return new ArrayList<>(results);
+        }
+        List<ResultState> typed = new ArrayList<>();
+        if (map.get(RESULTS) instanceof List) {
+            for (Object result : (List<?>) map.get(RESULTS)) {
+                if (result instanceof Map) {
+                    typed.add(ResultState.of((Map<?, ?>) result));
+                }
+            }
+        }
+        return typed;
+    }
+
+    /**
+     * Add the results of another issue merged into this one
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void merge(AdditionalIssueDetails other) {
+        List<ResultState> merged = other.getResults();
+        if (map == null) {
+            results.addAll(merged);
+        } else if (map.get(RESULTS) instanceof List) {
+            List<Object> legacyResults = (List<Object>) map.get(RESULTS);
+            for (ResultState result : merged) {
+                legacyResults.add(result.toMap());
+            }
+        }
+    }
+
+    /**
+     * @return the legacy map view, built on first use in place of the typed values
+     */
+    private synchronized Map<String, Object> map() {
+        if (map == null) {
+            List<Map<String, Object>> resultMaps = new ArrayList<>(results.size());
+            for (ResultState result : results) {
+                resultMaps.add(result.toMap());
+            }
+            map = new HashMap<>();
+            map.put(CATEGORIES, categories);
+            map.put(RECOMMENDED_FIX, recommendedFix);
+            map.put(RESULTS, resultMaps);
+            categories = null;
+            recommendedFix = null;
+            results = null;
+        }
+        return map;
+    }
+
+    private static String string(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return map().entrySet();
+    }
+
+    @Override
+    public int size() {
+        return map().size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map().containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return map().get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return map().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return map().remove(key);
+    }
+
+    /**
+     * State and source/sink of a result
+     */
+    public static class ResultState {
+        private final String state;
+        private final SourceSink source;
+        private final SourceSink sink;
+
+        /**
+         * @param state state of the result (e.g. 0 for To Verify)
+         * @param source first node of the data flow, or null if the result has no path
+         * @param sink last node of the data flow, or null if the result has no path
+         */
+        public ResultState(String state, SourceSink source, SourceSink sink) {
+            this.state = state;
+            this.source = source;
+            this.sink = sink;
+        }
+
+        /**
+         * @param result legacy map view of a result
+         */
+        static ResultState of(Map<?, ?> result) {
+            Object source = result.get("source");
+            Object sink = result.get("sink");
+            return new ResultState(string(result.get("state")),
+                    source instanceof Map ? SourceSink.of((Map<?, ?>) source) : null,
+                    sink instanceof Map ? SourceSink.of((Map<?, ?>) sink) : null);
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public SourceSink getSource() {
+            return source;
+        }
+
+        public SourceSink getSink() {
+            return sink;
+        }
+
+        /**
+         * @return the legacy map view, with the keys "state", "source" and "sink"
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> result = new HashMap<>();
+            result.put("state", state);
+            if (source != null) {
+                result.put("source", source.toMap());
+            }
+            if (sink != null) {
+                result.put("sink", sink.toMap());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Location of a node of a data flow
+     */
+    public static class SourceSink {
+        private final String file;
+        private final String line;
+        private final String column;
+        private final String object;
+
+        public SourceSink(String file, String line, String column, String object) {
+            this.file = file;
+            this.line = line;
+            this.column = column;
+            this.object = object;
+        }
+
+        /**
+         * @param node legacy map view of a node
+         */
+        static SourceSink of(Map<?, ?> node) {
+            return new SourceSink(string(node.get("file")), string(node.get("line")), string(node.get("column")),
+                    string(node.get("object")));
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public String getLine() {
+            return line;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public String getObject() {
+            return object;
+        }
+
+        /**
+         * @return the legacy map view, with the keys "file", "line", "column" and "object"
+         */
+        public Map<String, String> toMap() {
+            Map<String, String> nodeData = new HashMap<>();
+            nodeData.put("file", file);
+            nodeData.put("line", line);
+            nodeData.put("column", column);
+            nodeData.put("object", object);
+            return nodeData;
+        }
+    }
+}
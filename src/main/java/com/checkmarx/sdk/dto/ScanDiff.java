@@ -0,0 +1,201 @@
+package com.checkmarx.sdk.dto;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Issues that are new, resolved or recurring in a scan compared to a baseline scan of the same project.
+ * <p>
+ * The new, resolved and recurring lists are of issues merged per vulnerability and file name, and the recurring count
+ * is that of the recurring issues, however the diff is computed.  Both ways use a hash index of the baseline so a
+ * comparison takes linear time:
+ * <ul>
+ * <li>{@link #compare(ScanResults, ScanResults)} compares merged issues, matched on vulnerability and file name, and
+ * their results on line.</li>
+ * <li>When the diff is computed while the reports are streamed, each result is matched on its similarity id and
+ * file name (or vulnerability and file name for results without a similarity id).  The resolved and recurring issues
+ * are then minimal: they have no snippet, description or additional details.</li>
+ * </ul>
+ *
+ * @see com.checkmarx.sdk.service.CxClient#getScanDiff(Integer, Integer, List)
+ */
+public class ScanDiff {
+
+    private final List<ScanResults.XIssue> newIssues;
+    private final List<ScanResults.XIssue> resolvedIssues;
+    private final List<ScanResults.XIssue> recurringIssues;
+    private final int recurringCount;
+
+    public ScanDiff(List<ScanResults.XIssue> newIssues, List<ScanResults.XIssue> resolvedIssues,
+                    List<ScanResults.XIssue> recurringIssues, int recurringCount) {
+        this.newIssues = newIssues;
+        this.resolvedIssues = resolvedIssues;
+        this.recurringIssues = recurringIssues;
+        this.recurringCount = recurringCount;
+    }
+
+    /**
+     * Compare the issues of two scans.  As the issues of a report are merged per vulnerability + file (keeping the
+     * similarity id of the first result only), issues are matched on vulnerability + file and their results on line.
+     * An issue with both matched and unmatched results is split into a recurring issue and a new (or resolved) issue,
+     * each with its own results; an issue without details is matched as a whole.
+     *
+     * @param baseline results of the earlier scan
+     * @param current results of the later scan
+     * @return the issues of the later scan that are new or recurring, and the issues of the earlier scan that are
+     * resolved, the recurring count being that of the recurring issues
+     */
+    public static ScanDiff compare(ScanResults baseline, ScanResults current) {
+        /* baseline issues by vulnerability + file and line, each occurrence of a line matching once */
+        Map<String, Map<Integer, Deque<ScanResults.XIssue>>> index = new HashMap<>();
+        for (ScanResults.XIssue issue : issues(baseline)) {
+            Map<Integer, Deque<ScanResults.XIssue>> lines = index.computeIfAbsent(issueKey(issue), k -> new HashMap<>());
+            for (Integer line : lines(issue)) {
+                lines.computeIfAbsent(line, k -> new ArrayDeque<>()).add(issue);
+            }
+        }
+        Map<ScanResults.XIssue, Set<Integer>> matchedBaseline = new IdentityHashMap<>();
+        List<ScanResults.XIssue> newIssues = new ArrayList<>();
+        List<ScanResults.XIssue> recurringIssues = new ArrayList<>();
+        for (ScanResults.XIssue issue : issues(current)) {
+            Map<Integer, Deque<ScanResults.XIssue>> lines = index.getOrDefault(issueKey(issue), Collections.emptyMap());
+            Set<Integer> matched = new HashSet<>();
+            for (Integer line : lines(issue)) {
+                Deque<ScanResults.XIssue> matches = lines.get(line);
+                ScanResults.XIssue match = matches == null ? null : matches.poll();
+                if (match != null) {
+                    matched.add(line);
+                    matchedBaseline.computeIfAbsent(match, k -> new HashSet<>()).add(line);
+                }
+            }
+            split(issue, matched, recurringIssues, newIssues);
+        }
+        /* baseline results left unmatched, in report order */
+        List<ScanResults.XIssue> resolvedIssues = new ArrayList<>();
+        for (ScanResults.XIssue issue : issues(baseline)) {
+            split(issue, matchedBaseline.getOrDefault(issue, Collections.emptySet()), new ArrayList<>(), resolvedIssues);
+        }
+        return new ScanDiff(newIssues, resolvedIssues, recurringIssues, recurringIssues.size());
+    }
+
+    /**
+     * @return the key the results of streamed reports are matched on
+     */
+    public static String key(String similarityId, String fileName, String vulnerability) {
+        if (similarityId == null || similarityId.isEmpty()) {
+            return "vulnerability:" + vulnerability + "|" + fileName;
+        }
+        return similarityId + "|" + fileName;
+    }
+
+    private static String issueKey(ScanResults.XIssue issue) {
+        return issue.getVulnerability() + "|" + issue.getFilename();
+    }
+
+    /**
+     * @return lines of the results of an issue, or a null line for an issue without details
+     */
+    private static Set<Integer> lines(ScanResults.XIssue issue) {
+        if (issue.getDetails() == null || issue.getDetails().isEmpty()) {
+            return Collections.singleton(null);
+        }
+        return issue.getDetails().keySet();
+    }
+
+    /**
+     * Add the issue to the matched or unmatched issues, split into an issue per list when only some of its results
+     * are matched
+     */
+    private static void split(ScanResults.XIssue issue, Set<Integer> matched, List<ScanResults.XIssue> matchedIssues,
+                              List<ScanResults.XIssue> unmatchedIssues) {
+        if (matched.isEmpty()) {
+            unmatchedIssues.add(issue);
+        } else if (matched.size() == lines(issue).size()) {
+            matchedIssues.add(issue);
+        } else {
+            matchedIssues.add(copy(issue, matched, true));
+            unmatchedIssues.add(copy(issue, matched, false));
+        }
+    }
+
+    /**
+     * @return copy of the issue with the results on (or not on) the given lines
+     */
+    private static ScanResults.XIssue copy(ScanResults.XIssue issue, Set<Integer> lines, boolean on) {
+        Map<Integer, ScanResults.IssueDetails> details = new HashMap<>();
+        int falsePositives = 0;
+        for (Map.Entry<Integer, ScanResults.IssueDetails> detail : issue.getDetails().entrySet()) {
+            if (lines.contains(detail.getKey()) == on) {
+                details.put(detail.getKey(), detail.getValue());
+                if (detail.getValue() != null && detail.getValue().isFalsePositive()) {
+                    falsePositives++;
+                }
+            }
+        }
+        ScanResults.XIssue copy = ScanResults.XIssue.builder()
+                .vulnerability(issue.getVulnerability())
+                .similarityId(issue.getSimilarityId())
+                .cwe(issue.getCwe())
+                .cve(issue.getCve())
+                .description(issue.getDescription())
+                .language(issue.getLanguage())
+                .severity(issue.getSeverity())
+                .link(issue.getLink())
+                .file(issue.getFilename())
+                .osaDetails(issue.getOsaDetails())
+                .details(details)
+                .additionalDetails(issue.getAdditionalDetails())
+                .build();
+        copy.setGitUrl(issue.getGitUrl());
+        copy.setFalsePositiveCount(falsePositives);
+        return copy;
+    }
+
+    private static List<ScanResults.XIssue> issues(ScanResults results) {
+        if (results == null || results.getXIssues() == null) {
+            return Collections.emptyList();
+        }
+        return results.getXIssues();
+    }
+
+    /**
+     * @return issues of the later scan that are not in the baseline
+     */
+    public List<ScanResults.XIssue> getNewIssues() {
+        return newIssues;
+    }
+
+    /**
+     * @return issues of the baseline that are not in the later scan
+     */
+    public List<ScanResults.XIssue> getResolvedIssues() {
+        return resolvedIssues;
+    }
+
+    /**
+     * @return issues of the later scan that are also in the baseline (minimal issues when the diff was streamed)
+     */
+    public List<ScanResults.XIssue> getRecurringIssues() {
+        return recurringIssues;
+    }
+
+    /**
+     * @return number of recurring issues
+     */
+    public int getRecurringCount() {
+        return recurringCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanDiff(new=" + newIssues.size() + ", resolved=" + resolvedIssues.size() + ", recurring=" + recurringCount + ")";
+    }
+}
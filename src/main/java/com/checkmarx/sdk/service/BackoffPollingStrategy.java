@@ -0,0 +1,41 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Default polling strategy.
+ * <p>
+ * While the expected time has not been reached, the delay is half the remaining expected time, so checks converge
+ * on the expected completion.  Once overdue (or when nothing is known) the delay grows exponentially with the time
+ * spent overdue.  Delays are randomized by the polling jitter so many waits do not check in lock step, then bounded
+ * by the scan/report polling interval and the max polling interval.
+ */
+public class BackoffPollingStrategy implements PollingStrategy {
+
+    private final CxProperties cxProperties;
+
+    public BackoffPollingStrategy(CxProperties cxProperties) {
+        this.cxProperties = cxProperties;
+    }
+
+    @Override
+    public long nextDelay(Type type, int attempts, long elapsed, long expected) {
+        long min = type == Type.SCAN ? cxProperties.getScanPolling() : cxProperties.getReportPolling();
+        long max = Math.max(min, cxProperties.getPollingMaxInterval());
+        double delay;
+        if (expected > elapsed) {
+            delay = (expected - elapsed) / 2.0;
+        } else {
+            long overdue = elapsed - Math.max(expected, 0);
+            delay = overdue * (cxProperties.getPollingMultiplier() - 1);
+        }
+        double jitter = cxProperties.getPollingJitter();
+        if (jitter > 0) {
+            delay = delay * (1 + jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+        }
+        delay = Math.min(max, Math.max(min, delay));
+        return Math.max(1, (long) delay);
+    }
+}
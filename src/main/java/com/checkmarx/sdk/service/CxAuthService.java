@@ -11,13 +11,21 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Class used to orchestrate submitting scans and retrieving results
@@ -31,38 +39,32 @@ public class CxAuthService implements CxAuthClient{
     private final CxProperties cxProperties;
     private final CxLegacyService cxLegacyService;
     private final RestTemplate restTemplate;
-    private String token = null;
-    private String soapToken = null;
-    private String session = null;
-    private LocalDateTime tokenExpires = null;
-    private LocalDateTime soapTokenExpires = null;
-    private LocalDateTime sessionTokenExpires = null;
+    private final ScheduledExecutorService refreshScheduler;
+    private final TokenHolder token;
+    private final TokenHolder soapToken;
+    private final TokenHolder session;
 
     public CxAuthService(CxProperties cxProperties, CxLegacyService cxLegacyService, @Qualifier("cxRestTemplate") RestTemplate restTemplate) {
         this.cxProperties = cxProperties;
         this.cxLegacyService = cxLegacyService;
         this.restTemplate = restTemplate;
-    }
-
-
-    /**
-     * Get Auth Token
-     */
-    private void getAuthToken() {
-        getAuthToken(
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cx-token-refresh-");
+        threadFactory.setDaemon(true);
+        this.refreshScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        this.token = new TokenHolder("access token", () -> requestAuthToken(
                 cxProperties.getUsername(),
                 cxProperties.getPassword(),
                 cxProperties.getClientId(),
                 cxProperties.getClientSecret(),
                 cxProperties.getScope()
-        );
+        ));
+        this.soapToken = new TokenHolder("SOAP access token", () -> requestSoapAuthToken(cxProperties.getUsername(), cxProperties.getPassword()));
+        this.session = new TokenHolder("legacy session", () -> requestLegacySession(cxProperties.getUsername(), cxProperties.getPassword()));
     }
 
-    /**
-     * Get SOAP Auth Token
-     */
-    private void getSoapAuthToken() {
-        getSoapAuthToken(cxProperties.getUsername(),cxProperties.getPassword());
+    @PreDestroy
+    private void shutdown() {
+        refreshScheduler.shutdownNow();
     }
 
     /**
@@ -70,6 +72,12 @@ public class CxAuthService implements CxAuthClient{
      */
     @Override
     public String getAuthToken(String username, String password, String clientId, String clientSecret, String scope) {
+        Token t = requestAuthToken(username, password, clientId, clientSecret, scope);
+        token.set(t);
+        return t.getValue();
+    }
+
+    private Token requestAuthToken(String username, String password, String clientId, String clientSecret, String scope) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
@@ -90,15 +98,13 @@ public class CxAuthService implements CxAuthClient{
             if (response == null) {
                 throw new InvalidCredentialsException();
             }
-            token = response.getAccessToken();
-            tokenExpires = LocalDateTime.now().plusSeconds(response.getExpiresIn()-500); //expire 500 seconds early
+            return new Token(response.getAccessToken(), LocalDateTime.now().plusSeconds(response.getExpiresIn()-500)); //expire 500 seconds early
         }
         catch (NullPointerException | HttpStatusCodeException e) {
             log.error("Error occurred white obtaining Access Token.  Possibly incorrect credentials");
             log.error(ExceptionUtils.getStackTrace(e));
             throw new InvalidCredentialsException();
         }
-        return token;
     }
 
     /**
@@ -106,6 +112,12 @@ public class CxAuthService implements CxAuthClient{
      */
     @Override
     public String getSoapAuthToken(String username, String password) {
+        Token t = requestSoapAuthToken(username, password);
+        soapToken.set(t);
+        return t.getValue();
+    }
+
+    private Token requestSoapAuthToken(String username, String password) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
@@ -126,70 +138,47 @@ public class CxAuthService implements CxAuthClient{
             if (response == null) {
                 throw new InvalidCredentialsException();
             }
-            soapToken = response.getAccessToken();
-            soapTokenExpires = LocalDateTime.now().plusSeconds(response.getExpiresIn()-500); //expire 500 seconds early
+            return new Token(response.getAccessToken(), LocalDateTime.now().plusSeconds(response.getExpiresIn()-500)); //expire 500 seconds early
         }
         catch (NullPointerException | HttpStatusCodeException e) {
             log.error("Error occurred white obtaining Access Token.  Possibly incorrect credentials");
             log.error(ExceptionUtils.getStackTrace(e));
             throw new InvalidCredentialsException();
         }
-        return soapToken;
     }
 
 
     @Override
     public String getCurrentToken(){
-        return this.token;
+        Token t = token.current.get();
+        return t == null ? null : t.getValue();
     }
 
     @Override
     public String getCurrentSoapToken(){
         //get a new access token if the current one is expired.
-        if (soapToken == null || isSoapTokenExpired()) {
-            getSoapAuthToken();
-        }
-        return this.soapToken;
+        return soapToken.get();
     }
 
     @Override
     public String legacyLogin(String username, String password) throws InvalidCredentialsException {
+        Token t = requestLegacySession(username, password);
+        session.set(t);
+        return t.getValue();
+    }
+
+    private Token requestLegacySession(String username, String password) throws InvalidCredentialsException {
         try{
-            session = cxLegacyService.login(username, password);
+            return new Token(cxLegacyService.login(username, password), LocalDateTime.now().plusHours(LEGACY_SESSION_TIME));
         }catch (CheckmarxLegacyException e){
             throw new InvalidCredentialsException();
         }
-        return session;
-    }
-
-    private boolean isTokenExpired() {
-        if (tokenExpires == null) {
-            return true;
-        }
-        return LocalDateTime.now().isAfter(tokenExpires);
-    }
-
-    private boolean isSoapTokenExpired() {
-        if (soapTokenExpires == null) {
-            return true;
-        }
-        return LocalDateTime.now().isAfter(soapTokenExpires);
-    }
-
-    private boolean isSessionTokenExpired() {
-        if (sessionTokenExpires == null) {
-            return true;
-        }
-        return LocalDateTime.now().isAfter(sessionTokenExpires);
     }
 
     public HttpHeaders createAuthHeaders() {
         //get a new access token if the current one is expired.
-        if (token == null || isTokenExpired()) {
-            getAuthToken();
-        }
         HttpHeaders httpHeaders = new HttpHeaders();
-        httpHeaders.set(HttpHeaders.AUTHORIZATION, "Bearer ".concat(token));
+        httpHeaders.set(HttpHeaders.AUTHORIZATION, "Bearer ".concat(token.get()));
         httpHeaders.setContentType(MediaType.APPLICATION_JSON);
         return httpHeaders;
     }
@@ -199,12 +188,92 @@ public class CxAuthService implements CxAuthClient{
             return getCurrentSoapToken();
         }
         else {
-            if (this.session == null || isSessionTokenExpired()) { //refresh session
-                this.session = legacyLogin(cxProperties.getUsername(), cxProperties.getPassword());
-                sessionTokenExpires = LocalDateTime.now().plusHours(LEGACY_SESSION_TIME);
+            return session.get();
+        }
+    }
+
+    /**
+     * Immutable token/session snapshot
+     */
+    private static final class Token {
+        private final String value;
+        private final LocalDateTime expires;
+
+        Token(String value, LocalDateTime expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        boolean isExpired() {
+            return value == null || LocalDateTime.now().isAfter(expires);
+        }
+    }
+
+    /**
+     * Holds the current snapshot of a token, refreshing it when expired with a single login in flight (other callers
+     * wait for its result).  A token that has been used is also refreshed in the background shortly before it expires.
+     */
+    private final class TokenHolder {
+        private final String name;
+        private final Supplier<Token> login;
+        private final AtomicReference<Token> current = new AtomicReference<>();
+        private final Object lock = new Object();
+        private volatile boolean used = false;
+
+        TokenHolder(String name, Supplier<Token> login) {
+            this.name = name;
+            this.login = login;
+        }
 
+        String get() {
+            Token t = current.get();
+            if (t == null || t.isExpired()) {
+                t = refresh(t);
+            }
+            used = true;
+            return t.getValue();
+        }
+
+        /**
+         * Login, unless the token has already been replaced since the given (expired) snapshot was read
+         */
+        private Token refresh(Token expired) {
+            synchronized (lock) {
+                Token t = current.get();
+                if (t != expired && t != null && !t.isExpired()) {
+                    return t;
+                }
+                t = login.get();
+                set(t);
+                return t;
+            }
+        }
+
+        void set(Token t) {
+            current.set(t);
+            used = false;
+            long delay = Duration.between(LocalDateTime.now(), t.expires).toMillis() - TimeUnit.SECONDS.toMillis(cxProperties.getTokenRefreshAhead());
+            try {
+                refreshScheduler.schedule(() -> backgroundRefresh(t), Math.max(0, delay), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.debug("Background refresh of {} not scheduled", name);
+            }
+        }
+
+        private void backgroundRefresh(Token scheduled) {
+            if (current.get() != scheduled || !used) {
+                return; //already replaced, or not used since it was obtained
+            }
+            try {
+                log.debug("Refreshing {} before it expires", name);
+                refresh(scheduled);
+            } catch (InvalidCredentialsException | IllegalStateException e) {
+                log.warn("Background refresh of {} failed, it will be refreshed on next use", name);
             }
-            return this.session;
         }
     }
 }
@@ -0,0 +1,109 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.exception.CheckmarxException;
+import org.slf4j.Logger;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cached copy of a list of rarely changing reference data (presets, engine configurations, roles, etc), with a
+ * case-insensitive index of ids by name.
+ * <p>
+ * The list is reloaded once older than the reference data TTL (minutes, 0 to always reload) or after
+ * {@link #invalidate()}.  Concurrent lookups on an expired catalog share a single reload.
+ *
+ * @param <T> type of the entries
+ */
+class CxCatalog<T> {
+
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(CxCatalog.class);
+    private final String name;
+    private final CxProperties cxProperties;
+    private final Loader<T> loader;
+    private final Function<T, String> nameOf;
+    private final Function<T, Integer> idOf;
+    private final Object lock = new Object();
+    private volatile Snapshot snapshot;
+
+    CxCatalog(String name, CxProperties cxProperties, Loader<T> loader, Function<T, String> nameOf, Function<T, Integer> idOf) {
+        this.name = name;
+        this.cxProperties = cxProperties;
+        this.loader = loader;
+        this.nameOf = nameOf;
+        this.idOf = idOf;
+    }
+
+    /**
+     * @param entryName name of the entry, in any case
+     * @return id of the first entry with the name, or null if not found
+     */
+    Integer getId(String entryName) throws CheckmarxException {
+        if (entryName == null) {
+            return null;
+        }
+        return current().ids.get(entryName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return all entries (unmodifiable)
+     */
+    List<T> getAll() throws CheckmarxException {
+        return current().entries;
+    }
+
+    /**
+     * Discard the cached entries, so the next lookup reloads them
+     */
+    void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot current() throws CheckmarxException {
+        Snapshot s = snapshot;
+        if (s != null && !s.isExpired()) {
+            return s;
+        }
+        synchronized (lock) {
+            /* reloaded by another thread while waiting */
+            if (snapshot != null && snapshot != s && !snapshot.isExpired()) {
+                return snapshot;
+            }
+            Snapshot loaded = new Snapshot(loader.load());
+            log.debug("Loaded {} {}", loaded.entries.size(), name);
+            snapshot = loaded;
+            return loaded;
+        }
+    }
+
+    @FunctionalInterface
+    interface Loader<T> {
+        List<T> load() throws CheckmarxException;
+    }
+
+    private class Snapshot {
+        private final long loaded = System.currentTimeMillis();
+        private final List<T> entries;
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        Snapshot(List<T> entries) {
+            this.entries = Collections.unmodifiableList(entries);
+            for (T entry : entries) {
+                String entryName = nameOf.apply(entry);
+                if (entryName != null) {
+                    ids.putIfAbsent(entryName.toLowerCase(Locale.ROOT), idOf.apply(entry));
+                }
+            }
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - loaded >= TimeUnit.MINUTES.toMillis(cxProperties.getReferenceDataTtl());
+        }
+    }
+}
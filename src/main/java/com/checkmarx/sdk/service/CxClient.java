@@ -1,6 +1,7 @@
 package com.checkmarx.sdk.service;
 
 import com.checkmarx.sdk.dto.Filter;
+import com.checkmarx.sdk.dto.ScanDiff;
 import com.checkmarx.sdk.dto.ScanResults;
 import com.checkmarx.sdk.dto.cx.*;
 import com.checkmarx.sdk.dto.cx.xml.CxXMLResultsType;
@@ -12,6 +13,7 @@ import java.io.File;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class used to orchestrate submitting scans and retrieving results
@@ -94,6 +96,44 @@ public interface CxClient {
      */
     public CxXMLResultsType getXmlReportContent(Integer reportId) throws CheckmarxException;
 
+    /**
+     * Stream the report by reportId, passing each Query/Result meeting the filter criteria to the visitor
+     * while the report is being downloaded and parsed
+     *
+     * @param reportId
+     * @param filter
+     * @param visitor
+     * @return the report level attributes (with no Query elements attached)
+     * @throws CheckmarxException
+     */
+    public CxXMLResultsType streamReport(Integer reportId, List<Filter> filter, ResultVisitor visitor) throws CheckmarxException;
+
+    /**
+     * Compare the results of a scan with those of a baseline scan, streaming both reports so only the new issues are
+     * held in full in memory
+     *
+     * @param baselineScanId id of the earlier scan
+     * @param scanId id of the later scan
+     * @param filter filters applied to both scans
+     * @return new issues, and resolved and recurring issues without snippet, description or additional details
+     * @throws CheckmarxException
+     * @see ScanDiff#compare(com.checkmarx.sdk.dto.ScanResults, com.checkmarx.sdk.dto.ScanResults)
+     */
+    public ScanDiff getScanDiff(Integer baselineScanId, Integer scanId, List<Filter> filter) throws CheckmarxException;
+
+    /**
+     * Compare the results of a scan with those of a baseline scan on the server, falling back to
+     * {@link #getScanDiff(Integer, Integer, List)} if the server comparison is unavailable
+     *
+     * @param baselineScanId id of the earlier scan
+     * @param scanId id of the later scan
+     * @param filter SEVERITY, TYPE and STATUS filters applied to both scans (a CWE filter is only applied by the
+     *               report comparison)
+     * @return new, resolved and recurring issues
+     * @throws CheckmarxException
+     */
+    public ScanDiff compareScans(Integer baselineScanId, Integer scanId, List<Filter> filter) throws CheckmarxException;
+
 
     /**
      * Returns custom field values read from a Checkmarx project, based on given projectId.
@@ -244,6 +284,29 @@ public interface CxClient {
      */
     public void uploadProjectSource(Integer projectId, File file) throws CheckmarxException;
 
+    /**
+     * Upload file (zip of source) for a project, streaming it from disk
+     *
+     * @param projectId
+     * @param file
+     * @param listener notified of the upload progress, may be null
+     * @throws CheckmarxException
+     */
+    public void uploadProjectSource(Integer projectId, File file, UploadListener listener) throws CheckmarxException;
+
+    /**
+     * Zip a source directory for a project, uploading the archive as it is written (without a temporary file)
+     *
+     * @param projectId
+     * @param directory source directory
+     * @param folderExclude folder names or relative path globs to leave out, may be null
+     * @param fileExclude file names or relative path globs to leave out, may be null
+     * @param listener notified of the upload progress, may be null
+     * @throws CheckmarxException
+     */
+    public void uploadProjectSource(Integer projectId, File directory, List<String> folderExclude, List<String> fileExclude,
+                                    UploadListener listener) throws CheckmarxException;
+
     /**
      *
      * @param projectId Id of Checkmarx Project
@@ -277,6 +340,12 @@ public interface CxClient {
      */
     public List<CxTeam> getTeams() throws CheckmarxException;
 
+    /**
+     * Discard the cached presets, engine configurations, roles and LDAP servers, so they are retrieved again on
+     * next use
+     */
+    public void invalidateReferenceData();
+
     /**
      * Adds an LDAP team association - uses SOAP Web Service
      * @param ldapServerId
@@ -540,6 +609,16 @@ public interface CxClient {
      */
     public ScanResults createScanAndReport(CxScanParams params, String comment, List<Filter> filters) throws CheckmarxException;
 
+    /**
+     * Create a scan based on the CxScanParams, returning a future of the ScanResults object based on filters
+     * without blocking the calling thread while the scan and report are being processed
+     * @param params attributes used to define the project
+     * @param comment
+     * @param filters filters to apply to the scan result set (severity, category, cwe)
+     * @return future completed with the ScanResults, or exceptionally with a CheckmarxException
+     */
+    public CompletableFuture<ScanResults> createScanAndReportAsync(CxScanParams params, String comment, List<Filter> filters);
+
     /**
      * Create a scan based on the CxScanParams and wait for the scan to complete, returning the result XML Jaxb object
      *
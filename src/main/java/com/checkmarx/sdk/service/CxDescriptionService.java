@@ -0,0 +1,243 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.utils.ScanUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Resolves issue descriptions from the legacy SOAP service on a bounded pool of workers.
+ * <p>
+ * Result descriptions are cached across reports by scanId/pathId, and concurrent requests for the same
+ * description share a single SOAP call.  Query descriptions are cached by queryId and persisted to a local
+ * file, an entry being replaced once the query version code changes.
+ */
+@Service
+public class CxDescriptionService {
+
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(CxDescriptionService.class);
+    private final CxLegacyService cxLegacyService;
+    private final CxProperties cxProperties;
+    private final ExecutorService executor;
+    private final Cache<String, String> descriptions;
+    private final Map<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+    private final Map<Integer, QueryDescription> queryDescriptions = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile boolean queryDescriptionsChanged = false;
+
+    public CxDescriptionService(CxLegacyService cxLegacyService, CxProperties cxProperties) {
+        this.cxLegacyService = cxLegacyService;
+        this.cxProperties = cxProperties;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, cxProperties.getDescriptionConcurrency()),
+                new CustomizableThreadFactory("cx-description-"));
+        this.descriptions = CacheBuilder.newBuilder()
+                .maximumSize(cxProperties.getDescriptionCacheSize())
+                .expireAfterWrite(cxProperties.getDescriptionCacheTtl(), TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * Retrieve the description of a result, from the cache if available
+     *
+     * @param session legacy session
+     * @param scanId
+     * @param pathId
+     * @return the description, completing with an empty String if it could not be retrieved
+     */
+    public CompletableFuture<String> getDescription(String session, Long scanId, Long pathId) {
+        String key = scanId + ":" + pathId;
+        String description = descriptions.getIfPresent(key);
+        if (description != null) {
+            return CompletableFuture.completedFuture(description);
+        }
+        return submit(key, () -> {
+            try {
+                String d = cxLegacyService.getDescription(session, scanId, pathId);
+                if (d == null) {
+                    d = "";
+                }
+                descriptions.put(key, d);
+                return d;
+            } catch (HttpStatusCodeException e) {
+                return "";
+            } catch (RuntimeException e) {
+                log.warn("Error occurred getting description for {} / {}", scanId, pathId);
+                log.debug(ExceptionUtils.getStackTrace(e));
+                return "";
+            }
+        });
+    }
+
+    /**
+     * Retrieve the description of a query, from the cache if available for the same query version
+     *
+     * @param session legacy session
+     * @param queryId
+     * @param queryVersionCode
+     * @return the description, completing with an empty String if it could not be retrieved
+     */
+    public CompletableFuture<String> getQueryDescription(String session, Integer queryId, String queryVersionCode) {
+        QueryDescription cached = queryDescriptions.get(queryId);
+        if (cached != null && Objects.equals(cached.getVersionCode(), queryVersionCode)) {
+            return CompletableFuture.completedFuture(cached.getDescription());
+        }
+        return submit("query:" + queryId + ":" + queryVersionCode, () -> {
+            try {
+                String d = cxLegacyService.getQueryDescription(session, queryId);
+                if (d == null) {
+                    d = "";
+                }
+                queryDescriptions.put(queryId, new QueryDescription(queryVersionCode, d));
+                queryDescriptionsChanged = true;
+                return d;
+            } catch (HttpStatusCodeException e) {
+                return "";
+            } catch (RuntimeException e) {
+                log.warn("Error occurred getting description for query {}", queryId);
+                log.debug(ExceptionUtils.getStackTrace(e));
+                return "";
+            }
+        });
+    }
+
+    /**
+     * Run the lookup on the worker pool, unless the same lookup is already in progress
+     */
+    private CompletableFuture<String> submit(String key, Supplier<String> lookup) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = pending.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(lookup.get());
+                } finally {
+                    /* no-op unless the lookup failed (i.e. interrupted on shutdown), so no caller is left waiting */
+                    future.complete("");
+                    pending.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key, future);
+            future.complete(lookup.get());
+        }
+        return future;
+    }
+
+    /**
+     * Write the query descriptions to the local cache file, if any have been retrieved since it was last written
+     */
+    public synchronized void saveQueryDescriptions() {
+        String cacheFile = cxProperties.getQueryDescriptionCacheFile();
+        if (!queryDescriptionsChanged || ScanUtils.empty(cacheFile)) {
+            return;
+        }
+        queryDescriptionsChanged = false;
+        File file = new File(cacheFile);
+        try {
+            File tmp = new File(file.getPath().concat(".tmp"));
+            objectMapper.writeValue(tmp, new HashMap<>(queryDescriptions));
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to write query description cache {}: {}", cacheFile, ExceptionUtils.getMessage(e));
+        }
+    }
+
+    @PostConstruct
+    void loadQueryDescriptions() {
+        String cacheFile = cxProperties.getQueryDescriptionCacheFile();
+        if (ScanUtils.empty(cacheFile) || !new File(cacheFile).isFile()) {
+            return;
+        }
+        try {
+            Map<Integer, QueryDescription> cached = objectMapper.readValue(new File(cacheFile),
+                    new TypeReference<Map<Integer, QueryDescription>>() {
+                    });
+            queryDescriptions.putAll(cached);
+            log.debug("Loaded {} query descriptions from {}", cached.size(), cacheFile);
+        } catch (IOException e) {
+            log.warn("Unable to read query description cache {}: {}", cacheFile, ExceptionUtils.getMessage(e));
+        }
+    }
+
+    /**
+     * Remove all cached descriptions
+     */
+    public void clearCache() {
+        descriptions.invalidateAll();
+        queryDescriptions.clear();
+        queryDescriptionsChanged = true;
+        saveQueryDescriptions();
+    }
+
+    /**
+     * Stop the workers, completing the lookups they will not run with an empty description so that no caller
+     * is left waiting on them
+     */
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+        for (CompletableFuture<String> future : pending.values()) {
+            future.complete("");
+        }
+        pending.clear();
+    }
+
+    /**
+     * Description of a query, for a particular version of the query
+     */
+    public static class QueryDescription {
+        private String versionCode;
+        private String description;
+
+        public QueryDescription() {
+        }
+
+        public QueryDescription(String versionCode, String description) {
+            this.versionCode = versionCode;
+            this.description = description;
+        }
+
+        public String getVersionCode() {
+            return versionCode;
+        }
+
+        public void setVersionCode(String versionCode) {
+            this.versionCode = versionCode;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public void setDescription(String description) {
+            this.description = description;
+        }
+    }
+}
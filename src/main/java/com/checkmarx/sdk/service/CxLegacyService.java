@@ -23,6 +23,7 @@ import java.beans.ConstructorProperties;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -39,8 +40,10 @@ public class CxLegacyService {
     private static final String CX_WS_PREFIX= "http://Checkmarx.com/";
     private static final String CX_WS_LOGIN_URI = CX_WS_PREFIX + "LoginV2";
     private static final String CX_WS_DESCRIPTION_URI = CX_WS_PREFIX + "GetResultDescription";
+    private static final String CX_WS_QUERY_DESCRIPTION_URI = CX_WS_PREFIX + "GetQueryDescriptionByQueryId";
     private static final String CX_WS_LDAP_CONFIGURATIONS_URI = CX_WS_PREFIX + "GetLdapServersConfigurations";
     private static final String CX_WS_TEAM_LDAP_MAPPINGS_URI = CX_WS_PREFIX + "GetTeamLdapGroupsMapping";
+    private static final String CX_WS_COMPARE_SCAN_RESULTS_URI = CX_WS_PREFIX + "GetCompareScanResults";
     private static final String CX_WS_ADD_USER = CX_WS_PREFIX + "AddNewUser";
     private static final String CX_WS_UPDATE_USER = CX_WS_PREFIX + "UpdateUserData";
     private static final String CX_WS_ALL_USERS = CX_WS_PREFIX + "GetAllUsers";
@@ -404,6 +407,69 @@ public class CxLegacyService {
         }
     }
 
+    String getQueryDescription(String session, Integer queryId){
+        GetQueryDescriptionByQueryId request = new GetQueryDescriptionByQueryId();
+        request.setSessionId(session);
+        request.setQueryId(queryId);
+
+        log.debug("Retrieving description for query {}", queryId);
+
+        GetQueryDescriptionByQueryIdResponse response = (GetQueryDescriptionByQueryIdResponse)
+                ws.marshalSendAndReceive(ws.getDefaultUri(), request, getWSCallback(CX_WS_QUERY_DESCRIPTION_URI, session));
+        try{
+            if(!response.getGetQueryDescriptionByQueryIdResult().isIsSuccesfull()){
+                log.error(response.getGetQueryDescriptionByQueryIdResult().getErrorMessage());
+                return "";
+            }
+            else {
+                String description = response.getGetQueryDescriptionByQueryIdResult().getQueryDescription();
+                description = description.replace(properties.getHtmlStrip(), "");
+                description = description.replaceAll("\\<.*?>", ""); /*Strip tag elements*/
+                return description;
+            }
+        }catch (NullPointerException e){
+            log.warn("Error occurred getting description for query {}", queryId);
+            return "";
+        }
+    }
+
+    /**
+     * Compare the results of two scans on the server
+     *
+     * @param session
+     * @param oldScanId baseline scan
+     * @param newScanId later scan
+     * @return results of both scans, each with its compare status (new, fixed or reoccurred)
+     * @throws CheckmarxException
+     */
+    List<CxWSSingleResultCompareData> getCompareScanResults(String session, Long oldScanId, Long newScanId) throws CheckmarxException{
+        GetCompareScanResults request = new GetCompareScanResults();
+        request.setSessionId(session);
+        request.setOldScanId(oldScanId);
+        request.setNewScanId(newScanId);
+
+        log.debug("Comparing results of scan {} to scan {}", newScanId, oldScanId);
+
+        GetCompareScanResultsResponse response = (GetCompareScanResultsResponse)
+                ws.marshalSendAndReceive(ws.getDefaultUri(), request, getWSCallback(CX_WS_COMPARE_SCAN_RESULTS_URI, session));
+        try{
+            if(!response.getGetCompareScanResultsResult().isIsSuccesfull()){
+                log.error(response.getGetCompareScanResultsResult().getErrorMessage());
+                throw new CheckmarxException(response.getGetCompareScanResultsResult().getErrorMessage());
+            }
+            else {
+                ArrayOfCxWSSingleResultCompareData results = response.getGetCompareScanResultsResult().getResults();
+                if(results == null){
+                    return new ArrayList<>();
+                }
+                return results.getCxWSSingleResultCompareData();
+            }
+        }catch (NullPointerException e){
+            log.warn("Error occurred comparing scan {} to scan {}", newScanId, oldScanId);
+            throw new CheckmarxException("Error occurred while comparing scans");
+        }
+    }
+
     void createLdapTeamMapping(String session, Integer ldapServerId, String teamId, String teamName, String groupDn) throws CheckmarxException{
         GetTeamLdapGroupsMapping ldapReq = new GetTeamLdapGroupsMapping();
 
@@ -495,6 +561,22 @@ public class CxLegacyService {
     }
 
     Integer getLdapServerId(String session, String serverName) throws  CheckmarxException{
+        for(Map.Entry<String, Integer> ldap: getLdapServers(session).entrySet()){
+            if(ldap.getKey().equalsIgnoreCase(serverName)){
+                return ldap.getValue();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieve the configured LDAP servers
+     *
+     * @param session
+     * @return map of LDAP server name to id
+     * @throws CheckmarxException
+     */
+    Map<String, Integer> getLdapServers(String session) throws  CheckmarxException{
         GetLdapServersConfigurations request = new GetLdapServersConfigurations();
         request.setSessionId(session);
 
@@ -509,12 +591,11 @@ public class CxLegacyService {
             }
             else {
                 List<CxWSLdapServerConfiguration> ldapConfigs = response.getGetLdapServersConfigurationsResult().getServerConfigs().getCxWSLdapServerConfiguration();
+                Map<String, Integer> ldapServers = new LinkedHashMap<>();
                 for(CxWSLdapServerConfiguration ldap: ldapConfigs){
-                    if(ldap.getName().equalsIgnoreCase(serverName)){
-                        return ldap.getId();
-                    }
+                    ldapServers.put(ldap.getName(), ldap.getId());
                 }
-                return -1;
+                return ldapServers;
             }
         }catch (NullPointerException e){
             log.warn("Error occurred getting ldap server configurations");
@@ -0,0 +1,170 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.dto.cx.CxProject;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Cache of Checkmarx projects by id, and of project ids by owning team and name.
+ * <p>
+ * Entries are loaded on first use, refreshed in the background once older than the project cache refresh interval
+ * (the previous value being returned until the refresh completes) and dropped once older than the project cache TTL.
+ * Only projects that were found are cached, so a project created outside of this client is found on the next lookup,
+ * and an entry is dropped when its refresh no longer finds the project or fails, so a project deleted or renamed
+ * outside of this client is not served until the TTL.
+ * Changes made through this client are applied with {@link #put(CxProject)} and {@link #remove(Integer)}.
+ */
+class CxProjectDirectory {
+
+    private final ExecutorService refreshExecutor;
+    private final LoadingCache<Integer, CxProject> projects;
+    private final LoadingCache<String, Integer> projectIds;
+
+    /**
+     * @param projectLoader retrieves a project by id, returning null if not found
+     * @param projectIdLoader retrieves a project id by team id and name, returning null if not found
+     */
+    CxProjectDirectory(CxProperties cxProperties, Function<Integer, CxProject> projectLoader,
+                       BiFunction<String, String, Integer> projectIdLoader) {
+        this(cxProperties, projectLoader, projectIdLoader, Ticker.systemTicker());
+    }
+
+    CxProjectDirectory(CxProperties cxProperties, Function<Integer, CxProject> projectLoader,
+                       BiFunction<String, String, Integer> projectIdLoader, Ticker ticker) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cx-project-refresh-");
+        threadFactory.setDaemon(true);
+        this.refreshExecutor = Executors.newSingleThreadExecutor(threadFactory);
+        Loader<Integer, CxProject> projectsLoader = new Loader<>(projectLoader, refreshExecutor);
+        this.projects = builder(cxProperties, ticker).build(projectsLoader);
+        projectsLoader.cache = projects;
+        Loader<String, Integer> projectIdsLoader = new Loader<>(key -> {
+            int separator = key.indexOf('/');
+            return projectIdLoader.apply(key.substring(0, separator), key.substring(separator + 1));
+        }, refreshExecutor);
+        this.projectIds = builder(cxProperties, ticker).build(projectIdsLoader);
+        projectIdsLoader.cache = projectIds;
+    }
+
+    private static CacheBuilder<Object, Object> builder(CxProperties cxProperties, Ticker ticker) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .maximumSize(cxProperties.getProjectCacheSize())
+                .expireAfterWrite(cxProperties.getProjectCacheTtl(), TimeUnit.MINUTES);
+        if (cxProperties.getProjectCacheRefresh() > 0) {
+            builder.refreshAfterWrite(cxProperties.getProjectCacheRefresh(), TimeUnit.MINUTES);
+        }
+        return builder;
+    }
+
+    /**
+     * @return the project, or null if not found
+     */
+    CxProject getProject(Integer projectId) {
+        try {
+            return projects.getUnchecked(projectId);
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the project id, or null if not found
+     */
+    Integer getProjectId(String teamId, String name) {
+        try {
+            return projectIds.getUnchecked(key(teamId, name));
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Record the id of a project, replacing any cached details of the project
+     */
+    void put(CxProject project) {
+        remove(project.getId());
+        projectIds.put(key(project.getTeamId(), project.getName()), project.getId());
+    }
+
+    /**
+     * Record the projects from a listing, which includes all of their details
+     */
+    void putAll(List<CxProject> list) {
+        for (CxProject project : list) {
+            projects.put(project.getId(), project);
+            projectIds.put(key(project.getTeamId(), project.getName()), project.getId());
+        }
+    }
+
+    void remove(Integer projectId) {
+        projects.invalidate(projectId);
+        projectIds.asMap().values().removeIf(projectId::equals);
+    }
+
+    void invalidate() {
+        projects.invalidateAll();
+        projectIds.invalidateAll();
+    }
+
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private static String key(String teamId, String name) {
+        return teamId + "/" + name;
+    }
+
+    /**
+     * Loads entries, and refreshes them in the background.  When a refresh finds nothing or fails, the cache keeps
+     * the previous value, so the entry is then removed (unless it has been replaced in the meantime).
+     */
+    private static class Loader<K, V> extends CacheLoader<K, V> {
+        private final Function<K, V> loader;
+        private final ExecutorService executor;
+        private LoadingCache<K, V> cache;
+
+        Loader(Function<K, V> loader, ExecutorService executor) {
+            this.loader = loader;
+            this.executor = executor;
+        }
+
+        @Override
+        public V load(K key) {
+            return loader.apply(key);
+        }
+
+        @Override
+        public ListenableFuture<V> reload(K key, V oldValue) {
+            ListenableFutureTask<V> task = ListenableFutureTask.create(() -> {
+                V value = null;
+                try {
+                    value = loader.apply(key);
+                } finally {
+                    if (value == null) {
+                        /* runs after this refresh has failed and the previous value has been restored */
+                        executor.execute(() -> cache.asMap().remove(key, oldValue));
+                    }
+                }
+                if (value == null) {
+                    throw new InvalidCacheLoadException("Not found on refresh: " + key);
+                }
+                return value;
+            });
+            executor.execute(task);
+            return task;
+        }
+    }
+}
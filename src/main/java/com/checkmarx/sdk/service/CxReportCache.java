@@ -0,0 +1,213 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.utils.ScanUtils;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Gzip compressed copies of scan reports, kept in the report cache directory by scan id and report type.
+ * <p>
+ * The results of a finished scan never change, so a cached report is served without generating it again, until it
+ * expires after the report cache TTL (minutes), as the triage of the results (state, false positive, remarks) may
+ * change on the server.  The directory is bounded by the report cache size (MB), evicting the least recently used
+ * reports first.  The time a report was cached is the modification time of its file, so the cache survives restarts
+ * (reloaded in the order the reports were cached).
+ * The file name includes a hash of the server URL, so reports of different servers do not collide.  Lookups are
+ * counted in the checkmarx.report.cache metric (tagged with hit/miss).  The cache is disabled unless a report cache
+ * directory is configured.
+ */
+class CxReportCache {
+
+    static final String XML = "XML";
+    private static final String SUFFIX = ".xml.gz";
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(CxReportCache.class);
+    private final CxProperties cxProperties;
+    /* size of each cached report by file name, in least recently used order */
+    private final Map<String, Long> reports = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    CxReportCache(CxProperties cxProperties) {
+        this.cxProperties = cxProperties;
+        load();
+    }
+
+    boolean isEnabled() {
+        return !ScanUtils.empty(cxProperties.getReportCacheDir());
+    }
+
+    /**
+     * @param scanId
+     * @param reportType
+     * @return the cached report, or null if the report of the scan is not cached
+     */
+    File get(Integer scanId, String reportType) {
+        File file = file(scanId, reportType);
+        boolean hit;
+        synchronized (this) {
+            hit = reports.get(file.getName()) != null && file.isFile();
+            if (hit && isExpired(file)) {
+                log.debug("Cached report of scan Id {} expired", scanId);
+                delete(file);
+                hit = false;
+            }
+            if (!hit) {
+                remove(file.getName());
+            }
+        }
+        Metrics.counter("checkmarx.report.cache", "result", hit ? "hit" : "miss").increment();
+        if (!hit) {
+            return null;
+        }
+        log.debug("Report of scan Id {} found in cache", scanId);
+        return file;
+    }
+
+    /**
+     * Open a cached report, guarded against its eviction (a report open when evicted can still be read to the end)
+     *
+     * @return the uncompressed content of the report, or null if it is no longer cached
+     */
+    InputStream open(Integer scanId, String reportType) throws IOException {
+        File file = file(scanId, reportType);
+        InputStream in;
+        synchronized (this) {
+            if (reports.get(file.getName()) == null) {
+                return null;
+            }
+            try {
+                in = new FileInputStream(file);
+            } catch (FileNotFoundException e) {
+                remove(file.getName());
+                return null;
+            }
+        }
+        try {
+            return new GZIPInputStream(new BufferedInputStream(in), 65536);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Cache the report of a scan, evicting the least recently used reports if the cache exceeds its size
+     *
+     * @param scanId
+     * @param reportType
+     * @param report writes the uncompressed report content
+     * @return the cached report
+     * @throws IOException if the report could not be written
+     */
+    File put(Integer scanId, String reportType, Report report) throws IOException {
+        File dir = new File(cxProperties.getReportCacheDir());
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create report cache directory ".concat(dir.getPath()));
+        }
+        File file = file(scanId, reportType);
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)), 65536)) {
+                report.writeTo(out);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+        log.debug("Cached report of scan Id {} ({} bytes compressed)", scanId, file.length());
+        synchronized (this) {
+            remove(file.getName());
+            reports.put(file.getName(), file.length());
+            size += file.length();
+            evict();
+        }
+        return file;
+    }
+
+    private File file(Integer scanId, String reportType) {
+        String server = Hashing.sha256().hashString(cxProperties.getUrl(), UTF_8).toString().substring(0, 16);
+        return new File(cxProperties.getReportCacheDir(), scanId + "-" + reportType + "-" + server + SUFFIX);
+    }
+
+    private boolean isExpired(File file) {
+        return System.currentTimeMillis() - file.lastModified() >= TimeUnit.MINUTES.toMillis(cxProperties.getReportCacheTtl());
+    }
+
+    private static void delete(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            log.warn("Unable to delete cached report {}: {}", file, ExceptionUtils.getMessage(e));
+        }
+    }
+
+    private void remove(String name) {
+        Long removed = reports.remove(name);
+        if (removed != null) {
+            size -= removed;
+        }
+    }
+
+    private void evict() {
+        long maxSize = cxProperties.getReportCacheSize() * 1024L * 1024L;
+        Iterator<Map.Entry<String, Long>> eldest = reports.entrySet().iterator();
+        /* the most recent report is kept even if it exceeds the size on its own */
+        while (size > maxSize && reports.size() > 1) {
+            Map.Entry<String, Long> entry = eldest.next();
+            File file = new File(cxProperties.getReportCacheDir(), entry.getKey());
+            delete(file);
+            size -= entry.getValue();
+            eldest.remove();
+            log.debug("Evicted cached report {}", file);
+        }
+    }
+
+    private synchronized void load() {
+        if (!isEnabled()) {
+            return;
+        }
+        File[] files = new File(cxProperties.getReportCacheDir()).listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            reports.put(file.getName(), file.length());
+            size += file.length();
+        }
+        evict();
+        log.debug("Loaded {} cached reports ({} bytes) from {}", reports.size(), size, cxProperties.getReportCacheDir());
+    }
+
+    /**
+     * Writes the content of a report
+     */
+    @FunctionalInterface
+    interface Report {
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
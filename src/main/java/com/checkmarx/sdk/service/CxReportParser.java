@@ -0,0 +1,251 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.dto.cx.xml.CxXMLResultsType;
+import com.checkmarx.sdk.dto.cx.xml.QueryType;
+import com.checkmarx.sdk.dto.cx.xml.ResultType;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Streaming (StAX) parser for the Checkmarx XML report.
+ * <p>
+ * The report header and each Query are read from element attributes, and each Result is unmarshalled
+ * individually and handed to a {@link Handler}, so only a single finding is held in memory at a time.
+ */
+@Component
+public class CxReportParser {
+
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(CxReportParser.class);
+    private static final String ROOT_ELEMENT = "CxXMLResults";
+    private static final String QUERY_ELEMENT = "Query";
+    private static final String RESULT_ELEMENT = "Result";
+    private final JAXBContext jaxbContext;
+    private final XMLInputFactory xmlInputFactory;
+
+    public CxReportParser() throws JAXBException {
+        this.jaxbContext = JAXBContext.newInstance(CxXMLResultsType.class);
+        /* protect against XXE */
+        this.xmlInputFactory = XMLInputFactory.newInstance();
+        this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        this.xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+    }
+
+    /**
+     * Callback used while streaming through a report
+     */
+    public interface Handler {
+
+        /**
+         * Called once with the report level attributes, before any Query is processed
+         *
+         * @param header report attributes (no Query elements are attached)
+         */
+        default void onHeader(CxXMLResultsType header) {
+        }
+
+        /**
+         * Called for each Query, before any of its Results are processed
+         *
+         * @param query query attributes (no Result elements are attached)
+         * @return true if the Results of this Query should be unmarshalled, false to skip them
+         */
+        default boolean onQuery(QueryType query) {
+            return true;
+        }
+
+        /**
+         * Called for each Result of an accepted Query
+         *
+         * @param query parent query
+         * @param result the result
+         */
+        void onResult(QueryType query, ResultType result);
+
+        /**
+         * Called when the closing tag of an accepted Query has been processed
+         *
+         * @param query the query
+         */
+        default void onQueryEnd(QueryType query) {
+        }
+    }
+
+    /**
+     * Stream through the report, calling the handler for each Query/Result.  The stream is not closed.
+     *
+     * @param xml report content
+     * @param handler callback for each element
+     * @return the report level attributes (with no Query elements attached)
+     * @throws XMLStreamException
+     * @throws JAXBException
+     */
+    public CxXMLResultsType parse(InputStream xml, Handler handler) throws XMLStreamException, JAXBException {
+        XMLStreamReader xsr = createReader(xml);
+        try {
+            xsr.nextTag();
+            if (!ROOT_ELEMENT.equals(xsr.getLocalName())) {
+                throw new XMLStreamException("Unexpected root element ".concat(xsr.getLocalName()));
+            }
+            CxXMLResultsType header = readHeader(xsr);
+            handler.onHeader(header);
+            Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+
+            QueryType query = null;
+            int event = xsr.next();
+            while (event != XMLStreamConstants.END_DOCUMENT) {
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xsr.getLocalName();
+                    if (query == null && QUERY_ELEMENT.equals(name)) {
+                        query = readQuery(xsr);
+                        if (!handler.onQuery(query)) {
+                            skipElement(xsr);
+                            query = null;
+                        }
+                    } else if (query != null && RESULT_ELEMENT.equals(name)) {
+                        ResultType result = unmarshaller.unmarshal(xsr, ResultType.class).getValue();
+                        handler.onResult(query, result);
+                        /* unmarshal leaves the reader on the event following the Result end tag */
+                        event = xsr.getEventType();
+                        continue;
+                    } else {
+                        log.debug("Skipping unexpected element {}", name);
+                        skipElement(xsr);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && query != null && QUERY_ELEMENT.equals(xsr.getLocalName())) {
+                    handler.onQueryEnd(query);
+                    query = null;
+                }
+                event = xsr.next();
+            }
+            return header;
+        } finally {
+            xsr.close();
+        }
+    }
+
+    /**
+     * Unmarshall the complete report into the Jaxb object representation
+     *
+     * @param xml report content
+     * @return CxXMLResultsType
+     * @throws XMLStreamException
+     * @throws JAXBException
+     */
+    public CxXMLResultsType unmarshal(InputStream xml) throws XMLStreamException, JAXBException {
+        XMLStreamReader xsr = createReader(xml);
+        try {
+            Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+            return (CxXMLResultsType) unmarshaller.unmarshal(xsr);
+        } finally {
+            xsr.close();
+        }
+    }
+
+    private XMLStreamReader createReader(InputStream xml) throws XMLStreamException {
+        try {
+            InputStream in = skipToMarkup(xml);
+            /* decoding replaces malformed UTF-8 sequences rather than failing (same as ScanUtils.cleanStringUTF8_2) */
+            return xmlInputFactory.createXMLStreamReader(new InputStreamReader(in, UTF_8));
+        } catch (IOException e) {
+            throw new XMLStreamException("Unable to read XML report", e);
+        }
+    }
+
+    /**
+     * Remove any chars (BOM, whitespace, etc) before the start xml tag
+     */
+    private static InputStream skipToMarkup(InputStream xml) throws IOException {
+        InputStream in = xml.markSupported() ? xml : new BufferedInputStream(xml);
+        while (true) {
+            in.mark(1);
+            int b = in.read();
+            if (b == -1) {
+                return in;
+            }
+            if (b == '<' || (b < 0x80 && (Character.isLetterOrDigit(b) || b == '_'))) {
+                in.reset();
+                return in;
+            }
+        }
+    }
+
+    private static void skipElement(XMLStreamReader xsr) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = xsr.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static CxXMLResultsType readHeader(XMLStreamReader xsr) {
+        CxXMLResultsType header = new CxXMLResultsType();
+        for (int i = 0; i < xsr.getAttributeCount(); i++) {
+            String value = xsr.getAttributeValue(i);
+            switch (xsr.getAttributeLocalName(i)) {
+                case "InitiatorName": header.setInitiatorName(value); break;
+                case "Owner": header.setOwner(value); break;
+                case "ScanId": header.setScanId(value); break;
+                case "ProjectId": header.setProjectId(value); break;
+                case "ProjectName": header.setProjectName(value); break;
+                case "TeamFullPathOnReportDate": header.setTeamFullPathOnReportDate(value); break;
+                case "DeepLink": header.setDeepLink(value); break;
+                case "ScanStart": header.setScanStart(value); break;
+                case "Preset": header.setPreset(value); break;
+                case "ScanTime": header.setScanTime(value); break;
+                case "LinesOfCodeScanned": header.setLinesOfCodeScanned(value); break;
+                case "FilesScanned": header.setFilesScanned(value); break;
+                case "ReportCreationTime": header.setReportCreationTime(value); break;
+                case "Team": header.setTeam(value); break;
+                case "CheckmarxVersion": header.setCheckmarxVersion(value); break;
+                case "ScanComments": header.setScanComments(value); break;
+                case "ScanType": header.setScanType(value); break;
+                case "SourceOrigin": header.setSourceOrigin(value); break;
+                case "Visibility": header.setVisibility(value); break;
+                default: break;
+            }
+        }
+        return header;
+    }
+
+    private static QueryType readQuery(XMLStreamReader xsr) {
+        QueryType query = new QueryType();
+        for (int i = 0; i < xsr.getAttributeCount(); i++) {
+            String value = xsr.getAttributeValue(i);
+            switch (xsr.getAttributeLocalName(i)) {
+                case "id": query.setId(value); break;
+                case "categories": query.setCategories(value); break;
+                case "cweId": query.setCweId(value); break;
+                case "name": query.setName(value); break;
+                case "group": query.setGroup(value); break;
+                case "Severity": query.setSeverity(value); break;
+                case "Language": query.setLanguage(value); break;
+                case "LanguageHash": query.setLanguageHash(value); break;
+                case "LanguageChangeDate": query.setLanguageChangeDate(value); break;
+                case "SeverityIndex": query.setSeverityIndex(value); break;
+                case "QueryPath": query.setQueryPath(value); break;
+                case "QueryVersionCode": query.setQueryVersionCode(value); break;
+                default: break;
+            }
+        }
+        return query;
+    }
+}
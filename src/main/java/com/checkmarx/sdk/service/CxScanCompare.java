@@ -0,0 +1,161 @@
+package com.checkmarx.sdk.service;
+
+import checkmarx.wsdl.portal.CompareStatusType;
+import checkmarx.wsdl.portal.CxWSSingleResultCompareData;
+import com.checkmarx.sdk.dto.AdditionalIssueDetails;
+import com.checkmarx.sdk.dto.Filter;
+import com.checkmarx.sdk.dto.ScanDiff;
+import com.checkmarx.sdk.dto.ScanResults;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+/**
+ * Maps the results of a server side scan comparison (GetCompareScanResults) to a {@link ScanDiff}.
+ * <p>
+ * Each compared result carries the query name, severity, state and the source/destination nodes of its path, but no
+ * similarity id, CWE or language, so results are merged into an issue per vulnerability + file of the source node
+ * (as for a report), and a CWE filter cannot be applied to them (see {@link #isSupported(List)}).
+ */
+class CxScanCompare {
+
+    private static final Map<Integer, String> SEVERITY_MAP = ImmutableMap.of(
+            0, "Information",
+            1, "Low",
+            2, "Medium",
+            3, "High"
+    );
+    private static final Map<String, Integer> STATUS_MAP = ImmutableMap.of(
+            "TO VERIFY", 0,
+            "CONFIRMED", 2,
+            "URGENT", 3,
+            "PROPOSED NOT EXPLOITABLE", 4
+    );
+    private static final int NOT_EXPLOITABLE = 1;
+
+    private CxScanCompare() {
+    }
+
+    /**
+     * @return true if the filters can be applied to compared results (i.e. there is no CWE filter)
+     */
+    static boolean isSupported(List<Filter> filters) {
+        return filters == null || filters.stream().noneMatch(f -> Filter.Type.CWE.equals(f.getType()));
+    }
+
+    /**
+     * @param results compared results of both scans
+     * @param filters filters applied to the results
+     * @param describer retrieves the description of a result by scan id / path id in the background, or null to
+     *                  leave the descriptions blank
+     * @return the new, fixed (resolved) and reoccurred (recurring) issues
+     */
+    static ScanDiff toScanDiff(List<CxWSSingleResultCompareData> results, List<Filter> filters,
+                               BiFunction<Long, Long, CompletableFuture<String>> describer) {
+        Map<ScanResults.XIssue, ScanResults.XIssue> newIssues = new LinkedHashMap<>();
+        Map<ScanResults.XIssue, ScanResults.XIssue> resolvedIssues = new LinkedHashMap<>();
+        Map<ScanResults.XIssue, ScanResults.XIssue> recurringIssues = new LinkedHashMap<>();
+        Map<ScanResults.XIssue, CompletableFuture<String>> descriptions = new LinkedHashMap<>();
+        for (CxWSSingleResultCompareData r : results) {
+            if (!checkFilter(r, filters)) {
+                continue;
+            }
+            Map<ScanResults.XIssue, ScanResults.XIssue> issues;
+            if (CompareStatusType.NEW.equals(r.getResultStatus())) {
+                issues = newIssues;
+            } else if (CompareStatusType.FIXED.equals(r.getResultStatus())) {
+                issues = resolvedIssues;
+            } else {
+                issues = recurringIssues;
+            }
+            ScanResults.XIssue issue = toIssue(r);
+            ScanResults.XIssue existing = issues.putIfAbsent(issue, issue);
+            if (existing != null) {
+                /* the details of the first result for a line are kept, while the results are all listed */
+                issue.getDetails().forEach(existing.getDetails()::putIfAbsent);
+                ((AdditionalIssueDetails) existing.getAdditionalDetails()).merge((AdditionalIssueDetails) issue.getAdditionalDetails());
+            } else if (describer != null) {
+                descriptions.put(issue, describer.apply(r.getScanId(), r.getPathId()));
+            }
+        }
+        for (Map.Entry<ScanResults.XIssue, CompletableFuture<String>> entry : descriptions.entrySet()) {
+            entry.getKey().setDescription(entry.getValue().join());
+        }
+        return new ScanDiff(new ArrayList<>(newIssues.values()), new ArrayList<>(resolvedIssues.values()),
+                new ArrayList<>(recurringIssues.values()), recurringIssues.size());
+    }
+
+    private static ScanResults.XIssue toIssue(CxWSSingleResultCompareData r) {
+        Map<Integer, ScanResults.IssueDetails> details = new HashMap<>();
+        details.put((int) r.getSourceLine(), new ScanResults.IssueDetails()
+                .comment(r.getComment())
+                .falsePositive(r.getState() == NOT_EXPLOITABLE));
+        return ScanResults.XIssue.builder()
+                .vulnerability(r.getQueryName())
+                .severity(SEVERITY_MAP.get(r.getSeverity()))
+                .file(r.getSourceFile())
+                .description("")
+                .details(details)
+                .additionalDetails(getAdditionalIssueDetails(r))
+                .build();
+    }
+
+    /**
+     * @return the state and source/sink of the result, under the same keys as the additional details of a report
+     */
+    private static AdditionalIssueDetails getAdditionalIssueDetails(CxWSSingleResultCompareData r) {
+        AdditionalIssueDetails.ResultState result = new AdditionalIssueDetails.ResultState(String.valueOf(r.getState()),
+                new AdditionalIssueDetails.SourceSink(r.getSourceFile(), String.valueOf(r.getSourceLine()), null, r.getSourceObject()),
+                new AdditionalIssueDetails.SourceSink(r.getDestFile(), String.valueOf(r.getDestLine()), null, r.getDestObject()));
+        return new AdditionalIssueDetails(null, null, Collections.singletonList(result));
+    }
+
+    /**
+     * Check if the compared result meets the SEVERITY, TYPE (query name) and STATUS filter criteria
+     */
+    static boolean checkFilter(CxWSSingleResultCompareData r, List<Filter> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return true;
+        }
+        List<String> severity = new ArrayList<>();
+        List<String> category = new ArrayList<>();
+        List<Integer> status = new ArrayList<>();
+        boolean newStatus = false;
+
+        for (Filter f : filters) {
+            Filter.Type type = f.getType();
+            String value = f.getValue();
+            if (type.equals(Filter.Type.SEVERITY)) {
+                severity.add(value.toUpperCase(Locale.ROOT));
+            } else if (type.equals(Filter.Type.TYPE)) {
+                category.add(value.toUpperCase(Locale.ROOT));
+            } else if (type.equals(Filter.Type.STATUS)) {
+                //New is the compare status of the result, as opposed to its state for the others
+                if (value.equalsIgnoreCase("New")) {
+                    newStatus = true;
+                } else {
+                    status.add(STATUS_MAP.get(value.toUpperCase(Locale.ROOT)));
+                }
+            }
+        }
+        String resultSeverity = SEVERITY_MAP.get(r.getSeverity());
+        if (!severity.isEmpty() && (resultSeverity == null || !severity.contains(resultSeverity.toUpperCase(Locale.ROOT)))) {
+            return false;
+        }
+        if (!category.isEmpty() && (r.getQueryName() == null || !category.contains(r.getQueryName().toUpperCase(Locale.ROOT)))) {
+            return false;
+        }
+        if (newStatus && CompareStatusType.NEW.equals(r.getResultStatus())) {
+            return true;
+        }
+        return (!newStatus && status.isEmpty()) || status.contains(r.getState());
+    }
+}
@@ -0,0 +1,162 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.exception.CheckmarxException;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the steps of a single scan submission, each step starting on the executor as soon as the steps it depends on
+ * have completed.
+ * <p>
+ * A step is not started if any of the steps it depends on failed, or once any step of the submission has failed.
+ * {@link #await(CompletableFuture)} fails as soon as any step fails, after the steps still running have completed, so
+ * no step of a failed submission writes to the server once the caller has seen the error.  The time taken by each
+ * step is recorded in the checkmarx.scan.submit metric (tagged with the stage) and logged by {@link #report(Integer)}.
+ */
+class CxScanPipeline {
+
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(CxScanPipeline.class);
+    private final Executor executor;
+    private final long start = System.currentTimeMillis();
+    /* completed exceptionally by the first step to fail */
+    private final CompletableFuture<Void> failure = new CompletableFuture<>();
+    private final List<String> timings = new ArrayList<>();
+    private final List<CompletableFuture<?>> steps = new ArrayList<>();
+
+    CxScanPipeline(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Run a step once the given steps have completed
+     *
+     * @param stage name of the step
+     * @param step the step, which can join() any of the steps it depends on
+     * @param after steps this step depends on
+     * @return future completed with the result of the step
+     */
+    <T> CompletableFuture<T> stage(String stage, Step<T> step, CompletableFuture<?>... after) {
+        CompletableFuture<T> future = CompletableFuture.allOf(after)
+                .thenApplyAsync(v -> {
+                    if (failure.isDone()) {
+                        throw new CancellationException("Not started, as a step of the submission failed");
+                    }
+                    try {
+                        return time(stage, step);
+                    } catch (CheckmarxException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor);
+        future.whenComplete((result, e) -> {
+            if (e != null) {
+                failure.completeExceptionally(e);
+            }
+        });
+        synchronized (steps) {
+            steps.add(future);
+        }
+        return future;
+    }
+
+    /**
+     * Run a step without a result once the given steps have completed
+     *
+     * @see #stage(String, Step, CompletableFuture[])
+     */
+    CompletableFuture<Void> run(String stage, Action action, CompletableFuture<?>... after) {
+        return stage(stage, () -> {
+            action.run();
+            return null;
+        }, after);
+    }
+
+    /**
+     * Wait for a step, failing as soon as any step of the pipeline fails and the steps still running have completed
+     */
+    <T> T await(CompletableFuture<T> future) throws CheckmarxException {
+        try {
+            CompletableFuture.anyOf(future, failure).get();
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CheckmarxException("Interrupted Exception Occurred");
+        } catch (ExecutionException e) {
+            awaitSteps();
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof CheckmarxException) {
+                throw (CheckmarxException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CheckmarxException(ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    /**
+     * Wait for every step to complete, steps not yet started being skipped once a step has failed
+     */
+    private void awaitSteps() throws CheckmarxException {
+        CompletableFuture<?>[] started;
+        synchronized (steps) {
+            started = steps.toArray(new CompletableFuture<?>[0]);
+        }
+        try {
+            CompletableFuture.allOf(started).handle((v, e) -> null).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CheckmarxException("Interrupted Exception Occurred");
+        } catch (ExecutionException e) {
+            /* handled above */
+        }
+    }
+
+    /**
+     * Run a step on the calling thread, recording its time
+     */
+    <T> T time(String stage, Step<T> step) throws CheckmarxException {
+        long stageStart = System.currentTimeMillis();
+        try {
+            return step.run();
+        } finally {
+            long end = System.currentTimeMillis();
+            Metrics.timer("checkmarx.scan.submit", "stage", stage).record(end - stageStart, TimeUnit.MILLISECONDS);
+            synchronized (timings) {
+                timings.add(String.format("%s %d-%dms", stage, stageStart - start, end - start));
+            }
+        }
+    }
+
+    /**
+     * Log the start/end time of each step, relative to the start of the submission
+     */
+    void report(Integer projectId) {
+        synchronized (timings) {
+            log.info("Scan submission for project Id {} took {}ms: {}", projectId,
+                    System.currentTimeMillis() - start, String.join(", ", timings));
+        }
+    }
+
+    @FunctionalInterface
+    interface Step<T> {
+        T run() throws CheckmarxException;
+    }
+
+    @FunctionalInterface
+    interface Action {
+        void run() throws CheckmarxException;
+    }
+}
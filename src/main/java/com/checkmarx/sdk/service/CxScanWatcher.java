@@ -0,0 +1,269 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.exception.CheckmarxException;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the status of any number of scans and reports from a single scheduler thread, completing a future for each
+ * once it is done.
+ * <p>
+ * Each scan/report is checked according to the {@link PollingStrategy}.  Scans still running are found with a single
+ * call to the scan queue per poll, so the status of an individual scan is only requested once it has left the queue.
+ * Futures are completed on a separate pool of worker threads, so dependent stages (report download, etc) never block
+ * the scheduler.
+ * <p>
+ * Metrics: checkmarx.wait (time until ready was detected), checkmarx.wait.overshoot (time between the last check
+ * that was not ready and the check that was, i.e. the bound on how late readiness was detected) and
+ * checkmarx.wait.polls, each tagged with the type (scan/report).
+ */
+class CxScanWatcher {
+
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(CxScanWatcher.class);
+    private final CxService cxService;
+    private final CxProperties cxProperties;
+    private final PollingStrategy pollingStrategy;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+    private final Map<Integer, Watch> scans = new ConcurrentHashMap<>();
+    private final Map<Integer, Watch> reports = new ConcurrentHashMap<>();
+    /* time the last report took to be generated, used as the estimate for the next */
+    private final AtomicLong lastReportWait = new AtomicLong();
+    private ScheduledFuture<?> nextPoll;
+    private long nextPollTime = Long.MAX_VALUE;
+
+    CxScanWatcher(CxService cxService, CxProperties cxProperties, PollingStrategy pollingStrategy) {
+        this.cxService = cxService;
+        this.cxProperties = cxProperties;
+        this.pollingStrategy = pollingStrategy;
+        CustomizableThreadFactory schedulerFactory = new CustomizableThreadFactory("cx-scan-watcher-");
+        schedulerFactory.setDaemon(true);
+        CustomizableThreadFactory workerFactory = new CustomizableThreadFactory("cx-scan-worker-");
+        workerFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(schedulerFactory);
+        this.workers = Executors.newCachedThreadPool(workerFactory);
+    }
+
+    /**
+     * Watch a scan until it finishes
+     *
+     * @param scanId
+     * @param expected estimated time (ms) until the scan finishes, or 0 if unknown
+     * @return future completed with the final scan status, or exceptionally if the scan failed, was cancelled or timed out
+     */
+    CompletableFuture<Integer> watchScan(Integer scanId, long expected) {
+        long timeout = cxProperties.getScanTimeout() * 60000L;
+        return watch(scans, scanId, PollingStrategy.Type.SCAN, timeout, expected);
+    }
+
+    /**
+     * Watch a report until it has been created
+     *
+     * @param reportId
+     * @return future completed with the final report status, or exceptionally if the status could not be retrieved or timed out
+     */
+    CompletableFuture<Integer> watchReport(Integer reportId) {
+        long timeout = cxProperties.getReportTimeout();
+        return watch(reports, reportId, PollingStrategy.Type.REPORT, timeout, lastReportWait.get());
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private CompletableFuture<Integer> watch(Map<Integer, Watch> watches, Integer id, PollingStrategy.Type type, long timeout, long expected) {
+        Watch watch = watches.computeIfAbsent(id, k -> {
+            Watch w = new Watch(type, timeout, expected);
+            w.nextPoll = w.start + pollingStrategy.nextDelay(type, 0, 0, expected);
+            return w;
+        });
+        schedule(watch.nextPoll);
+        return watch.future;
+    }
+
+    /**
+     * Make sure a poll is scheduled no later than the given time
+     */
+    private synchronized void schedule(long time) {
+        if (nextPoll != null && !nextPoll.isDone() && nextPollTime <= time) {
+            return;
+        }
+        if (nextPoll != null) {
+            nextPoll.cancel(false);
+        }
+        nextPollTime = time;
+        nextPoll = scheduler.schedule(this::poll, Math.max(0, time - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private void poll() {
+        try {
+            long now = System.currentTimeMillis();
+            pollScans(now);
+            pollReports(now);
+        } catch (RuntimeException e) {
+            log.error("Error polling scan/report status");
+            log.error(ExceptionUtils.getStackTrace(e));
+        } finally {
+            /* under the lock schedule() takes, so a watch added meanwhile is either seen here or schedules its own poll */
+            synchronized (this) {
+                nextPoll = null;
+                nextPollTime = Long.MAX_VALUE;
+                long next = Long.MAX_VALUE;
+                for (Watch watch : scans.values()) {
+                    next = Math.min(next, watch.nextPoll);
+                }
+                for (Watch watch : reports.values()) {
+                    next = Math.min(next, watch.nextPoll);
+                }
+                if (next != Long.MAX_VALUE) {
+                    schedule(next);
+                }
+            }
+        }
+    }
+
+    private void pollScans(long now) {
+        if (scans.values().stream().noneMatch(w -> w.nextPoll <= now)) {
+            return;
+        }
+        /* null when the queue is unavailable, in which case every scan is checked individually */
+        Set<Integer> queued;
+        try {
+            queued = cxService.getScanQueue();
+        } catch (RuntimeException e) {
+            log.warn("Error retrieving scan queue: {}", ExceptionUtils.getMessage(e));
+            log.debug(ExceptionUtils.getStackTrace(e));
+            queued = null;
+        }
+        for (Map.Entry<Integer, Watch> entry : scans.entrySet()) {
+            Integer scanId = entry.getKey();
+            Watch watch = entry.getValue();
+            if (watch.nextPoll > now) {
+                continue;
+            }
+            try {
+                Integer status = null;
+                if (queued == null || !queued.contains(scanId)) {
+                    status = cxService.getScanStatus(scanId);
+                }
+                if (CxService.SCAN_STATUS_FINISHED.equals(status)) {
+                    complete(scans, scanId, watch, now, status, null);
+                } else if (CxService.SCAN_STATUS_FAILED.equals(status) || CxService.SCAN_STATUS_CANCELED.equals(status)) {
+                    complete(scans, scanId, watch, now, status, new CheckmarxException("Scan was cancelled or failed"));
+                } else if (watch.isExpired(now)) {
+                    expireScan(scanId, watch, now, status);
+                } else {
+                    reschedule(watch, now);
+                }
+            } catch (RuntimeException e) {
+                log.error("Error polling scan status for scan Id {}", scanId);
+                log.error(ExceptionUtils.getStackTrace(e));
+                if (watch.isExpired(now)) {
+                    expireScan(scanId, watch, now, null);
+                } else {
+                    reschedule(watch, now);
+                }
+            }
+        }
+    }
+
+    private void expireScan(Integer scanId, Watch watch, long now, Integer status) {
+        log.error("Scan timeout exceeded.  {} minutes", cxProperties.getScanTimeout());
+        complete(scans, scanId, watch, now, status, new CheckmarxException("Timeout exceeded during scan"));
+    }
+
+    private void pollReports(long now) {
+        for (Map.Entry<Integer, Watch> entry : reports.entrySet()) {
+            Integer reportId = entry.getKey();
+            Watch watch = entry.getValue();
+            if (watch.nextPoll > now) {
+                continue;
+            }
+            try {
+                Integer status = cxService.getReportStatus(reportId);
+                if (CxService.REPORT_STATUS_CREATED.equals(status)) {
+                    lastReportWait.set(now - watch.start);
+                    complete(reports, reportId, watch, now, status, null);
+                } else if (watch.isExpired(now)) {
+                    log.error("Report Generation timeout.  {}", cxProperties.getReportTimeout());
+                    complete(reports, reportId, watch, now, status, new CheckmarxException("Timeout exceeded during report generation"));
+                } else {
+                    reschedule(watch, now);
+                }
+            } catch (CheckmarxException e) {
+                complete(reports, reportId, watch, now, null, e);
+            } catch (RuntimeException e) {
+                log.error("Error polling report status for report Id {}", reportId);
+                log.error(ExceptionUtils.getStackTrace(e));
+                if (watch.isExpired(now)) {
+                    complete(reports, reportId, watch, now, null, new CheckmarxException("Timeout exceeded during report generation"));
+                } else {
+                    reschedule(watch, now);
+                }
+            }
+        }
+    }
+
+    private void reschedule(Watch watch, long now) {
+        watch.attempts++;
+        watch.lastPoll = now;
+        watch.nextPoll = now + pollingStrategy.nextDelay(watch.type, watch.attempts, now - watch.start, watch.expected);
+        Metrics.counter("checkmarx.wait.polls", "type", watch.tag()).increment();
+    }
+
+    private void complete(Map<Integer, Watch> watches, Integer id, Watch watch, long now, Integer status, CheckmarxException error) {
+        watches.remove(id, watch);
+        Metrics.counter("checkmarx.wait.polls", "type", watch.tag()).increment();
+        Metrics.timer("checkmarx.wait", "type", watch.tag()).record(now - watch.start, TimeUnit.MILLISECONDS);
+        Metrics.timer("checkmarx.wait.overshoot", "type", watch.tag()).record(now - watch.lastPoll, TimeUnit.MILLISECONDS);
+        log.debug("{} {} done after {}ms, {} checks (expected {}ms)", watch.tag(), id, now - watch.start, watch.attempts + 1, watch.expected);
+        workers.execute(() -> {
+            if (error != null) {
+                watch.future.completeExceptionally(error);
+            } else {
+                watch.future.complete(status);
+            }
+        });
+    }
+
+    private static class Watch {
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+        private final PollingStrategy.Type type;
+        private final long start = System.currentTimeMillis();
+        private final long deadline;
+        private final long expected;
+        private int attempts = 0;
+        private long lastPoll = start;
+        private volatile long nextPoll;
+
+        Watch(PollingStrategy.Type type, long timeout, long expected) {
+            this.type = type;
+            this.deadline = start + timeout;
+            this.expected = expected;
+        }
+
+        boolean isExpired(long now) {
+            return now >= deadline;
+        }
+
+        String tag() {
+            return type.name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
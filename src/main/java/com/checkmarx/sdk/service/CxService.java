@@ -1,7 +1,9 @@
 package com.checkmarx.sdk.service;
 
 import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.dto.AdditionalIssueDetails;
 import com.checkmarx.sdk.dto.Filter;
+import com.checkmarx.sdk.dto.ScanDiff;
 import com.checkmarx.sdk.dto.ScanResults;
 import com.checkmarx.sdk.dto.cx.*;
 import com.checkmarx.sdk.dto.cx.xml.*;
@@ -10,9 +12,15 @@ import com.checkmarx.sdk.exception.CheckmarxException;
 import com.checkmarx.sdk.config.Constants;
 import com.checkmarx.sdk.exception.InvalidCredentialsException;
 import com.checkmarx.sdk.utils.ScanUtils;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.hash.HashCode;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.json.JSONArray;
@@ -20,30 +28,41 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.*;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.ws.WebServiceException;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.naming.InvalidNameException;
 import javax.naming.ldap.LdapName;
 import javax.naming.ldap.Rdn;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.UnmarshalException;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * Class used to orchestrate submitting scans and retrieving results
@@ -58,11 +77,13 @@ public class CxService implements CxClient{
     private static final Integer SCAN_STATUS_QUEUED = 3;
     private static final Integer SCAN_STATUS_SCANNING = 4;
     private static final Integer SCAN_STATUS_POST_SCAN = 6;
-    private static final Integer SCAN_STATUS_FINISHED = 7;
-    private static final Integer SCAN_STATUS_CANCELED = 8;
-    private static final Integer SCAN_STATUS_FAILED = 9;
+    static final Integer SCAN_STATUS_FINISHED = 7;
+    static final Integer SCAN_STATUS_CANCELED = 8;
+    static final Integer SCAN_STATUS_FAILED = 9;
     private static final Integer SCAN_STATUS_SOURCE_PULLING = 10;
     private static final Integer SCAN_STATUS_NONE = 1001;
+    /* rough scan throughput used when the duration of the last scan is not known (~30k LOC per minute) */
+    private static final long ESTIMATED_MS_PER_LOC = 2;
     /*
     report statuses - there are only 2:
     InProcess (1)
@@ -88,6 +109,7 @@ public class CxService implements CxClient{
     private static final String LDAP_SERVER = "/auth/LDAPServers";
     private static final String PROJECTS = "/projects";
     private static final String PROJECT = "/projects/{id}";
+    private static final String PROJECTS_BY_TEAM = "/projects?teamId={teamId}";
     private static final String PROJECT_SOURCE = "/projects/{id}/sourceCode/remoteSettings/git";
     private static final String PROJECT_SOURCE_FILE = "/projects/{id}/sourceCode/attachments";
     private static final String PROJECT_EXCLUDE = "/projects/{id}/sourceCode/excludeSettings";
@@ -98,6 +120,7 @@ public class CxService implements CxClient{
     private static final String SCAN_SUMMARY = "/sast/scans/{id}/resultsStatistics";
     private static final String PROJECT_SCANS = "/sast/scans?projectId={pid}";
     private static final String SCAN_STATUS = "/sast/scans/{id}";
+    private static final String SCANS_QUEUE = "/sast/scansQueue";
     private static final String REPORT = "/reports/sastScan";
     private static final String REPORT_DOWNLOAD = "/reports/sastScan/{id}";
     private static final String REPORT_STATUS = "/reports/sastScan/{id}/status";
@@ -106,12 +129,59 @@ public class CxService implements CxClient{
     private final CxLegacyService cxLegacyService;
     private final CxAuthClient authClient;
     private final RestTemplate restTemplate;
-
-    public CxService(CxAuthClient authClient, CxProperties cxProperties, CxLegacyService cxLegacyService, @Qualifier("cxRestTemplate") RestTemplate restTemplate) {
+    private final RestTemplate uploadRestTemplate;
+    private final CxReportParser reportParser;
+    private final CxDescriptionService descriptionService;
+    private final CxScanWatcher scanWatcher;
+    private final ExecutorService scanSubmissionExecutor;
+    private final ExecutorService sourceCompressionExecutor;
+    private final CxTeamDirectory teamDirectory;
+    private final CxSettingsCache settingsCache;
+    private final CxSourceDedup sourceDedup;
+    private final CxReportCache reportCache;
+    /* strings shared by the results of all reports, if the global string pool is enabled */
+    private final Interner<String> stringInterner = Interners.newWeakInterner();
+    private final CxSingleFlight<Integer, ReportContent> reportFlights = new CxSingleFlight<>("checkmarx.report.generate");
+    private final CxProjectDirectory projectDirectory;
+    private final CxCatalog<CxPreset> presets;
+    private final CxCatalog<CxScanEngine> engineConfigurations;
+    private final CxCatalog<CxRole> roles;
+    private final CxCatalog<Map.Entry<String, Integer>> ldapServers;
+
+    public CxService(CxAuthClient authClient, CxProperties cxProperties, CxLegacyService cxLegacyService, @Qualifier("cxRestTemplate") RestTemplate restTemplate,
+                     @Qualifier("cxUploadRestTemplate") RestTemplate uploadRestTemplate,
+                     CxReportParser reportParser, CxDescriptionService descriptionService, PollingStrategy pollingStrategy) {
         this.authClient = authClient;
         this.cxProperties = cxProperties;
         this.cxLegacyService = cxLegacyService;
         this.restTemplate = restTemplate;
+        this.uploadRestTemplate = uploadRestTemplate;
+        this.reportParser = reportParser;
+        this.descriptionService = descriptionService;
+        this.scanWatcher = new CxScanWatcher(this, cxProperties, pollingStrategy);
+        CustomizableThreadFactory submissionThreadFactory = new CustomizableThreadFactory("cx-scan-submit-");
+        submissionThreadFactory.setDaemon(true);
+        this.scanSubmissionExecutor = Executors.newFixedThreadPool(Math.max(1, cxProperties.getScanSubmissionConcurrency()), submissionThreadFactory);
+        CustomizableThreadFactory compressionThreadFactory = new CustomizableThreadFactory("cx-source-zip-");
+        compressionThreadFactory.setDaemon(true);
+        this.sourceCompressionExecutor = Executors.newFixedThreadPool(Math.max(1, cxProperties.getSourceCompressionConcurrency()), compressionThreadFactory);
+        this.teamDirectory = new CxTeamDirectory(cxProperties, this::fetchTeams);
+        this.settingsCache = new CxSettingsCache(cxProperties);
+        this.sourceDedup = new CxSourceDedup(cxProperties, sourceCompressionExecutor);
+        this.reportCache = new CxReportCache(cxProperties);
+        this.projectDirectory = new CxProjectDirectory(cxProperties, this::fetchProject, this::fetchProjectId);
+        this.presets = new CxCatalog<>("presets", cxProperties, this::fetchPresets, CxPreset::getName, CxPreset::getId);
+        this.engineConfigurations = new CxCatalog<>("engine configurations", cxProperties, this::fetchScanConfigurations, CxScanEngine::getName, CxScanEngine::getId);
+        this.roles = new CxCatalog<>("roles", cxProperties, this::fetchRoles, CxRole::getName, CxRole::getId);
+        this.ldapServers = new CxCatalog<>("ldap servers", cxProperties, this::fetchLdapServers, Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        scanWatcher.shutdown();
+        scanSubmissionExecutor.shutdownNow();
+        sourceCompressionExecutor.shutdownNow();
+        projectDirectory.shutdown();
     }
 
     /**
@@ -322,16 +392,107 @@ public class CxService implements CxClient{
         }
     }
 
+    /**
+     * Get the Ids of the scans currently in the scan queue (new, queued, scanning, etc)
+     *
+     * @return scan Ids, or null if the queue could not be retrieved
+     */
+    Set<Integer> getScanQueue() {
+        HttpEntity httpEntity = new HttpEntity<>(authClient.createAuthHeaders());
+        log.debug("Retrieving scan queue");
+        try {
+            ResponseEntity<String> response = restTemplate.exchange(cxProperties.getUrl().concat(SCANS_QUEUE), HttpMethod.GET, httpEntity, String.class);
+            JSONArray arr = new JSONArray(response.getBody());
+            Set<Integer> scanIds = new HashSet<>();
+            for (int i = 0; i < arr.length(); i++) {
+                scanIds.add(arr.getJSONObject(i).getInt("id"));
+            }
+            return scanIds;
+        } catch (HttpStatusCodeException e) {
+            log.warn("HTTP Status Code of {} while getting scan queue", e.getStatusCode());
+        } catch (JSONException e) {
+            log.error("Error processing JSON Response");
+            log.error(ExceptionUtils.getStackTrace(e));
+        }
+        return null;
+    }
+
+    /**
+     * Estimate how long a scan will take, based on the duration of the last finished scan of the same project
+     * (or its lines of code if the duration is not available)
+     *
+     * @param scanId
+     * @return estimated duration (ms), or 0 if unknown
+     */
+    long estimateScanDuration(Integer scanId) {
+        try {
+            JSONObject scan = getScanData(scanId.toString());
+            if (!scan.has("project")) {
+                return 0;
+            }
+            Integer projectId = scan.getJSONObject("project").getInt("id");
+            HttpEntity requestEntity = new HttpEntity<>(authClient.createAuthHeaders());
+            ResponseEntity<String> response = restTemplate.exchange(cxProperties.getUrl().concat(SCAN)
+                            .concat("?projectId=").concat(projectId.toString().concat("&scanStatus=")
+                                    .concat(SCAN_STATUS_FINISHED.toString()).concat("&last=1")),
+                    HttpMethod.GET, requestEntity, String.class);
+            JSONArray arr = new JSONArray(response.getBody());
+            if (arr.length() < 1) {
+                return 0;
+            }
+            JSONObject last = arr.getJSONObject(0);
+            JSONObject dateAndTime = last.optJSONObject("dateAndTime");
+            if (dateAndTime != null && !dateAndTime.isNull("startedOn") && !dateAndTime.isNull("finishedOn")) {
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+                LocalDateTime started = LocalDateTime.parse(dateAndTime.getString("startedOn").substring(0, 19), formatter);
+                LocalDateTime finished = LocalDateTime.parse(dateAndTime.getString("finishedOn").substring(0, 19), formatter);
+                return Math.max(0, Duration.between(started, finished).toMillis());
+            }
+            JSONObject scanState = last.optJSONObject("scanState");
+            if (scanState != null) {
+                return scanState.optLong("linesOfCode") * ESTIMATED_MS_PER_LOC;
+            }
+        } catch (HttpStatusCodeException e) {
+            log.debug("HTTP Status Code of {} while estimating duration of scan Id {}", e.getStatusCode(), scanId);
+        } catch (RuntimeException e) {
+            /* connection and parse errors alike leave the estimate unknown, rather than failing the scan */
+            log.debug("Unable to estimate duration of scan Id {}: {}", scanId, ExceptionUtils.getMessage(e));
+        }
+        return 0;
+    }
+
     private void waitForReportCreateOrFail(Integer reportId) throws CheckmarxException, InterruptedException {
-        Thread.sleep(cxProperties.getReportPolling());
-        int timer = 0;
-        while (!getReportStatus(reportId).equals(CxService.REPORT_STATUS_CREATED)) {
-            Thread.sleep(cxProperties.getReportPolling());
-            timer += cxProperties.getReportPolling();
-            if (timer >= cxProperties.getReportTimeout()) {
-                log.error("Report Generation timeout.  {}", cxProperties.getReportTimeout());
-                throw new CheckmarxException("Timeout exceeded during report generation");
+        await(scanWatcher.watchReport(reportId));
+    }
+
+    /**
+     * Generate the XML report of a scan on the server, bypassing the report cache
+     *
+     * @return id of the generated report
+     */
+    private Integer generateReport(Integer scanId) throws CheckmarxException {
+        Integer reportId = createScanReport(scanId);
+        try {
+            waitForReportCreateOrFail(reportId);
+        } catch (InterruptedException e) {
+            log.error(ExceptionUtils.getStackTrace(e));
+            Thread.currentThread().interrupt();
+            throw new CheckmarxException("Interrupted Exception Occurred");
+        }
+        return reportId;
+    }
+
+    /**
+     * Block until a future from the scan watcher completes, unwrapping the CheckmarxException it failed with
+     */
+    private <T> T await(CompletableFuture<T> future) throws CheckmarxException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CheckmarxException) {
+                throw (CheckmarxException) e.getCause();
             }
+            throw new CheckmarxException(ExceptionUtils.getRootCauseMessage(e));
         }
     }
 
@@ -344,16 +505,84 @@ public class CxService implements CxClient{
      * @throws CheckmarxException
      */
     public ScanResults getReportContentByScanId(Integer scanId, List<Filter> filter) throws CheckmarxException{
-        Integer reportId = createScanReport(scanId);
+        return getReportContent(getScanReport(scanId), filter);
+    }
+
+    /**
+     * Get the XML report of a scan from the report cache, or generate it (caching it if the cache is enabled)
+     *
+     * @param scanId
+     * @return
+     * @throws CheckmarxException
+     * @see #scanReport(Integer)
+     */
+    private ReportContent getScanReport(Integer scanId) throws CheckmarxException {
         try {
-            waitForReportCreateOrFail(reportId);
-            Thread.sleep(1000);
+            return await(scanReport(scanId));
         } catch (InterruptedException e) {
             log.error(ExceptionUtils.getStackTrace(e));
             Thread.currentThread().interrupt();
             throw new CheckmarxException("Interrupted Exception Occurred");
         }
-        return getReportContent(reportId, filter);
+    }
+
+    /**
+     * Get the XML report of a scan from the report cache, or generate it (caching it if the cache is enabled).
+     * Concurrent requests for the report of the same scan share a single report generation, and a single download
+     * into the report cache.
+     *
+     * @param scanId
+     * @return future completed with the report, or exceptionally with a CheckmarxException
+     * @see CxReportCache
+     */
+    private CompletableFuture<ReportContent> scanReport(Integer scanId) {
+        return reportFlights.run(scanId, id -> {
+            ReportContent cached = getCachedReport(id);
+            if (cached != null) {
+                log.info("Using cached report of scan Id {}", id);
+                return CompletableFuture.completedFuture(cached);
+            }
+            Integer reportId = createScanReport(id);
+            return scanWatcher.watchReport(reportId).thenApply(status -> {
+                try {
+                    return cacheReport(id, new ServerReport(reportId));
+                } catch (CheckmarxException e) {
+                    throw new CompletionException(e);
+                }
+            });
+        });
+    }
+
+    /**
+     * @return the cached report of the scan, or null if the report cache is disabled or does not have it
+     */
+    private ReportContent getCachedReport(Integer scanId) {
+        if (!reportCache.isEnabled()) {
+            return null;
+        }
+        return reportCache.get(scanId, CxReportCache.XML) == null ? null : new CachedReport(scanId);
+    }
+
+    /**
+     * Download a generated report of a scan into the report cache
+     *
+     * @return the cached report, or the given report if the report cache is disabled or cannot be written
+     */
+    private ReportContent cacheReport(Integer scanId, ReportContent report) throws CheckmarxException {
+        if (!reportCache.isEnabled() || report.isCached()) {
+            return report;
+        }
+        try {
+            reportCache.put(scanId, CxReportCache.XML, report::copyTo);
+            return new CachedReport(scanId);
+        } catch (HttpStatusCodeException e) {
+            log.error("HTTP Status Code of {} while getting downloading report contents of {}", e.getStatusCode(), report);
+            log.error(ExceptionUtils.getStackTrace(e));
+            throw new CheckmarxException("Error while processing scan results for ".concat(report.toString()));
+        } catch (IOException e) {
+            log.warn("Unable to cache {} of scan Id {}: {}", report, scanId, ExceptionUtils.getMessage(e));
+            return report;
+        }
     }
     /**
      * Retrieve the report by reportId, mapped to ScanResults DTO, applying filtering as requested
@@ -365,9 +594,10 @@ public class CxService implements CxClient{
      */
     @Override
     public ScanResults getReportContent(Integer reportId, List<Filter> filter) throws CheckmarxException {
-        HttpHeaders headers = authClient.createAuthHeaders();
-        headers.setContentType(MediaType.APPLICATION_XML);
-        HttpEntity httpEntity = new HttpEntity<>(headers);
+        return getReportContent(new ServerReport(reportId), filter);
+    }
+
+    private ScanResults getReportContent(ReportContent report, List<Filter> filter) throws CheckmarxException {
         String session = null;
         try {
             /* login to legacy SOAP CX Client to retrieve description */
@@ -375,83 +605,40 @@ public class CxService implements CxClient{
         } catch (InvalidCredentialsException e) {
             log.error("Error occurring while logging into Legacy SOAP based WebService - issue description will remain blank");
         }
-        log.info("Retrieving report contents of report Id {} in XML format", reportId);
+        final String legacySession = session;
+        log.info("Retrieving report contents of {} in XML format", report);
         try {
-            ResponseEntity<String> resultsXML = restTemplate.exchange(cxProperties.getUrl().concat(REPORT_DOWNLOAD), HttpMethod.GET, httpEntity, String.class, reportId);
-            String xml = resultsXML.getBody();
-            log.debug("Report length: {}", xml.length());
-            log.debug("Headers: {}", resultsXML.getHeaders().toSingleValueMap().toString());
-            log.info("Report downloaded for report Id {}", reportId);
-            log.trace("XML String Output: {}", xml);
-            log.trace("Base64:", Base64.getEncoder().encodeToString(resultsXML.toString().getBytes()));
-            /*Remove any chars before the start xml tag*/
-            xml = xml.trim().replaceFirst("^([\\W]+)<", "<");
-            log.debug("Report length: {}", xml.length());
-            String xml2 = ScanUtils.cleanStringUTF8_2(xml);
-            log.trace("XML2: {}", xml2);
-            InputStream xmlStream = new ByteArrayInputStream(Objects.requireNonNull(xml2.getBytes()));
-
-            /* protect against XXE */
-            JAXBContext jc = JAXBContext.newInstance(CxXMLResultsType.class);
-            XMLInputFactory xif = XMLInputFactory.newInstance();
-            xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-            xif.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-            xif.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
-            List<ScanResults.XIssue> xIssueList = new ArrayList<>();
-            CxXMLResultsType cxResults;
-            try {
-                XMLStreamReader xsr = xif.createXMLStreamReader(xmlStream);
-                Unmarshaller unmarshaller = jc.createUnmarshaller();
-                cxResults = (CxXMLResultsType) unmarshaller.unmarshal(xsr);
-            }catch (UnmarshalException e){
-                log.warn("Issue occurred performing unmashall step - trying again {}", ExceptionUtils.getMessage(e));
-                if(resultsXML.getBody() != null) {
-                    log.error("Writing raw response from CX to {}", "CX_".concat(String.valueOf(reportId)));
-                    ScanUtils.writeByte("CX_".concat(String.valueOf(reportId)), resultsXML.getBody().getBytes());
-                    xml2 = ScanUtils.cleanStringUTF8(xml);
-                    xmlStream = new ByteArrayInputStream(Objects.requireNonNull(xml2.getBytes()));
-                    XMLStreamReader xsr = xif.createXMLStreamReader(xmlStream);
-                    Unmarshaller unmarshaller = jc.createUnmarshaller();
-                    cxResults = (CxXMLResultsType) unmarshaller.unmarshal(xsr);
-                }
-                else{
-                    log.error("CX Response for report {} was null", reportId);
-                    throw new CheckmarxException("CX report was empty (null)");
-                }
-            }
-
-            ScanResults.ScanResultsBuilder cxScanBuilder = ScanResults.builder();
-            cxScanBuilder.projectId(cxResults.getProjectId());
-            cxScanBuilder.team(cxResults.getTeam());
-            cxScanBuilder.project(cxResults.getProjectName());
-            cxScanBuilder.link(cxResults.getDeepLink());
-            cxScanBuilder.files(cxResults.getFilesScanned());
-            cxScanBuilder.loc(cxResults.getLinesOfCodeScanned());
-            cxScanBuilder.scanType(cxResults.getScanType());
-            Map<String, Integer> summary = getIssues(filter, session, xIssueList, cxResults);
-            cxScanBuilder.xIssues(xIssueList);
-            cxScanBuilder.additionalDetails(getAdditionalScanDetails(cxResults));
-            CxScanSummary scanSummary = getScanSummaryByScanId(Integer.valueOf(cxResults.getScanId()));
-            cxScanBuilder.scanSummary(scanSummary);
-            ScanResults results = cxScanBuilder.build();
-            //Add the summary map (severity, count)
-            results.getAdditionalDetails().put(Constants.SUMMARY_KEY, summary);
+            IssueMapper mapper = null;
+            String xml = null;
+            /* a downloaded report is only buffered in memory if it must be preserved, or if streaming fails */
+            if (!cxProperties.getPreserveXml() || report.isCached()) {
+                mapper = report.stream(xmlStream -> parseIssues(xmlStream, filter, legacySession));
+            }
+            if (mapper == null) {
+                xml = report.read();
+                mapper = readReportContent(report.getId(), xml, xmlStream -> parseIssues(xmlStream, filter, legacySession));
+            }
+            log.info("Report downloaded for {}", report);
+            ScanResults results = getScanResults(mapper);
+            CxScanSummary scanSummary = getScanSummaryByScanId(Integer.valueOf(mapper.getHeader().getScanId()));
+            results.setScanSummary(scanSummary);
             if (cxProperties.getPreserveXml()) {
-                results.setOutput(xml);
+                /* a cached report is read back from disk */
+                results.setOutput(xml == null ? report.read() : xml);
             }
             return results;
         } catch (HttpStatusCodeException e) {
-            log.error("HTTP Status Code of {} while getting downloading report contents of report Id {}", e.getStatusCode(), reportId);
+            log.error("HTTP Status Code of {} while getting downloading report contents of {}", e.getStatusCode(), report);
             log.error(ExceptionUtils.getStackTrace(e));
-            throw new CheckmarxException("Error while processing scan results for report Id ".concat(reportId.toString()));
-        } catch (XMLStreamException | JAXBException e) {
+            throw new CheckmarxException("Error while processing scan results for ".concat(report.toString()));
+        } catch (XMLStreamException | JAXBException | IOException e) {
             log.error("Error with XML report");
             log.error(ExceptionUtils.getStackTrace(e));
-            throw new CheckmarxException("Error while processing scan results for report Id ".concat(reportId.toString()));
+            throw new CheckmarxException("Error while processing scan results for ".concat(report.toString()));
         } catch (NullPointerException e) {
             log.info("Null Error");
             log.error(ExceptionUtils.getStackTrace(e));
-            throw new CheckmarxException("Error while processing scan results for report Id ".concat(reportId.toString()));
+            throw new CheckmarxException("Error while processing scan results for ".concat(report.toString()));
         }
     }
 
@@ -464,63 +651,484 @@ public class CxService implements CxClient{
      */
     @Override
     public CxXMLResultsType getXmlReportContent(Integer reportId) throws CheckmarxException {
-        HttpHeaders headers = authClient.createAuthHeaders();
-        headers.setContentType(MediaType.APPLICATION_XML);
-        HttpEntity httpEntity = new HttpEntity<>(headers);
-        log.info("Retrieving report contents of report Id {} in XML format", reportId);
+        return getXmlReportContent(new ServerReport(reportId));
+    }
+
+    private CxXMLResultsType getXmlReportContent(ReportContent report) throws CheckmarxException {
+        log.info("Retrieving report contents of {} in XML format", report);
         try {
-            ResponseEntity<String> resultsXML = restTemplate.exchange(cxProperties.getUrl().concat(REPORT_DOWNLOAD), HttpMethod.GET, httpEntity, String.class, reportId);
-            String xml = resultsXML.getBody();
-            log.debug("Report length: {}", xml.length());
-            log.debug("Headers: {}", resultsXML.getHeaders().toSingleValueMap().toString());
-            log.info("Report downloaded for report Id {}", reportId);
-            log.debug("XML String Output: {}", xml);
-            log.debug("Base64: {}", Base64.getEncoder().encodeToString(resultsXML.toString().getBytes()));
-            /*Remove any chars before the start xml tag*/
-            xml = xml.trim().replaceFirst("^([\\W]+)<", "<");
-            log.debug("Report length: {}", xml.length());
-            String xml2 = ScanUtils.cleanStringUTF8_2(xml);
-            log.trace("XML2: {}", xml2);
-            InputStream xmlStream = new ByteArrayInputStream(Objects.requireNonNull(xml2.getBytes()));
-
-            /* protect against XXE */
-            JAXBContext jc = JAXBContext.newInstance(CxXMLResultsType.class);
-            XMLInputFactory xif = XMLInputFactory.newInstance();
-            xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-            xif.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-            xif.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
-            try {
-                XMLStreamReader xsr = xif.createXMLStreamReader(xmlStream);
-                Unmarshaller unmarshaller = jc.createUnmarshaller();
-                return (CxXMLResultsType) unmarshaller.unmarshal(xsr);
-            }catch (UnmarshalException e){
-                log.warn("Issue occurred performing unmashall step - trying again {}", ExceptionUtils.getMessage(e));
-                if(resultsXML.getBody() != null) {
-                    log.error("Writing raw response from CX to {}", "CX_".concat(String.valueOf(reportId)));
-                    ScanUtils.writeByte("CX_".concat(String.valueOf(reportId)), resultsXML.getBody().getBytes());
-                    xml2 = ScanUtils.cleanStringUTF8(xml);
-                    xmlStream = new ByteArrayInputStream(Objects.requireNonNull(xml2.getBytes()));
-                    XMLStreamReader xsr = xif.createXMLStreamReader(xmlStream);
-                    Unmarshaller unmarshaller = jc.createUnmarshaller();
-                    return (CxXMLResultsType) unmarshaller.unmarshal(xsr);
-                }
-                else{
-                    log.error("CX Response for report {} was null", reportId);
-                    throw new CheckmarxException("CX report was empty (null)");
-                }
+            CxXMLResultsType cxResults = report.stream(reportParser::unmarshal);
+            if (cxResults == null) {
+                String xml = report.read();
+                cxResults = readReportContent(report.getId(), xml, reportParser::unmarshal);
             }
+            log.info("Report downloaded for {}", report);
+            return cxResults;
         } catch (HttpStatusCodeException e) {
-            log.error("HTTP Status Code of {} while getting downloading report contents of report Id {}", e.getStatusCode(), reportId);
+            log.error("HTTP Status Code of {} while getting downloading report contents of {}", e.getStatusCode(), report);
             log.error(ExceptionUtils.getStackTrace(e));
-            throw new CheckmarxException("Error while processing scan results for report Id ".concat(reportId.toString()));
-        } catch (XMLStreamException | JAXBException e) {
+            throw new CheckmarxException("Error while processing scan results for ".concat(report.toString()));
+        } catch (XMLStreamException | JAXBException | IOException e) {
             log.error("Error with XML report");
             log.error(ExceptionUtils.getStackTrace(e));
-            throw new CheckmarxException("Error while processing scan results for report Id ".concat(reportId.toString()));
+            throw new CheckmarxException("Error while processing scan results for ".concat(report.toString()));
         } catch (NullPointerException e) {
             log.info("Null Error");
             log.error(ExceptionUtils.getStackTrace(e));
-            throw new CheckmarxException("Error while processing scan results for report Id ".concat(reportId.toString()));
+            throw new CheckmarxException("Error while processing scan results for ".concat(report.toString()));
+        }
+    }
+
+    /**
+     * Stream the report by reportId, passing each Query/Result meeting the filter criteria to the visitor
+     * as the report is downloaded.  The report is never held in memory as a whole.
+     *
+     * @param reportId
+     * @param filter
+     * @param visitor
+     * @return the report level attributes (with no Query elements attached)
+     * @throws CheckmarxException
+     */
+    @Override
+    public CxXMLResultsType streamReport(Integer reportId, List<Filter> filter, ResultVisitor visitor) throws CheckmarxException {
+        return streamReport(new ServerReport(reportId), filter, visitor);
+    }
+
+    private CxXMLResultsType streamReport(ReportContent report, List<Filter> filter, ResultVisitor visitor) throws CheckmarxException {
+        log.info("Streaming report contents of {} in XML format", report);
+        try {
+            CxXMLResultsType header = report.stream(
+                    xmlStream -> reportParser.parse(xmlStream, new FilteringHandler(filter, visitor)));
+            if (header == null) {
+                /* results may already have been passed to the visitor, so there is no fallback to the buffered report */
+                throw new CheckmarxException("Error while processing scan results for ".concat(report.toString()));
+            }
+            log.info("Report streamed for {}", report);
+            return header;
+        } catch (HttpStatusCodeException e) {
+            log.error("HTTP Status Code of {} while getting downloading report contents of {}", e.getStatusCode(), report);
+            log.error(ExceptionUtils.getStackTrace(e));
+            throw new CheckmarxException("Error while processing scan results for ".concat(report.toString()));
+        } catch (IOException e) {
+            log.error("Error with XML report");
+            log.error(ExceptionUtils.getStackTrace(e));
+            throw new CheckmarxException("Error while processing scan results for ".concat(report.toString()));
+        }
+    }
+
+    /**
+     * Compare the results of a scan with those of a baseline scan.  The baseline report is streamed into an index of
+     * its results by similarity id + file, then the later report is streamed against the index, so only the new and
+     * resolved results are mapped to issues.  The reports are shared with concurrent requests for them, and read from
+     * the report cache when enabled (see {@link #scanReport(Integer)}).
+     *
+     * @param baselineScanId
+     * @param scanId
+     * @param filter
+     * @return
+     * @throws CheckmarxException
+     */
+    @Override
+    public ScanDiff getScanDiff(Integer baselineScanId, Integer scanId, List<Filter> filter) throws CheckmarxException {
+        log.info("Comparing scan Id {} with baseline scan Id {}", scanId, baselineScanId);
+        /* both reports are generated (or found in the report cache) concurrently */
+        CompletableFuture<ReportContent> baselineReport = scanReport(baselineScanId);
+        CompletableFuture<ReportContent> laterReport = scanReport(scanId);
+        ReportContent report;
+        BaselineIndex baseline = new BaselineIndex();
+        try {
+            streamReport(await(baselineReport), filter, baseline);
+            report = await(laterReport);
+        } catch (InterruptedException e) {
+            log.error(ExceptionUtils.getStackTrace(e));
+            Thread.currentThread().interrupt();
+            throw new CheckmarxException("Interrupted Exception Occurred");
+        }
+
+        String session = null;
+        try {
+            session = authClient.getLegacySession();
+        } catch (InvalidCredentialsException e) {
+            log.error("Error occurring while logging into Legacy SOAP based WebService - issue description will remain blank");
+        }
+        IssueMapper mapper = new IssueMapper(session);
+        DiffVisitor diff = new DiffVisitor(baseline, mapper);
+        streamReport(report, filter, diff);
+        mapper.awaitDescriptions();
+        List<ScanResults.XIssue> recurring = diff.getRecurring();
+        ScanDiff scanDiff = new ScanDiff(mapper.getIssues(), baseline.getResolved(), recurring, recurring.size());
+        log.info("Scan Id {} compared with baseline scan Id {}: {}", scanId, baselineScanId, scanDiff);
+        return scanDiff;
+    }
+
+    /**
+     * Compare the results of a scan with those of a baseline scan on the server (GetCompareScanResults), falling back
+     * to {@link #getScanDiff(Integer, Integer, List)} when the SOAP service is unavailable or a CWE filter is given
+     * (compared results carry no CWE).
+     *
+     * @param baselineScanId
+     * @param scanId
+     * @param filter
+     * @return
+     * @throws CheckmarxException
+     */
+    @Override
+    public ScanDiff compareScans(Integer baselineScanId, Integer scanId, List<Filter> filter) throws CheckmarxException {
+        if (!CxScanCompare.isSupported(filter)) {
+            log.debug("CWE filter cannot be applied to compared results - comparing reports instead");
+            return getScanDiff(baselineScanId, scanId, filter);
+        }
+        log.info("Comparing scan Id {} with baseline scan Id {} on the server", scanId, baselineScanId);
+        List<checkmarx.wsdl.portal.CxWSSingleResultCompareData> results;
+        String session;
+        try {
+            session = authClient.getLegacySession();
+            results = cxLegacyService.getCompareScanResults(session, baselineScanId.longValue(), scanId.longValue());
+        } catch (InvalidCredentialsException | CheckmarxException | WebServiceException e) {
+            log.warn("Unable to compare scans on the server - comparing reports instead: {}", ExceptionUtils.getMessage(e));
+            return getScanDiff(baselineScanId, scanId, filter);
+        }
+        ScanDiff scanDiff = CxScanCompare.toScanDiff(results, filter,
+                (id, pathId) -> descriptionService.getDescription(session, id, pathId));
+        log.info("Scan Id {} compared with baseline scan Id {}: {}", scanId, baselineScanId, scanDiff);
+        return scanDiff;
+    }
+
+    /**
+     * Index of the (filtered) results of a baseline report by similarity id + file, each result being kept as a
+     * minimal issue (no snippet, description or additional details) until it is matched
+     */
+    private static class BaselineIndex implements ResultVisitor {
+        private final Map<String, Deque<ScanResults.XIssue>> results = new LinkedHashMap<>();
+
+        @Override
+        public void visitResult(QueryType q, ResultType r) {
+            results.computeIfAbsent(key(q, r), k -> new ArrayDeque<>()).add(minimalIssue(q, r));
+        }
+
+        /**
+         * @return true if the baseline has an unmatched result with the same key, which is then matched
+         */
+        boolean match(QueryType q, ResultType r) {
+            Deque<ScanResults.XIssue> matches = results.get(key(q, r));
+            return matches != null && matches.poll() != null;
+        }
+
+        /**
+         * @return the unmatched results, merged into an issue per vulnerability + file
+         */
+        List<ScanResults.XIssue> getResolved() {
+            Map<ScanResults.XIssue, ScanResults.XIssue> resolved = new LinkedHashMap<>();
+            for (Deque<ScanResults.XIssue> unmatched : results.values()) {
+                for (ScanResults.XIssue issue : unmatched) {
+                    merge(resolved, issue);
+                }
+            }
+            return new ArrayList<>(resolved.values());
+        }
+
+        /**
+         * @return the result as a minimal issue (no snippet, description or additional details)
+         */
+        static ScanResults.XIssue minimalIssue(QueryType q, ResultType r) {
+            Map<Integer, ScanResults.IssueDetails> details = new HashMap<>();
+            details.put(Integer.parseInt(r.getLine()), new ScanResults.IssueDetails()
+                    .falsePositive(!r.getFalsePositive().equalsIgnoreCase("FALSE")));
+            return ScanResults.XIssue.builder()
+                    .vulnerability(q.getName())
+                    .similarityId(r.getPath() == null ? null : r.getPath().getSimilarityId())
+                    .cwe(q.getCweId())
+                    .language(q.getLanguage())
+                    .severity(r.getSeverity())
+                    .link(r.getDeepLink())
+                    .file(r.getFileName())
+                    .details(details)
+                    .build();
+        }
+
+        /**
+         * Merges an issue into the issue with the same vulnerability + file, if any
+         */
+        static void merge(Map<ScanResults.XIssue, ScanResults.XIssue> issues, ScanResults.XIssue issue) {
+            ScanResults.XIssue existing = issues.putIfAbsent(issue, issue);
+            if (existing != null) {
+                existing.getDetails().putAll(issue.getDetails());
+            }
+        }
+
+        private static String key(QueryType q, ResultType r) {
+            return ScanDiff.key(r.getPath() == null ? null : r.getPath().getSimilarityId(), r.getFileName(), q.getName());
+        }
+    }
+
+    /**
+     * Maps the results of a report that are not in the baseline to issues, keeping the others as minimal recurring
+     * issues merged per vulnerability + file
+     */
+    private static class DiffVisitor implements ResultVisitor {
+        private final BaselineIndex baseline;
+        private final IssueMapper mapper;
+        private final Map<ScanResults.XIssue, ScanResults.XIssue> recurring = new LinkedHashMap<>();
+
+        DiffVisitor(BaselineIndex baseline, IssueMapper mapper) {
+            this.baseline = baseline;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void visitHeader(CxXMLResultsType header) {
+            mapper.visitHeader(header);
+        }
+
+        @Override
+        public void visitQuery(QueryType q) {
+            mapper.visitQuery(q);
+        }
+
+        @Override
+        public void visitResult(QueryType q, ResultType r) {
+            if (baseline.match(q, r)) {
+                BaselineIndex.merge(recurring, BaselineIndex.minimalIssue(q, r));
+            } else {
+                mapper.visitResult(q, r);
+            }
+        }
+
+        List<ScanResults.XIssue> getRecurring() {
+            return new ArrayList<>(recurring.values());
+        }
+    }
+
+    /**
+     * Reads report content from a stream
+     */
+    @FunctionalInterface
+    private interface ReportReader<T> {
+        T read(InputStream xmlStream) throws XMLStreamException, JAXBException;
+    }
+
+    /**
+     * Content of a report, downloaded from the server or read from the report cache
+     */
+    private interface ReportContent {
+        /**
+         * @return the value returned by the reader, or null if the report could not be read as a stream
+         */
+        <T> T stream(ReportReader<T> reader) throws IOException;
+
+        /**
+         * @return report content, with any chars before the start xml tag removed
+         */
+        String read() throws IOException;
+
+        /**
+         * Copy the report content, as is, to the output stream
+         */
+        void copyTo(OutputStream out) throws IOException;
+
+        /**
+         * @return true if the content is read from disk, so reading it again is cheap
+         */
+        boolean isCached();
+
+        /**
+         * @return id the raw content is written under if it cannot be read
+         */
+        String getId();
+    }
+
+    /**
+     * Report generated on the server, downloaded on each read
+     */
+    private class ServerReport implements ReportContent {
+        private final Integer reportId;
+
+        ServerReport(Integer reportId) {
+            this.reportId = reportId;
+        }
+
+        @Override
+        public <T> T stream(ReportReader<T> reader) {
+            return streamReportContent(reportId, reader);
+        }
+
+        @Override
+        public String read() {
+            return downloadReportContent(reportId);
+        }
+
+        @Override
+        public void copyTo(OutputStream out) {
+            downloadReportContent(reportId, out);
+        }
+
+        @Override
+        public boolean isCached() {
+            return false;
+        }
+
+        @Override
+        public String getId() {
+            return String.valueOf(reportId);
+        }
+
+        @Override
+        public String toString() {
+            return "report Id " + reportId;
+        }
+    }
+
+    /**
+     * Report of a scan in the report cache, generated again on the server if it is evicted before it is read
+     */
+    private class CachedReport implements ReportContent {
+        private final Integer scanId;
+        private ReportContent generated;
+
+        CachedReport(Integer scanId) {
+            this.scanId = scanId;
+        }
+
+        @Override
+        public <T> T stream(ReportReader<T> reader) throws IOException {
+            try (InputStream xmlStream = open()) {
+                if (xmlStream == null) {
+                    return generated.stream(reader);
+                }
+                return reader.read(xmlStream);
+            } catch (XMLStreamException | JAXBException e) {
+                log.warn("Issue occurred streaming {} - falling back to buffered report {}", this, ExceptionUtils.getMessage(e));
+                return null;
+            }
+        }
+
+        @Override
+        public String read() throws IOException {
+            try (InputStream xmlStream = open()) {
+                if (xmlStream == null) {
+                    return generated.read();
+                }
+                return StreamUtils.copyToString(xmlStream, UTF_8).trim().replaceFirst("^([\\W]+)<", "<");
+            }
+        }
+
+        @Override
+        public void copyTo(OutputStream out) throws IOException {
+            try (InputStream xmlStream = open()) {
+                if (xmlStream == null) {
+                    generated.copyTo(out);
+                } else {
+                    StreamUtils.copy(xmlStream, out);
+                }
+            }
+        }
+
+        /**
+         * @return content of the cached report, or null once it has been evicted and generated again on the server
+         */
+        private InputStream open() throws IOException {
+            if (generated == null) {
+                InputStream xmlStream = reportCache.open(scanId, CxReportCache.XML);
+                if (xmlStream != null) {
+                    return xmlStream;
+                }
+                log.info("Cached report of scan Id {} was evicted - generating it again", scanId);
+                try {
+                    generated = new ServerReport(generateReport(scanId));
+                } catch (CheckmarxException e) {
+                    throw new IOException("Unable to generate report of scan Id " + scanId, e);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean isCached() {
+            return generated == null;
+        }
+
+        @Override
+        public String getId() {
+            return "scan" + scanId;
+        }
+
+        @Override
+        public String toString() {
+            return "cached report of scan Id " + scanId;
+        }
+    }
+
+    /**
+     * Download the report by reportId, passing the response body directly to the reader without buffering it
+     *
+     * @param reportId
+     * @param reader
+     * @return the value returned by the reader, or null if the report could not be read as a stream
+     */
+    private <T> T streamReportContent(Integer reportId, ReportReader<T> reader) {
+        HttpHeaders headers = authClient.createAuthHeaders();
+        headers.setContentType(MediaType.APPLICATION_XML);
+        headers.setAccept(Collections.singletonList(MediaType.ALL));
+        return restTemplate.execute(cxProperties.getUrl().concat(REPORT_DOWNLOAD), HttpMethod.GET,
+                request -> request.getHeaders().putAll(headers),
+                response -> {
+                    log.debug("Headers: {}", response.getHeaders().toSingleValueMap().toString());
+                    try {
+                        return reader.read(response.getBody());
+                    } catch (XMLStreamException | JAXBException e) {
+                        log.warn("Issue occurred streaming report {} - falling back to buffered report {}", reportId, ExceptionUtils.getMessage(e));
+                        return null;
+                    }
+                }, reportId);
+    }
+
+    /**
+     * Download the report by reportId, copying the response body to the output stream
+     */
+    private void downloadReportContent(Integer reportId, OutputStream out) {
+        HttpHeaders headers = authClient.createAuthHeaders();
+        headers.setContentType(MediaType.APPLICATION_XML);
+        headers.setAccept(Collections.singletonList(MediaType.ALL));
+        restTemplate.execute(cxProperties.getUrl().concat(REPORT_DOWNLOAD), HttpMethod.GET,
+                request -> request.getHeaders().putAll(headers),
+                response -> {
+                    log.debug("Headers: {}", response.getHeaders().toSingleValueMap().toString());
+                    return StreamUtils.copy(response.getBody(), out);
+                }, reportId);
+    }
+
+    /**
+     * Download the report by reportId as a String
+     *
+     * @param reportId
+     * @return report content, with any chars before the start xml tag removed
+     */
+    private String downloadReportContent(Integer reportId) {
+        HttpHeaders headers = authClient.createAuthHeaders();
+        headers.setContentType(MediaType.APPLICATION_XML);
+        HttpEntity httpEntity = new HttpEntity<>(headers);
+        ResponseEntity<String> resultsXML = restTemplate.exchange(cxProperties.getUrl().concat(REPORT_DOWNLOAD), HttpMethod.GET, httpEntity, String.class, reportId);
+        String xml = resultsXML.getBody();
+        log.debug("Report length: {}", xml.length());
+        log.debug("Headers: {}", resultsXML.getHeaders().toSingleValueMap().toString());
+        log.trace("XML String Output: {}", xml);
+        /*Remove any chars before the start xml tag*/
+        xml = xml.trim().replaceFirst("^([\\W]+)<", "<");
+        log.debug("Report length: {}", xml.length());
+        return xml;
+    }
+
+    /**
+     * Read the report content that was downloaded as a String, retrying with a different UTF-8 clean up if unmarshalling fails
+     */
+    private <T> T readReportContent(String reportId, String xml, ReportReader<T> reader) throws XMLStreamException, JAXBException {
+        try {
+            return reader.read(new ByteArrayInputStream(ScanUtils.cleanStringUTF8_2(xml).getBytes(UTF_8)));
+        } catch (UnmarshalException e) {
+            log.warn("Issue occurred performing unmashall step - trying again {}", ExceptionUtils.getMessage(e));
+            log.error("Writing raw response from CX to {}", "CX_".concat(String.valueOf(reportId)));
+            ScanUtils.writeByte("CX_".concat(String.valueOf(reportId)), xml.getBytes());
+            return reader.read(new ByteArrayInputStream(ScanUtils.cleanStringUTF8(xml).getBytes(UTF_8)));
         }
     }
 
@@ -596,38 +1204,17 @@ public class CxService implements CxClient{
         } catch (InvalidCredentialsException e) {
             log.error("Error occurring while logging into Legacy SOAP based WebService - issue description will remain blank");
         }
-        try {
-
-            /* protect against XXE */
-            JAXBContext jc = JAXBContext.newInstance(CxXMLResultsType.class);
-            XMLInputFactory xif = XMLInputFactory.newInstance();
-            xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-            xif.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-            xif.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
-            Unmarshaller unmarshaller = jc.createUnmarshaller();
-
-            List<ScanResults.XIssue> issueList = new ArrayList<>();
-            CxXMLResultsType cxResults = (CxXMLResultsType) unmarshaller.unmarshal(file);
-            ScanResults.ScanResultsBuilder cxScanBuilder = ScanResults.builder();
-            cxScanBuilder.projectId(cxResults.getProjectId());
-            cxScanBuilder.team(cxResults.getTeam());
-            cxScanBuilder.project(cxResults.getProjectName());
-            cxScanBuilder.link(cxResults.getDeepLink());
-            cxScanBuilder.files(cxResults.getFilesScanned());
-            cxScanBuilder.loc(cxResults.getLinesOfCodeScanned());
-            cxScanBuilder.scanType(cxResults.getScanType());
-            Map<String, Integer> summary = getIssues(filter, session, issueList, cxResults);
-            cxScanBuilder.xIssues(issueList);
-            cxScanBuilder.additionalDetails(getAdditionalScanDetails(cxResults));
-            ScanResults results = cxScanBuilder.build();
-            if (!cxProperties.getOffline() && !ScanUtils.empty(cxResults.getScanId())) {
-                CxScanSummary scanSummary = getScanSummaryByScanId(Integer.valueOf(cxResults.getScanId()));
+        try (InputStream xmlStream = new BufferedInputStream(new FileInputStream(file))) {
+            IssueMapper mapper = parseIssues(xmlStream, filter, session);
+            ScanResults results = getScanResults(mapper);
+            String scanId = mapper.getHeader().getScanId();
+            if (!cxProperties.getOffline() && !ScanUtils.empty(scanId)) {
+                CxScanSummary scanSummary = getScanSummaryByScanId(Integer.valueOf(scanId));
                 results.setScanSummary(scanSummary);
             }
-            results.getAdditionalDetails().put(Constants.SUMMARY_KEY, summary);
             return results;
 
-        } catch (JAXBException e) {
+        } catch (IOException | XMLStreamException | JAXBException e) {
             log.error("Error with XML report");
             log.error(ExceptionUtils.getStackTrace(e));
             throw new CheckmarxException("Error while processing scan results");
@@ -649,13 +1236,13 @@ public class CxService implements CxClient{
         if (vulnsFile == null || libsFile == null) {
             throw new CheckmarxException("Files not provided for processing of OSA results");
         }
-        try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            List<ScanResults.XIssue> issueList = new ArrayList<>();
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (JsonParser vulnsParser = objectMapper.getFactory().createParser(vulnsFile)) {
+            /* issues keyed by library name (vulnerability is always OSA_VULN), in order of first occurrence */
+            Map<String, ScanResults.XIssue> issueMap = new LinkedHashMap<>();
+            Map<String, List<String>> cveMap = new HashMap<>();
 
             //convert json string to object
-            List<CxOsa> osaVulns = objectMapper.readValue(vulnsFile, new TypeReference<List<CxOsa>>() {
-            });
             List<CxOsaLib> osaLibs = objectMapper.readValue(libsFile, new TypeReference<List<CxOsaLib>>() {
             });
             Map<String, CxOsaLib> libsMap = getOsaLibsMap(osaLibs);
@@ -665,18 +1252,17 @@ public class CxService implements CxClient{
                     "HIGH", 3
             );
 
-            for (CxOsa o : osaVulns) {
+            /* vulnerabilities are read one at a time rather than binding the whole list */
+            if (vulnsParser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(vulnsParser, "Expected an array of OSA vulnerabilities");
+            }
+            while (vulnsParser.nextToken() == JsonToken.START_OBJECT) {
+                CxOsa o = objectMapper.readValue(vulnsParser, CxOsa.class);
 
                 if (filterOsa(filter, o) && libsMap.containsKey(o.getLibraryId())) {
                     CxOsaLib lib = libsMap.get(o.getLibraryId());
                     String filename = lib.getName();
 
-                    ScanResults.XIssue issue = ScanResults.XIssue.builder()
-                            .file(filename)
-                            .vulnerability(OSA_VULN)
-                            .severity(o.getSeverity().getName())
-                            .cve(o.getCveName())
-                            .build();
                     ScanResults.OsaDetails details = ScanResults.OsaDetails.builder()
                             .severity(o.getSeverity().getName())
                             .cve(o.getCveName())
@@ -685,24 +1271,38 @@ public class CxService implements CxClient{
                             .url(o.getUrl())
                             .version(lib.getVersion())
                             .build();
+                    ScanResults.XIssue issue = issueMap.get(filename);
                     //update
-                    if (issueList.contains(issue)) {
-                        issue = issueList.get(issueList.indexOf(issue));
+                    if (issue != null) {
                         //bump up the severity if required
                         if (severityMap.get(issue.getSeverity().toUpperCase(Locale.ROOT)) < severityMap.get(o.getSeverity().getName().toUpperCase(Locale.ROOT))) {
                             issue.setSeverity(o.getSeverity().getName());
                         }
-                        issue.setCve(issue.getCve().concat(",").concat(o.getCveName()));
                         issue.getOsaDetails().add(details);
                     } else {//new
+                        issue = ScanResults.XIssue.builder()
+                                .file(filename)
+                                .vulnerability(OSA_VULN)
+                                .severity(o.getSeverity().getName())
+                                .build();
                         List<ScanResults.OsaDetails> dList = new ArrayList<>();
                         dList.add(details);
                         issue.setOsaDetails(dList);
-                        issueList.add(issue);
+                        issueMap.put(filename, issue);
                     }
+                    cveMap.computeIfAbsent(filename, k -> new ArrayList<>()).add(o.getCveName());
                 }
             }
 
+            /* CVEs of each library are joined once, in the order they were reported */
+            List<ScanResults.XIssue> issueList = new ArrayList<>(issueMap.size());
+            for (Map.Entry<String, ScanResults.XIssue> entry : issueMap.entrySet()) {
+                ScanResults.XIssue issue = entry.getValue();
+                List<String> cves = cveMap.get(entry.getKey());
+                issue.setCve(cves.size() == 1 ? cves.get(0) : String.join(",", cves));
+                issueList.add(issue);
+            }
+
             return ScanResults.builder()
                     .osa(true)
                     .xIssues(issueList)
@@ -758,121 +1358,255 @@ public class CxService implements CxClient{
 
 
     /**
+     * Parse the report content, mapping each Query/Result to XIssues as it is read
+     *
+     * @param xmlStream report content
      * @param filter
-     * @param session
-     * @param cxIssueList
-     * @param cxResults
+     * @param session legacy session used to retrieve the issue description (may be null)
+     * @return the mapper holding the report attributes, issues and summary
      */
-    private Map<String, Integer> getIssues(List<Filter> filter, String session, List<ScanResults.XIssue> cxIssueList, CxXMLResultsType cxResults) {
-        Map<String, Integer> summary = new HashMap<>();
-        for (QueryType q : cxResults.getQuery()) {
+    private IssueMapper parseIssues(InputStream xmlStream, List<Filter> filter, String session) throws XMLStreamException, JAXBException {
+        IssueMapper mapper = new IssueMapper(session);
+        reportParser.parse(xmlStream, new FilteringHandler(filter, mapper));
+        mapper.awaitDescriptions();
+        return mapper;
+    }
+
+    /**
+     * Create the ScanResults DTO based on the mapped report
+     *
+     * @param mapper
+     * @return
+     */
+    private ScanResults getScanResults(IssueMapper mapper) {
+        CxXMLResultsType cxResults = mapper.getHeader();
+        ScanResults.ScanResultsBuilder cxScanBuilder = ScanResults.builder();
+        cxScanBuilder.projectId(cxResults.getProjectId());
+        cxScanBuilder.team(cxResults.getTeam());
+        cxScanBuilder.project(cxResults.getProjectName());
+        cxScanBuilder.link(cxResults.getDeepLink());
+        cxScanBuilder.files(cxResults.getFilesScanned());
+        cxScanBuilder.loc(cxResults.getLinesOfCodeScanned());
+        cxScanBuilder.scanType(cxResults.getScanType());
+        cxScanBuilder.xIssues(mapper.getIssues());
+        cxScanBuilder.additionalDetails(getAdditionalScanDetails(cxResults));
+        ScanResults results = cxScanBuilder.build();
+        //Add the summary map (severity, count)
+        results.getAdditionalDetails().put(Constants.SUMMARY_KEY, mapper.getSummary());
+        return results;
+    }
+
+    /**
+     * Passes the Query/Result elements of a report meeting the filter criteria to a ResultVisitor
+     */
+    private class FilteringHandler implements CxReportParser.Handler {
+        private final List<Filter> filter;
+        private final ResultVisitor visitor;
+
+        FilteringHandler(List<Filter> filter, ResultVisitor visitor) {
+            this.filter = filter;
+            this.visitor = visitor;
+        }
+
+        @Override
+        public void onHeader(CxXMLResultsType header) {
+            visitor.visitHeader(header);
+        }
+
+        @Override
+        public boolean onQuery(QueryType q) {
             if (checkFilter(q, filter)) {
-                ScanResults.XIssue.XIssueBuilder xIssueBuilder = ScanResults.XIssue.builder();
-                /*Top node of each issue*/
-                for (ResultType r : q.getResult()) {
-                    if (checkFilter(r, filter)) {
-                        boolean falsePositive = false;
-                        if(!r.getFalsePositive().equalsIgnoreCase("FALSE")){
-                            falsePositive = true;
-                        }
-                        /*Map issue details*/
-                        xIssueBuilder.cwe(q.getCweId());
-                        xIssueBuilder.language(q.getLanguage());
-                        xIssueBuilder.severity(q.getSeverity());
-                        xIssueBuilder.vulnerability(q.getName());
-                        xIssueBuilder.file(r.getFileName());
-                        xIssueBuilder.severity(r.getSeverity());
-                        xIssueBuilder.link(r.getDeepLink());
-
-                        // Add additional details
-                        Map<String, Object> additionalDetails = getAdditionalIssueDetails(q, r);
-                        xIssueBuilder.additionalDetails(additionalDetails);
-
-                        Map<Integer, ScanResults.IssueDetails> details = new HashMap<>();
-                        try {
-                            /* Call the CX SOAP Service to get Issue Description*/
-                            if (session != null) {
-                                try {
-                                    xIssueBuilder.description(this.getIssueDescription(session, Long.parseLong(cxResults.getScanId()), Long.parseLong(r.getPath().getPathId())));
-                                } catch (HttpStatusCodeException e) {
-                                    xIssueBuilder.description("");
-                                }
-                            } else {
-                                xIssueBuilder.description("");
-                            }
-                            String snippet = r.getPath().getPathNode().get(0).getSnippet().getLine().getCode();
-                            snippet = StringUtils.truncate(snippet, cxProperties.getCodeSnippetLength());
-                            ScanResults.IssueDetails issueDetails = new ScanResults.IssueDetails()
-                                    .codeSnippet(snippet)
-                                    .comment(r.getRemark())
-                                    .falsePositive(falsePositive);
-                            details.put(Integer.parseInt(r.getPath().getPathNode().get(0).getLine()),
-                                    issueDetails);
-                            xIssueBuilder.similarityId(r.getPath().getSimilarityId());
-                        } catch (NullPointerException e) {
-                            log.warn("Problem grabbing snippet.  Snippet may not exist for finding for Node ID");
-                            /*Defaulting to initial line number with no snippet*/
-                            ScanResults.IssueDetails issueDetails = new ScanResults.IssueDetails()
-                                    .codeSnippet(null)
-                                    .comment(r.getRemark())
-                                    .falsePositive(falsePositive);
-                            details.put(Integer.parseInt(r.getLine()), issueDetails);
-                        }
-                        xIssueBuilder.details(details);
-                        ScanResults.XIssue issue = xIssueBuilder.build();
-                        checkForDuplicateIssue(cxIssueList, r, details, falsePositive, issue, summary);
-                    }
+                visitor.visitQuery(q);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void onResult(QueryType q, ResultType r) {
+            if (checkFilter(r, filter)) {
+                visitor.visitResult(q, r);
+            }
+        }
+
+        @Override
+        public void onQueryEnd(QueryType q) {
+            visitor.visitQueryEnd(q);
+        }
+    }
+
+    /**
+     * Maps each (filtered) Query/Result of a report to XIssues as they are streamed from the report
+     */
+    private class IssueMapper implements ResultVisitor {
+        private final String session;
+        private final List<ScanResults.XIssue> issues = new ArrayList<>();
+        /* index of the issues list by vulnerability + filename (XIssue equality) */
+        private final Map<ScanResults.XIssue, ScanResults.XIssue> issueIndex = new HashMap<>();
+        private final Map<String, Integer> summary = new HashMap<>();
+        /* descriptions being retrieved in the background, for issues that were not merged into an existing issue */
+        private final Map<ScanResults.XIssue, CompletableFuture<String>> descriptions = new LinkedHashMap<>();
+        private CxXMLResultsType header;
+        private ScanResults.XIssue.XIssueBuilder xIssueBuilder;
+        private CompletableFuture<String> queryDescription;
+        private final CxStringPool pool = new CxStringPool(cxProperties.getGlobalStringPool() ? stringInterner : null);
+        /* recommended fix link of the current query, built once for all of its results */
+        private String recommendedFix;
+
+        IssueMapper(String session) {
+            this.session = session;
+        }
+
+        @Override
+        public void visitHeader(CxXMLResultsType header) {
+            this.header = header;
+        }
+
+        @Override
+        public void visitQuery(QueryType q) {
+            xIssueBuilder = ScanResults.XIssue.builder();
+            recommendedFix = null;
+            /* the query description is shared by all issues of the query, so it is retrieved once */
+            if (session != null && cxProperties.getDescriptionByQuery()) {
+                queryDescription = descriptionService.getQueryDescription(session, Integer.valueOf(q.getId()), q.getQueryVersionCode());
+            }
+        }
+
+        @Override
+        public void visitResult(QueryType q, ResultType r) {
+            mapResult(q, r);
+        }
+
+        CxXMLResultsType getHeader() {
+            return header;
+        }
+
+        List<ScanResults.XIssue> getIssues() {
+            return issues;
+        }
+
+        Map<String, Integer> getSummary() {
+            return summary;
+        }
+
+        /**
+         * Wait for the background description lookups to complete, setting the description of each issue
+         */
+        void awaitDescriptions() {
+            for (Map.Entry<ScanResults.XIssue, CompletableFuture<String>> entry : descriptions.entrySet()) {
+                entry.getKey().setDescription(entry.getValue().join());
+            }
+            descriptions.clear();
+            if (session != null && cxProperties.getDescriptionByQuery()) {
+                descriptionService.saveQueryDescriptions();
+            }
+        }
+
+        private void mapResult(QueryType q, ResultType r) {
+            boolean falsePositive = false;
+            if(!r.getFalsePositive().equalsIgnoreCase("FALSE")){
+                falsePositive = true;
+            }
+            /*Map issue details*/
+            xIssueBuilder.cwe(pool.get(q.getCweId()));
+            xIssueBuilder.language(pool.get(q.getLanguage()));
+            xIssueBuilder.severity(pool.get(q.getSeverity()));
+            xIssueBuilder.vulnerability(pool.get(q.getName()));
+            xIssueBuilder.file(pool.get(r.getFileName()));
+            xIssueBuilder.severity(pool.get(r.getSeverity()));
+            xIssueBuilder.link(r.getDeepLink());
+
+            // Add additional details
+            if (recommendedFix == null) {
+                recommendedFix = pool.get(getRecommendedFix(q, r));
+            }
+            AdditionalIssueDetails additionalDetails = getAdditionalIssueDetails(q, r, recommendedFix, pool);
+            xIssueBuilder.additionalDetails(additionalDetails);
+
+            Map<Integer, ScanResults.IssueDetails> details = new HashMap<>();
+            /* Issue Description is retrieved from the CX SOAP Service in the background, once the issue is known to be new */
+            xIssueBuilder.description("");
+            try {
+                String snippet = r.getPath().getPathNode().get(0).getSnippet().getLine().getCode();
+                snippet = StringUtils.truncate(snippet, cxProperties.getCodeSnippetLength());
+                ScanResults.IssueDetails issueDetails = new ScanResults.IssueDetails()
+                        .codeSnippet(snippet)
+                        .comment(r.getRemark())
+                        .falsePositive(falsePositive);
+                details.put(Integer.parseInt(r.getPath().getPathNode().get(0).getLine()),
+                        issueDetails);
+                xIssueBuilder.similarityId(r.getPath().getSimilarityId());
+            } catch (NullPointerException e) {
+                log.warn("Problem grabbing snippet.  Snippet may not exist for finding for Node ID");
+                /*Defaulting to initial line number with no snippet*/
+                ScanResults.IssueDetails issueDetails = new ScanResults.IssueDetails()
+                        .codeSnippet(null)
+                        .comment(r.getRemark())
+                        .falsePositive(falsePositive);
+                details.put(Integer.parseInt(r.getLine()), issueDetails);
+            }
+            xIssueBuilder.details(details);
+            ScanResults.XIssue issue = xIssueBuilder.build();
+            checkForDuplicateIssue(issues, issueIndex, r, details, falsePositive, issue, summary);
+            /* Only the description of the first result for a vuln+filename is kept */
+            if (session != null && issueIndex.get(issue) == issue) {
+                if (cxProperties.getDescriptionByQuery()) {
+                    descriptions.put(issue, queryDescription);
+                } else if (r.getPath() != null) {
+                    descriptions.put(issue, descriptionService.getDescription(session,
+                            Long.parseLong(header.getScanId()), Long.parseLong(r.getPath().getPathId())));
                 }
             }
         }
-        return summary;
     }
 
-    private Map<String, Object> getAdditionalIssueDetails(QueryType q, ResultType r) {
-        Map<String, Object> additionalDetails = new HashMap<String, Object>();
-        additionalDetails.put("categories", q.getCategories());
-        String descUrl = ScanUtils.getHostWithProtocol(r.getDeepLink()) +
+    /**
+     * @return link to the description of the query of a result, which is the same for all results of the query
+     */
+    private String getRecommendedFix(QueryType q, ResultType r) {
+        return ScanUtils.getHostWithProtocol(r.getDeepLink()) +
                 "/CxWebClient/ScanQueryDescription.aspx?queryID=" + q.getId() +
                 "&queryVersionCode=" + q.getQueryVersionCode() +
                 "&queryTitle=" + q.getName();
-        additionalDetails.put("recommendedFix", descUrl);
+    }
 
-        List<Map<String, Object>> results = new ArrayList<Map<String, Object>>();
+    /**
+     * @param recommendedFix link to the description of the query
+     * @param pool canonical instances of the strings of the report
+     * @return the additional details, which are only built into the legacy map when it is first used
+     */
+    private AdditionalIssueDetails getAdditionalIssueDetails(QueryType q, ResultType r, String recommendedFix, CxStringPool pool) {
         // Source / Sink data
-        Map<String, Object> result = new HashMap<String, Object>();
-        result.put("state", r.getState());
+        AdditionalIssueDetails.SourceSink source = null;
+        AdditionalIssueDetails.SourceSink sink = null;
         PathType path = r.getPath();
         if (path != null) {
             List<PathNodeType> nodes = path.getPathNode();
             if (!nodes.isEmpty()) {
-                result.put("source", getNodeData(nodes, 0));
-                result.put("sink", getNodeData(nodes, nodes.size() - 1)); // Last node in dataFlow
+                source = getNodeData(nodes, 0, pool);
+                sink = getNodeData(nodes, nodes.size() - 1, pool); // Last node in dataFlow
             } else {
                 log.debug(String.format("Result %s%s did not have node paths to process.", q.getName(), r.getNodeId()));
             }
         }
-        results.add(result);
-        additionalDetails.put("results", results);
-        return additionalDetails;
+        AdditionalIssueDetails.ResultState result = new AdditionalIssueDetails.ResultState(pool.get(r.getState()), source, sink);
+        return new AdditionalIssueDetails(pool.get(q.getCategories()), recommendedFix, Collections.singletonList(result));
     }
 
     /**
-     * Creates a {@link Map} of data values - file, line, column and object,
+     * Creates the data values - file, line, column and object,
      * based on the node index in the given dataflow path.
      *
      * @param nodes List of nodes representing the data flow from source to sink
      * @param nodeIndex index of node to fetch data from
-     * @return  Map of data values - specifically file, line, column and object.
+     * @param pool canonical instances of the strings of the report
+     * @return  data values - specifically file, line, column and object.
      */
-    private Map<String, String> getNodeData(List<PathNodeType> nodes, int nodeIndex) {
+    private AdditionalIssueDetails.SourceSink getNodeData(List<PathNodeType> nodes, int nodeIndex, CxStringPool pool) {
         // Node data: file/line/object
-        Map<String, String> nodeData = new HashMap<>();
         PathNodeType node = nodes.get(nodeIndex);
-        nodeData.put("file", node.getFileName());
-        nodeData.put("line", node.getLine());
-        nodeData.put("column", node.getColumn());
-        nodeData.put("object", node.getName());
-        return nodeData;
+        return new AdditionalIssueDetails.SourceSink(pool.get(node.getFileName()), pool.get(node.getLine()),
+                pool.get(node.getColumn()), pool.get(node.getName()));
     }
 
 
@@ -934,11 +1668,18 @@ public class CxService implements CxClient{
         return status.isEmpty() || status.contains(Integer.parseInt(r.getState()));
     }
 
-    private void checkForDuplicateIssue(List<ScanResults.XIssue> cxIssueList, ResultType r, Map<Integer, ScanResults.IssueDetails> details,
+    /**
+     * Merge the issue into an existing issue of the same vulnerability + filename, or add it to the list
+     *
+     * @param cxIssueList issues in report order
+     * @param cxIssueIndex the same issues, keyed by themselves for constant time lookup of an existing issue
+     */
+    private void checkForDuplicateIssue(List<ScanResults.XIssue> cxIssueList, Map<ScanResults.XIssue, ScanResults.XIssue> cxIssueIndex,
+                                        ResultType r, Map<Integer, ScanResults.IssueDetails> details,
                                         boolean falsePositive, ScanResults.XIssue issue, Map<String, Integer> summary) {
-        if (cxIssueList.contains(issue)) {
-            /*Get existing issue of same vuln+filename*/
-            ScanResults.XIssue existingIssue = cxIssueList.get(cxIssueList.indexOf(issue));
+        /*Get existing issue of same vuln+filename*/
+        ScanResults.XIssue existingIssue = cxIssueIndex.get(issue);
+        if (existingIssue != null) {
             /*If no reference exists for this particular line, append it to the details (line+snippet)*/
             if (!existingIssue.getDetails().containsKey(Integer.parseInt(r.getLine()))) {
                 if(falsePositive) {
@@ -967,8 +1708,13 @@ public class CxService implements CxClient{
                 }
             }
             // Copy additionalData.results from issue to existingIssue
-            List<Map<String, Object>> results = (List<Map<String, Object>>) existingIssue.getAdditionalDetails().get("results");
-            results.addAll((List<Map<String, Object>>)issue.getAdditionalDetails().get("results"));
+            if (existingIssue.getAdditionalDetails() instanceof AdditionalIssueDetails
+                    && issue.getAdditionalDetails() instanceof AdditionalIssueDetails) {
+                ((AdditionalIssueDetails) existingIssue.getAdditionalDetails()).merge((AdditionalIssueDetails) issue.getAdditionalDetails());
+            } else {
+                List<Map<String, Object>> results = (List<Map<String, Object>>) existingIssue.getAdditionalDetails().get("results");
+                results.addAll((List<Map<String, Object>>) issue.getAdditionalDetails().get("results"));
+            }
 
         } else {
             if(falsePositive) {
@@ -983,13 +1729,10 @@ public class CxService implements CxClient{
                 summary.put(r.getSeverity(), x);
             }
             cxIssueList.add(issue);
+            cxIssueIndex.put(issue, issue);
         }
     }
 
-    private String getIssueDescription(String session, Long scanId, Long pathId) {
-        return cxLegacyService.getDescription(session, scanId, pathId);
-    }
-
     /**
      * Creates a CX Project.
      * <p>
@@ -1008,6 +1751,7 @@ public class CxService implements CxClient{
             String response = restTemplate.postForObject(cxProperties.getUrl().concat(PROJECTS), requestEntity, String.class);
             JSONObject obj = new JSONObject(response);
             String id = obj.get("id").toString();
+            projectDirectory.put(CxProject.builder().id(Integer.parseInt(id)).teamId(ownerId).name(name).build());
             return Integer.parseInt(id);
         } catch (HttpStatusCodeException e) {
             log.error("HTTP error code {} while creating project with name {} under owner id {}", e.getStatusCode(), name, ownerId);
@@ -1026,6 +1770,8 @@ public class CxService implements CxClient{
         log.info("Deleting Project id {}", projectId);
         try {
             restTemplate.exchange(cxProperties.getUrl().concat(PROJECT), HttpMethod.DELETE, requestEntity, String.class, projectId);
+            projectDirectory.remove(projectId);
+            settingsCache.forget(projectId);
         } catch (HttpStatusCodeException e) {
             log.error("HTTP error code {} while deleting project with id {}", e.getStatusCode(), projectId);
             log.error(ExceptionUtils.getStackTrace(e));
@@ -1042,7 +1788,9 @@ public class CxService implements CxClient{
         try {
             ResponseEntity<CxProject[]> projects = restTemplate.exchange(cxProperties.getUrl().concat(PROJECTS), HttpMethod.GET, httpEntity, CxProject[].class);
             if(projects.getBody() != null){
-                return Arrays.asList(projects.getBody());
+                List<CxProject> projectList = Arrays.asList(projects.getBody());
+                projectDirectory.putAll(projectList);
+                return projectList;
             }
             return Collections.emptyList();
         } catch (HttpStatusCodeException e) {
@@ -1053,7 +1801,7 @@ public class CxService implements CxClient{
     }
 
     /**
-     * Get All Projects in Checkmarx
+     * Get All Projects owned by a team in Checkmarx
      *
      * @return
      */
@@ -1061,7 +1809,7 @@ public class CxService implements CxClient{
         HttpEntity httpEntity = new HttpEntity<>(authClient.createAuthHeaders());
         List<CxProject> teamProjects = new ArrayList<>();
         try {
-            ResponseEntity<CxProject[]> projects = restTemplate.exchange(cxProperties.getUrl().concat(PROJECTS), HttpMethod.GET, httpEntity, CxProject[].class);
+            ResponseEntity<CxProject[]> projects = restTemplate.exchange(cxProperties.getUrl().concat(PROJECTS_BY_TEAM), HttpMethod.GET, httpEntity, CxProject[].class, teamId);
 
             if (projects.getBody() != null) {
                 for (CxProject p : projects.getBody()) {
@@ -1070,6 +1818,7 @@ public class CxService implements CxClient{
                     }
                 }
             }
+            projectDirectory.putAll(teamProjects);
             return teamProjects;
         } catch (HttpStatusCodeException e) {
             log.warn("Error occurred while retrieving projects, http error {}", e.getStatusCode());
@@ -1079,13 +1828,23 @@ public class CxService implements CxClient{
     }
 
     public Integer getProjectId(String ownerId, String name) {
+        Integer projectId = projectDirectory.getProjectId(ownerId, name);
+        return projectId == null ? UNKNOWN_INT : projectId;
+    }
+
+    /**
+     * Retrieve the project id from the server
+     *
+     * @return the project id, or null if not found
+     */
+    private Integer fetchProjectId(String ownerId, String name) {
         HttpEntity httpEntity = new HttpEntity<>(authClient.createAuthHeaders());
         try {
             ResponseEntity<String> projects = restTemplate.exchange(cxProperties.getUrl().concat(PROJECTS)
                     .concat("?projectName=").concat(name).concat("&teamId=").concat(ownerId), HttpMethod.GET, httpEntity, String.class);
             JSONArray arr = new JSONArray(projects.getBody());
             if (arr.length() > 1) {
-                return UNKNOWN_INT;
+                return null;
             }
             JSONObject obj = arr.getJSONObject(0);
             return obj.getInt("id");
@@ -1098,7 +1857,7 @@ public class CxService implements CxClient{
             log.error("Error processing JSON Response");
             log.error(ExceptionUtils.getStackTrace(e));
         }
-        return UNKNOWN_INT;
+        return null;
     }
 
     /**
@@ -1107,6 +1866,15 @@ public class CxService implements CxClient{
      * @return
      */
     public CxProject getProject(Integer projectId) {
+        return projectDirectory.getProject(projectId);
+    }
+
+    /**
+     * Retrieve the project from the server
+     *
+     * @return the project, or null if not found
+     */
+    private CxProject fetchProject(Integer projectId) {
         HttpEntity httpEntity = new HttpEntity<>(authClient.createAuthHeaders());
         try {
             ResponseEntity<CxProject> project = restTemplate.exchange(cxProperties.getUrl().concat(PROJECT), HttpMethod.GET, httpEntity, CxProject.class, projectId);
@@ -1171,6 +1939,12 @@ public class CxService implements CxClient{
                 .engineConfigurationId(engineConfigId)
                 .presetId(presetId)
                 .build();
+        String settings = presetId + "," + engineConfigId;
+        Integer settingsId = settingsCache.getResult(projectId, CxSettingsCache.SCAN_SETTINGS);
+        if (settingsId != null && settingsCache.isApplied(projectId, CxSettingsCache.SCAN_SETTINGS, settings)) {
+            log.info("ScanSettings for project Id {} are unchanged", projectId);
+            return settingsId;
+        }
         HttpEntity<CxScanSettings> requestEntity = new HttpEntity<>(scanSettings, authClient.createAuthHeaders());
 
         log.info("Creating ScanSettings for project Id {}", projectId);
@@ -1178,10 +1952,12 @@ public class CxService implements CxClient{
             String response = restTemplate.postForObject(cxProperties.getUrl().concat(SCAN_SETTINGS), requestEntity, String.class);
             JSONObject obj = new JSONObject(response);
             String id = obj.get("id").toString();
+            settingsCache.applied(projectId, CxSettingsCache.SCAN_SETTINGS, settings, Integer.parseInt(id));
             return Integer.parseInt(id);
         } catch (HttpStatusCodeException e) {
             log.error("Error occurred while creating ScanSettings for project {}, http error {}", projectId, e.getStatusCode());
             log.error(ExceptionUtils.getStackTrace(e));
+            forgetProject(projectId, e);
         } catch (JSONException e) {
             log.error("Error processing JSON Response");
             log.error(ExceptionUtils.getStackTrace(e));
@@ -1265,13 +2041,20 @@ public class CxService implements CxClient{
                 .build();
         log.debug("branch {}", branch);
         log.debug("project {}", projectId);
+        String settings = gitUrl + "\n" + branch;
+        if (settingsCache.isApplied(projectId, CxSettingsCache.GIT_SETTINGS, settings)) {
+            log.info("Source details for project Id {} are unchanged", projectId);
+            return;
+        }
         HttpEntity<CxProjectSource> requestEntity = new HttpEntity<>(projectSource, authClient.createAuthHeaders());
 
         try {
             log.info("Updating Source details for project Id {}", projectId);
             restTemplate.exchange(cxProperties.getUrl().concat(PROJECT_SOURCE), HttpMethod.POST, requestEntity, String.class, projectId);
+            settingsCache.applied(projectId, CxSettingsCache.GIT_SETTINGS, settings, null);
         } catch (HttpStatusCodeException e) {
             log.error("Error occurred while updating Project source info for project {}.", projectId);
+            forgetProject(projectId, e);
             throw new CheckmarxException("Error occurred while adding source details to project.  Please ensure GIT is defined within Checkmarx");
         }
     }
@@ -1291,6 +2074,7 @@ public class CxService implements CxClient{
         try {
             log.info("Updating details for project {} with id {}", cxProject.getName(), cxProject.getId());
             restTemplate.exchange(cxProperties.getUrl().concat(PROJECT), HttpMethod.PATCH, requestEntity, String.class, cxProject.getId());
+            projectDirectory.put(cxProject);
         } catch (HttpStatusCodeException e) {
             log.debug(ExceptionUtils.getStackTrace(e));
             log.error("Error occurred while updating details for project {}.", cxProject.getName());
@@ -1306,25 +2090,87 @@ public class CxService implements CxClient{
      * @throws CheckmarxException
      */
     public void uploadProjectSource(Integer projectId, File file) throws CheckmarxException {
+        uploadProjectSource(projectId, file, null);
+    }
+
+    /**
+     * Upload file (zip of source) for a project, streaming it from disk
+     *
+     * @param projectId
+     * @param file
+     * @param listener notified of the upload progress, may be null
+     * @throws CheckmarxException
+     */
+    @Override
+    public void uploadProjectSource(Integer projectId, File file, UploadListener listener) throws CheckmarxException {
         HttpHeaders headers = authClient.createAuthHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        headers.remove(HttpHeaders.CONTENT_TYPE);
+        uploadProjectSource(projectId, new CxSourceUpload(headers, "zippedSource", file, listener));
+    }
 
-        LinkedMultiValueMap<String, Object> map = new LinkedMultiValueMap<>();
-        FileSystemResource value = new FileSystemResource(file);
-        map.add("zippedSource", value);
+    /**
+     * Zip a source directory for a project, uploading the archive as it is written
+     *
+     * @param projectId
+     * @param directory source directory
+     * @param folderExclude folder names or relative path globs to leave out, may be null
+     * @param fileExclude file names or relative path globs to leave out, may be null
+     * @param listener notified of the upload progress, may be null
+     * @throws CheckmarxException
+     */
+    @Override
+    public void uploadProjectSource(Integer projectId, File directory, List<String> folderExclude, List<String> fileExclude,
+                                    UploadListener listener) throws CheckmarxException {
+        uploadSourceDirectory(projectId, directory, folderExclude, fileExclude, listener);
+    }
 
-        HttpEntity<LinkedMultiValueMap<String, Object>> requestEntity = new HttpEntity<>(map, headers);
+    /**
+     * @return hash of the files uploaded, which is the hash of the directory before the upload
+     * ({@link CxSourceArchive#hash()}) unless the files changed in between
+     */
+    private HashCode uploadSourceDirectory(Integer projectId, File directory, List<String> folderExclude, List<String> fileExclude,
+                                           UploadListener listener) throws CheckmarxException {
+        if (!directory.isDirectory()) {
+            throw new CheckmarxException("Source directory not found: ".concat(directory.getPath()));
+        }
+        HttpHeaders headers = authClient.createAuthHeaders();
+        headers.remove(HttpHeaders.CONTENT_TYPE);
+        CxSourceArchive archive = new CxSourceArchive(directory, folderExclude, fileExclude, sourceCompressionExecutor,
+                cxProperties.getSourceCompressionConcurrency());
+        uploadProjectSource(projectId, new CxSourceUpload(headers, "zippedSource", archive, listener));
+        return archive.getHash();
+    }
 
+    private void uploadProjectSource(Integer projectId, CxSourceUpload upload) throws CheckmarxException {
+        /* the uploaded source replaces the git repository settings, which must be written again for the next git scan */
+        settingsCache.forget(projectId, CxSettingsCache.GIT_SETTINGS);
         try {
             log.info("Updating Source details for project Id {}", projectId);
-            restTemplate.exchange(cxProperties.getUrl().concat(PROJECT_SOURCE_FILE), HttpMethod.POST, requestEntity, String.class, projectId);
+            uploadRestTemplate.execute(cxProperties.getUrl().concat(PROJECT_SOURCE_FILE), HttpMethod.POST, upload, null, projectId);
         } catch (HttpStatusCodeException e) {
+            log.error(ExceptionUtils.getStackTrace(e));
+            log.error("Error occurred while uploading Project source for project id {}.", projectId);
+            forgetProject(projectId, e);
+            throw new CheckmarxException("Error occurred while uploading source");
+        } catch (ResourceAccessException e) {
             log.error(ExceptionUtils.getStackTrace(e));
             log.error("Error occurred while uploading Project source for project id {}.", projectId);
             throw new CheckmarxException("Error occurred while uploading source");
         }
     }
 
+    /**
+     * Forget the settings last applied to a project after a call for it was rejected, and the project itself if it
+     * no longer exists
+     */
+    private void forgetProject(Integer projectId, HttpStatusCodeException e) {
+        settingsCache.forget(projectId);
+        if (HttpStatus.NOT_FOUND.equals(e.getStatusCode())) {
+            log.info("Project Id {} was not found, removing it from the project cache", projectId);
+            projectDirectory.remove(projectId);
+        }
+    }
+
     public void setProjectExcludeDetails(Integer projectId, List<String> excludeFolders, List<String> excludeFiles) {
         String excludeFilesStr = "";
         String excludeFolderStr = "";
@@ -1338,14 +2184,20 @@ public class CxService implements CxClient{
 
         String strJSON = "{'excludeFoldersPattern':'%s', 'excludeFilesPattern':'%s'}";
         strJSON = String.format(strJSON, excludeFolderStr, excludeFilesStr);
+        if (settingsCache.isApplied(projectId, CxSettingsCache.EXCLUDE_SETTINGS, strJSON)) {
+            log.info("Project folder and file exclusion details for project Id {} are unchanged", projectId);
+            return;
+        }
         HttpEntity requestEntity = new HttpEntity<>(strJSON, authClient.createAuthHeaders());
 
         try {
             log.info("Updating Project folder and file exclusion details for project Id {}", projectId);
             restTemplate.exchange(cxProperties.getUrl().concat(PROJECT_EXCLUDE), HttpMethod.PUT, requestEntity, String.class, projectId);
+            settingsCache.applied(projectId, CxSettingsCache.EXCLUDE_SETTINGS, strJSON, null);
         } catch (HttpStatusCodeException e) {
             log.error("Error occurred while updating Project source info for project {}.", projectId);
             log.error(ExceptionUtils.getStackTrace(e));
+            forgetProject(projectId, e);
         }
     }
 
@@ -1357,21 +2209,10 @@ public class CxService implements CxClient{
      * @throws CheckmarxException
      */
     public String getTeamId(String teamPath) throws CheckmarxException {
-        HttpEntity httpEntity = new HttpEntity<>(authClient.createAuthHeaders());
-        try {
-            List<CxTeam> teams = getTeams();
-            if (teams == null) {
-                throw new CheckmarxException("Error obtaining Team Id");
-            }
-            for (CxTeam team : teams) {
-                if (team.getFullName().equals(teamPath)) {
-                    log.info("Found team {} with ID {}", teamPath, team.getId());
-                    return team.getId();
-                }
-            }
-        } catch (HttpStatusCodeException e) {
-            log.error("Error occurred while retrieving Teams");
-            log.error(ExceptionUtils.getStackTrace(e));
+        CxTeam team = teamDirectory.getByPath(teamPath);
+        if (team != null) {
+            log.info("Found team {} with ID {}", teamPath, team.getId());
+            return team.getId();
         }
         log.info("No team was found for {}", teamPath);
         return UNKNOWN;
@@ -1385,21 +2226,10 @@ public class CxService implements CxClient{
      * @throws CheckmarxException
      */
     public String getTeamName(String teamId) throws CheckmarxException {
-        HttpEntity httpEntity = new HttpEntity<>(authClient.createAuthHeaders());
-        try {
-            List<CxTeam> teams = getTeams();
-            if (teams == null) {
-                throw new CheckmarxException("Error retrieving Cx teams from the server");
-            }
-            for (CxTeam team : teams) {
-                if (team.getId().equals(teamId)) {
-                    log.info("Found team {} with ID {}", team.getFullName(), teamId);
-                    return team.getFullName();
-                }
-            }
-        } catch (HttpStatusCodeException e) {
-            log.error("Error occurred while retrieving Teams");
-            log.error(ExceptionUtils.getStackTrace(e));
+        CxTeam team = teamDirectory.getById(teamId);
+        if (team != null) {
+            log.info("Found team {} with ID {}", team.getFullName(), teamId);
+            return team.getFullName();
         }
         log.info("No team was found for {}", teamId);
         return UNKNOWN;
@@ -1416,26 +2246,15 @@ public class CxService implements CxClient{
      */
     @Override
     public String getTeamId(String parentTeamId, String teamName) throws CheckmarxException {
-        HttpEntity httpEntity = new HttpEntity<>(authClient.createAuthHeaders());
-        try {
-            // Versions prior to 9.0 do not return parent ID with the Team list
-            if(cxProperties.getVersion() < 9.0){
-                log.error("Unsupported function for this version of Checkmarx");
-                return null;
-            }
-            List<CxTeam> teams = getTeams();
-            if (teams == null) {
-                throw new CheckmarxException("Error obtaining Team Id");
-            }
-            for (CxTeam team : teams) {
-                if (team.getName().equals(teamName) && team.getParentId().equals(parentTeamId)) {
-                    log.info("Found team {} with ID {}", teamName, team.getId());
-                    return team.getId();
-                }
-            }
-        } catch (HttpStatusCodeException e) {
-            log.error("Error occurred while retrieving Teams");
-            log.error(ExceptionUtils.getStackTrace(e));
+        // Versions prior to 9.0 do not return parent ID with the Team list
+        if(cxProperties.getVersion() < 9.0){
+            log.error("Unsupported function for this version of Checkmarx");
+            return null;
+        }
+        CxTeam team = teamDirectory.getChild(parentTeamId, teamName);
+        if (team != null) {
+            log.info("Found team {} with ID {}", teamName, team.getId());
+            return team.getId();
         }
         log.info("No team was found for {} with parentId {}", teamName, parentTeamId);
         return UNKNOWN;
@@ -1455,6 +2274,7 @@ public class CxService implements CxClient{
             try {
                 HttpEntity requestEntity = new HttpEntity<>(json.toString(), authClient.createAuthHeaders());
                 restTemplate.postForObject(cxProperties.getUrl().concat(TEAMS), requestEntity, String.class);
+                teamDirectory.invalidate();
                 return getTeamId(parentTeamId, teamName);
             } catch (HttpStatusCodeException e) {
                 log.error("Error occurred while creating team and retrieving new Id");
@@ -1474,6 +2294,7 @@ public class CxService implements CxClient{
             log.debug("Deleting team with id {}", teamId);
             try {
                 ResponseEntity<String> projects = restTemplate.exchange(cxProperties.getUrl().concat(TEAM), HttpMethod.DELETE, httpEntity, String.class, teamId);
+                teamDirectory.invalidate();
             } catch (HttpStatusCodeException e) {
                 log.error("HTTP Status Code of {} while deleting team Id {}", e.getStatusCode(), teamId);
                 log.error(ExceptionUtils.getStackTrace(e));
@@ -1519,6 +2340,7 @@ public class CxService implements CxClient{
     public String createTeamWS(String parentTeamId, String teamName) throws CheckmarxException {
         String session = authClient.getLegacySession();
         cxLegacyService.createTeam(session, parentTeamId, teamName);
+        teamDirectory.invalidate();
         return getTeamId(cxProperties.getTeam().concat(cxProperties.getTeamPathSeparator()).concat(teamName));
     }
 
@@ -1531,6 +2353,7 @@ public class CxService implements CxClient{
     public void deleteTeamWS(String teamId) throws CheckmarxException {
         String session = authClient.getLegacySession();
         cxLegacyService.deleteTeam(session, teamId);
+        teamDirectory.invalidate();
     }
 
     /**
@@ -1549,34 +2372,10 @@ public class CxService implements CxClient{
         }
 
         cxLegacyService.moveTeam(session, teamId, newParentTeamId);
+        teamDirectory.invalidate();
 
         // The SOAP API does not seem to move subteams properly; find all children of the teamId and move them individually
-        ArrayList<CxTeam> subteams = new ArrayList<CxTeam>();
-        List<CxTeam> teams = getTeams();
-
-        // find team name; don't call getTeamName, as it results in an unecessary call to geTeams()
-        String teamName = "";
-        if (teams == null) {
-            throw new CheckmarxException("Error retrieving Cx teams from the server");
-        }
-        for (CxTeam team : teams) {
-            if (team.getId().equals(teamId)) {
-                teamName = team.getFullName();
-                log.debug("Found team {} with ID {}", teamName, teamId);
-                break;
-            }
-        }
-
-        if(!teamName.isEmpty()) {
-            for (CxTeam team : teams) {
-                String subteamName = team.getFullName();
-                log.debug("Checking subteam {}", subteamName);
-                if (!subteamName.equals(teamName) && subteamName.contains(teamName)) {
-                    log.debug("Found subteam {}", team.getFullName());
-                    subteams.add(team);
-                }
-            }
-        }
+        List<CxTeam> subteams = teamDirectory.getDescendants(teamId);
 
         // move subteams, if any
         if(!subteams.isEmpty()) {
@@ -1585,6 +2384,7 @@ public class CxService implements CxClient{
                 log.debug("Moving subteam {}", subteam.getFullName());
                 cxLegacyService.moveTeam(session, subteam.getId(), teamId);
             }
+            teamDirectory.invalidate();
         }
     }
 
@@ -1605,6 +2405,7 @@ public class CxService implements CxClient{
 
         log.info("Renaming team {} to {}", teamId, newTeamName);
         cxLegacyService.updateTeam(session, teamId, newTeamName, null);
+        teamDirectory.invalidate();
     }
 
     /**
@@ -1615,8 +2416,19 @@ public class CxService implements CxClient{
      * @throws CheckmarxException
      */
     public Integer getScanConfiguration(String configuration) throws CheckmarxException {
-        HttpEntity httpEntity = new HttpEntity<>(authClient.createAuthHeaders());
         int defaultConfigId = UNKNOWN_INT;
+        Integer engineId = engineConfigurations.getId(configuration);
+        if(engineId != null){
+            log.info("Found xml/engine configuration {} with ID {}", configuration, engineId);
+            return engineId;
+        }
+        log.warn("No scan configuration found for {}", configuration);
+        log.warn("Scan Configuration {} with ID {} will be used instead", Constants.CX_DEFAULT_CONFIGURATION, defaultConfigId);
+        return defaultConfigId;
+    }
+
+    private List<CxScanEngine> fetchScanConfigurations() throws CheckmarxException {
+        HttpEntity httpEntity = new HttpEntity<>(authClient.createAuthHeaders());
         try {
             log.info("Retrieving Cx engineConfigurations");
             ResponseEntity<CxScanEngine[]> response = restTemplate.exchange(cxProperties.getUrl().concat(SCAN_CONFIGURATIONS), HttpMethod.GET, httpEntity, CxScanEngine[].class);
@@ -1624,17 +2436,7 @@ public class CxService implements CxClient{
             if (engines == null) {
                 throw new CheckmarxException("Error obtaining Scan configurations");
             }
-            for(CxScanEngine engine: engines){
-                String engineName = engine.getName();
-                int engineId = engine.getId();
-                if(engineName.equalsIgnoreCase(configuration)){
-                    log.info("Found xml/engine configuration {} with ID {}", configuration, engineId);
-                    return engineId;
-                }
-            }
-            log.warn("No scan configuration found for {}", configuration);
-            log.warn("Scan Configuration {} with ID {} will be used instead", Constants.CX_DEFAULT_CONFIGURATION, defaultConfigId);
-            return defaultConfigId;
+            return Arrays.asList(engines);
         }   catch (HttpStatusCodeException e) {
             log.error("Error occurred while retrieving engine configurations");
             log.error(ExceptionUtils.getStackTrace(e));
@@ -1643,8 +2445,22 @@ public class CxService implements CxClient{
     }
 
     public Integer getPresetId(String preset) throws CheckmarxException {
+        Integer presetId = presets.getId(preset);
+        if(presetId != null){
+            log.info("Found preset {} with ID {}", preset, presetId);
+            return presetId;
+        }
+        Integer defaultPresetId = presets.getId(Constants.CX_DEFAULT_PRESET);
+        if(defaultPresetId == null){
+            defaultPresetId = UNKNOWN_INT;
+        }
+        log.warn("No Preset was found for {}", preset);
+        log.warn("Default Preset {} with ID {} will be used instead", Constants.CX_DEFAULT_PRESET, defaultPresetId);
+        return defaultPresetId;
+    }
+
+    private List<CxPreset> fetchPresets() throws CheckmarxException {
         HttpEntity httpEntity = new HttpEntity<>(authClient.createAuthHeaders());
-        int defaultPresetId = UNKNOWN_INT;
         try {
             log.info("Retrieving Cx presets");
             ResponseEntity<CxPreset[]> response = restTemplate.exchange(cxProperties.getUrl().concat(PRESETS), HttpMethod.GET, httpEntity, CxPreset[].class);
@@ -1652,20 +2468,7 @@ public class CxService implements CxClient{
             if (cxPresets == null) {
                 throw new CheckmarxException("Error obtaining Team Id");
             }
-            for(CxPreset cxPreset: cxPresets){
-                String presetName = cxPreset.getName();
-                int presetId = cxPreset.getId();
-                if(presetName.equalsIgnoreCase(preset)){
-                    log.info("Found preset {} with ID {}", preset, presetId);
-                    return cxPreset.getId();
-                }
-                if(presetName.equalsIgnoreCase(Constants.CX_DEFAULT_PRESET)){
-                    defaultPresetId =  presetId;
-                }
-            }
-            log.warn("No Preset was found for {}", preset);
-            log.warn("Default Preset {} with ID {} will be used instead", Constants.CX_DEFAULT_PRESET, defaultPresetId);
-            return defaultPresetId;
+            return Arrays.asList(cxPresets);
         }   catch (HttpStatusCodeException e) {
             log.error("Error occurred while retrieving presets");
             log.error(ExceptionUtils.getStackTrace(e));
@@ -1673,6 +2476,41 @@ public class CxService implements CxClient{
         }
     }
 
+    /**
+     * Discard the cached presets, engine configurations, roles and LDAP servers, so they are retrieved again on
+     * next use
+     */
+    @Override
+    public void invalidateReferenceData() {
+        presets.invalidate();
+        engineConfigurations.invalidate();
+        roles.invalidate();
+        ldapServers.invalidate();
+    }
+
+    /**
+     * Load the reference data used by every scan submission in the background, so the first scan does not wait for it
+     */
+    @PostConstruct
+    void warmUpReferenceData() {
+        if(cxProperties.getOffline() || !cxProperties.getReferenceDataWarmup() || ScanUtils.empty(cxProperties.getUrl())){
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cx-reference-data-");
+        threadFactory.setDaemon(true);
+        threadFactory.newThread(() -> {
+            try {
+                presets.getAll();
+                engineConfigurations.getAll();
+                if(cxProperties.getVersion() >= 9.0) {
+                    roles.getAll();
+                }
+            } catch (CheckmarxException | RuntimeException e) {
+                log.warn("Unable to load reference data: {}", ExceptionUtils.getMessage(e));
+            }
+        }).start();
+    }
+
     /**
      * Get scan summary for given scanId
      *
@@ -1729,55 +2567,88 @@ public class CxService implements CxClient{
 
     @Override
     public Integer createScan(CxScanParams params, String comment) throws CheckmarxException{
+        return createScan(params, comment, null);
+    }
+
+    /**
+     * @param match source dedup of the scan, or null.  When the files of a source directory changed between hashing
+     *              and uploading them, the hash is cleared so the scan is not recorded under it.
+     */
+    private Integer createScan(CxScanParams params, String comment, SourceMatch match) throws CheckmarxException{
         log.info("Creating scan...");
         validateScanParams(params);
-        String teamId = params.getTeamId();
-        Integer projectId = params.getProjectId();
-        if(ScanUtils.empty(teamId) || teamId.equals(UNKNOWN)) {
-            teamId = getTeamId(params.getTeamName());
-            if(teamId.equals(UNKNOWN)){
-                throw new CheckmarxException("Team does not exist: ".concat(params.getTeamName()));
+        /* steps only depending on the project run concurrently once it is known */
+        CxScanPipeline pipeline = new CxScanPipeline(scanSubmissionExecutor);
+        CompletableFuture<Integer> preset = pipeline.stage("preset", () -> getPresetId(params.getScanPreset()));
+        CompletableFuture<Integer> engine = pipeline.stage("engineConfiguration", () -> getScanConfiguration(params.getScanConfiguration()));
+        CompletableFuture<String> team = pipeline.stage("team", () -> {
+            String teamId = params.getTeamId();
+            if(ScanUtils.empty(teamId) || teamId.equals(UNKNOWN)) {
+                teamId = getTeamId(params.getTeamName());
+                if(teamId.equals(UNKNOWN)){
+                    throw new CheckmarxException("Team does not exist: ".concat(params.getTeamName()));
+                }
+            }
+            return teamId;
+        });
+        CompletableFuture<Integer> project = pipeline.stage("project", () -> {
+            Integer projectId = params.getProjectId();
+            if(projectId == null || projectId.equals(UNKNOWN_INT)) {
+                projectId = getProjectId(team.join(), params.getProjectName());
             }
-        }
-        if(projectId == null || projectId.equals(UNKNOWN_INT)) {
-            projectId = getProjectId(teamId, params.getProjectName());
-        }
-        if(projectId.equals(UNKNOWN_INT)){
-            projectId = createProject(teamId, params.getProjectName());
             if(projectId.equals(UNKNOWN_INT)){
-                throw new CheckmarxException("Project was not created successfully: ".concat(params.getProjectName()));
+                projectId = createProject(team.join(), params.getProjectName());
+                if(projectId.equals(UNKNOWN_INT)){
+                    throw new CheckmarxException("Project was not created successfully: ".concat(params.getProjectName()));
+                }
             }
-        }
-
-        Integer presetId = getPresetId(params.getScanPreset());
-        Integer engineId = getScanConfiguration(params.getScanConfiguration());
-        createScanSetting(projectId, presetId, engineId);
-
-        switch (params.getSourceType()){
-            case GIT:
-                setProjectRepositoryDetails(projectId, params.getGitUrl(), params.getBranch());
-                break;
-            case FILE:
-                uploadProjectSource(projectId, new File(params.getFilePath()));
-                break;
-        }
-        if(params.isIncremental() && !projectId.equals(UNKNOWN_INT)) {
-            LocalDateTime scanDate = getLastScanDate(projectId);
-            if(scanDate == null || LocalDateTime.now().isAfter(scanDate.plusDays(cxProperties.getIncrementalThreshold()))){
-                log.debug("Last scanDate: {}", scanDate);
-                log.info("Last scanDate does not meet the threshold for an incremental scan.");
-                params.setIncremental(false);
+            return projectId;
+        }, team);
+
+        CompletableFuture<Void> settings = pipeline.run("scanSettings", () ->
+                createScanSetting(project.join(), preset.join(), engine.join()), project, preset, engine);
+        CompletableFuture<HashCode> source = pipeline.stage("source", () -> {
+            switch (params.getSourceType()){
+                case GIT:
+                    setProjectRepositoryDetails(project.join(), params.getGitUrl(), params.getBranch());
+                    break;
+                case FILE:
+                    File sourcePath = new File(params.getFilePath());
+                    if (sourcePath.isDirectory()) {
+                        return uploadSourceDirectory(project.join(), sourcePath, params.getFolderExclude(), params.getFileExclude(), null);
+                    }
+                    uploadProjectSource(project.join(), sourcePath);
+                    break;
+            }
+            return null;
+        }, project);
+        CompletableFuture<Void> incremental = pipeline.run("incrementalCheck", () -> {
+            if(params.isIncremental()) {
+                LocalDateTime scanDate = getLastScanDate(project.join());
+                if(scanDate == null || LocalDateTime.now().isAfter(scanDate.plusDays(cxProperties.getIncrementalThreshold()))){
+                    log.debug("Last scanDate: {}", scanDate);
+                    log.info("Last scanDate does not meet the threshold for an incremental scan.");
+                    params.setIncremental(false);
+                }
+                else{
+                    log.info("Scan will be incremental");
+                }
             }
-            else{
-                log.info("Scan will be incremental");
+            else {
+                log.info("Scan will be Full Scan");
+                params.setIncremental(false);
             }
-        }
-        else {
-            log.info("Scan will be Full Scan");
-            params.setIncremental(false);
+        }, project);
+        CompletableFuture<Void> exclude = pipeline.run("excludeSettings", () ->
+                setProjectExcludeDetails(project.join(), params.getFolderExclude(), params.getFileExclude()), project);
+        pipeline.await(CompletableFuture.allOf(settings, source, incremental, exclude));
+        Integer projectId = project.join();
+        HashCode uploaded = source.join();
+        if (match != null && match.source != null && uploaded != null && !uploaded.equals(match.source)) {
+            log.warn("Source of project {} changed while it was uploaded, the scan will not be reused", params.getProjectName());
+            match.hash = null;
         }
 
-        setProjectExcludeDetails(projectId, params.getFolderExclude(), params.getFileExclude());
         CxScan scan = CxScan.builder()
                 .projectId(projectId)
                 .isIncremental(params.isIncremental())
@@ -1792,7 +2663,7 @@ public class CxService implements CxClient{
 
         log.info("Creating Scan for project Id {}", projectId);
         try {
-            String response = restTemplate.postForObject(cxProperties.getUrl().concat(SCAN), requestEntity, String.class);
+            String response = pipeline.time("scan", () -> restTemplate.postForObject(cxProperties.getUrl().concat(SCAN), requestEntity, String.class));
             JSONObject obj = new JSONObject(response);
             String id = obj.get("id").toString();
             log.info("Scan created with Id {} for project Id {}", id, projectId);
@@ -1800,6 +2671,10 @@ public class CxService implements CxClient{
         } catch (HttpStatusCodeException e) {
             log.error("Error occurred while creating Scan for project {}, http error {}", projectId, e.getStatusCode());
             log.error(ExceptionUtils.getStackTrace(e));
+            /* the project may not be configured as expected, so its settings are written again on the next attempt */
+            forgetProject(projectId, e);
+        } finally {
+            pipeline.report(projectId);
         }
         log.info("...Finished creating scan");
         return UNKNOWN_INT;
@@ -1814,19 +2689,9 @@ public class CxService implements CxClient{
      */
     @Override
     public CxXMLResultsType createScanAndReport(CxScanParams params, String comment) throws CheckmarxException{
-        Integer scanId = createScan(params, comment);
-        waitForScanCompletion(scanId);
+        Integer scanId = scanOrReuse(params, comment);
 
-        try {
-            Integer reportId = createScanReport(scanId);
-            waitForReportCreateOrFail(reportId);
-            Thread.sleep(1000);
-            return getXmlReportContent(reportId);
-        } catch (InterruptedException e) {
-            log.error(ExceptionUtils.getStackTrace(e));
-            Thread.currentThread().interrupt();
-            throw new CheckmarxException("Interrupted Exception Occurred");
-        }
+        return getXmlReportContent(getScanReport(scanId));
     }
 
     /**
@@ -1839,19 +2704,149 @@ public class CxService implements CxClient{
      */
     @Override
     public ScanResults createScanAndReport(CxScanParams params, String comment, List<Filter> filters) throws CheckmarxException{
-        Integer scanId = createScan(params, comment);
-        waitForScanCompletion(scanId);
+        Integer scanId = scanOrReuse(params, comment);
 
+        return getReportContent(getScanReport(scanId), filters);
+    }
+
+    /**
+     * Create a scan based on the CxScanParams, returning immediately with a future of the ScanResults based on filters.
+     * The scan and report are tracked by the shared scan watcher rather than a blocked thread.
+     *
+     * @param params attributes used to define the project
+     * @param comment
+     * @param filters filters to apply to the scan result set (severity, category, cwe)
+     * @return future completed with the ScanResults, or exceptionally with a CheckmarxException
+     */
+    @Override
+    public CompletableFuture<ScanResults> createScanAndReportAsync(CxScanParams params, String comment, List<Filter> filters) {
+        CompletableFuture<ScanResults> results = new CompletableFuture<>();
+        Integer scanId;
+        CompletableFuture<?> scanned;
         try {
-            Integer reportId = createScanReport(scanId);
-            waitForReportCreateOrFail(reportId);
-            Thread.sleep(cxProperties.getScanPolling());
-            return getReportContent(reportId, filters);
-        } catch (InterruptedException e) {
-            log.error(ExceptionUtils.getStackTrace(e));
-            Thread.currentThread().interrupt();
-            throw new CheckmarxException("Interrupted Exception Occurred");
+            SourceMatch match = hashSource(params);
+            scanId = reuseOrCreateScan(params, comment, match);
+            if (match.reused) {
+                scanned = CompletableFuture.completedFuture(null);
+            } else {
+                scanned = scanWatcher.watchScan(scanId, estimateScanDuration(scanId))
+                        .thenApply(status -> {
+                            recordSource(match.hash, scanId);
+                            return status;
+                        });
+            }
+        } catch (CheckmarxException e) {
+            results.completeExceptionally(e);
+            return results;
+        }
+        scanned
+                .thenCompose(status -> scanReport(scanId))
+                .whenComplete((report, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        results.completeExceptionally(cause);
+                        return;
+                    }
+                    try {
+                        results.complete(getReportContent(report, filters));
+                    } catch (CheckmarxException | RuntimeException ex) {
+                        results.completeExceptionally(ex);
+                    }
+                });
+        return results;
+    }
+
+    /**
+     * Create a scan and wait for it to complete, unless a finished scan of identical source can be reused
+     *
+     * @return id of the finished scan
+     * @see CxSourceDedup
+     */
+    private Integer scanOrReuse(CxScanParams params, String comment) throws CheckmarxException {
+        SourceMatch match = hashSource(params);
+        Integer scanId = reuseOrCreateScan(params, comment, match);
+        if (!match.reused) {
+            waitForScanCompletion(scanId);
+            recordSource(match.hash, scanId);
+        }
+        return scanId;
+    }
+
+    /**
+     * @return id of the finished scan of an identical source, or of the scan created
+     */
+    private Integer reuseOrCreateScan(CxScanParams params, String comment, SourceMatch match) throws CheckmarxException {
+        if (match.hash != null) {
+            CxSourceDedup.Scan scan = sourceDedup.lookup(match.hash, this::isFinished);
+            if (scan != null) {
+                log.info("Source unchanged since scan Id {}, reusing its results", scan.getScanId());
+                match.reused = true;
+                return scan.getScanId();
+            }
+        }
+        return createScan(params, comment, match);
+    }
+
+    /**
+     * Hash the source of a scan before it is uploaded
+     *
+     * @return the hashes of the source, null if the scan cannot be reused
+     */
+    private SourceMatch hashSource(CxScanParams params) {
+        SourceMatch match = new SourceMatch();
+        try {
+            validateScanParams(params);
+            match.source = sourceDedup.hashSource(params);
+            match.hash = sourceDedup.hash(params, match.source);
+        } catch (CheckmarxException | IOException e) {
+            log.warn("Unable to hash source of project {}: {}", params.getProjectName(), ExceptionUtils.getMessage(e));
+        }
+        return match;
+    }
+
+    private void recordSource(String hash, Integer scanId) {
+        if (hash == null || scanId.equals(UNKNOWN_INT)) {
+            return;
+        }
+        /* the scan is done either way, so failing to record it only costs a scan of the same source */
+        try {
+            JSONObject project = getScanData(scanId.toString()).optJSONObject("project");
+            if (project != null) {
+                sourceDedup.record(hash, project.getInt("id"), scanId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to record source of scan Id {}: {}", scanId, ExceptionUtils.getMessage(e));
+            log.debug(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * @return true if the scan still exists in its project, and is finished
+     */
+    private boolean isFinished(CxSourceDedup.Scan scan) {
+        JSONObject data;
+        try {
+            data = getScanData(scan.getScanId().toString());
+        } catch (RuntimeException e) {
+            log.warn("Unable to check scan Id {}, creating a scan: {}", scan.getScanId(), ExceptionUtils.getMessage(e));
+            log.debug(ExceptionUtils.getStackTrace(e));
+            return false;
         }
+        JSONObject project = data.optJSONObject("project");
+        JSONObject status = data.optJSONObject("status");
+        return project != null && status != null && scan.getProjectId().equals(project.optInt("id"))
+                && SCAN_STATUS_FINISHED.equals(status.optInt("id"));
+    }
+
+    /**
+     * Source dedup of a scan submission
+     */
+    private static class SourceMatch {
+        /* hash of the source alone, checked against the uploaded files */
+        private HashCode source;
+        /* hash of the source and settings the scan is found and recorded under */
+        private String hash;
+        private boolean reused;
     }
 
     /**
@@ -1884,16 +2879,7 @@ public class CxService implements CxClient{
         String teamId = getTeamId(teamName);
         Integer projectId = getProjectId(teamId, projectName);
         Integer scanId = getLastScanId(projectId);
-        try {
-            Integer reportId = createScanReport(scanId);
-            waitForReportCreateOrFail(reportId);
-            Thread.sleep(cxProperties.getScanPolling());
-            return getXmlReportContent(reportId);
-        } catch (InterruptedException e) {
-            log.error(ExceptionUtils.getStackTrace(e));
-            Thread.currentThread().interrupt();
-            throw new CheckmarxException("Interrupted Exception Occurred");
-        }
+        return getXmlReportContent(getScanReport(scanId));
     }
 
     /**
@@ -1910,20 +2896,17 @@ public class CxService implements CxClient{
         String teamId = getTeamId(teamName);
         Integer projectId = getProjectId(teamId, projectName);
         Integer scanId = getLastScanId(projectId);
-        try {
-            Integer reportId = createScanReport(scanId);
-            waitForReportCreateOrFail(reportId);
-            Thread.sleep(cxProperties.getScanPolling());
-            return getReportContent(reportId, filters);
-        } catch (InterruptedException e) {
-            log.error(ExceptionUtils.getStackTrace(e));
-            Thread.currentThread().interrupt();
-            throw new CheckmarxException("Interrupted Exception Occurred");
-        }
+        return getReportContent(getScanReport(scanId), filters);
     }
 
     @Override
     public List<CxTeam> getTeams() throws CheckmarxException {
+        List<CxTeam> teams = fetchTeams();
+        teamDirectory.update(teams);
+        return teams;
+    }
+
+    private List<CxTeam> fetchTeams() throws CheckmarxException {
         HttpEntity httpEntity = new HttpEntity<>(authClient.createAuthHeaders());
         try {
             log.info("Retrieving Cx teams");
@@ -2092,6 +3075,10 @@ public class CxService implements CxClient{
         if(cxProperties.getVersion() < 9.0) {
             throw new CheckmarxException("Operation only support in 9.0+");
         }
+        return roles.getAll();
+    }
+
+    private List<CxRole> fetchRoles() throws CheckmarxException {
         HttpEntity httpEntity = new HttpEntity<>(authClient.createAuthHeaders());
         try {
             log.info("Retrieving Cx Roles");
@@ -2140,12 +3127,10 @@ public class CxService implements CxClient{
         if(cxProperties.getVersion() < 9.0) {
             throw new CheckmarxException("Operation only support in 9.0+");
         }
-        List<CxRole> roles = getRoles();
-        for(CxRole role: roles){
-            if(role.getName().equalsIgnoreCase(roleName)){
-                log.debug("role found with id {}", role.getId());
-                return role.getId();
-            }
+        Integer roleId = roles.getId(roleName);
+        if(roleId != null){
+            log.debug("role found with id {}", roleId);
+            return roleId;
         }
         return UNKNOWN_INT;
     }
@@ -2236,12 +3221,21 @@ public class CxService implements CxClient{
 
     @Override
     public Integer getLdapServerId(String serverName) throws CheckmarxException {
+        Integer ldapServerId = ldapServers.getId(serverName);
+        if(ldapServerId != null){
+            return ldapServerId;
+        }
+        log.info("No LDAP Server found for name {}", serverName);
+        return UNKNOWN_INT;
+    }
+
+    private List<Map.Entry<String, Integer>> fetchLdapServers() throws CheckmarxException {
         if(cxProperties.getVersion() < 9.0) {
             String session = authClient.getLegacySession();
             if (session == null) {
                 session = authClient.legacyLogin(cxProperties.getUsername(), cxProperties.getPassword());
             }
-            return cxLegacyService.getLdapServerId(session, serverName);
+            return new ArrayList<>(cxLegacyService.getLdapServers(session).entrySet());
         }
         else{
             try{
@@ -2249,19 +3243,17 @@ public class CxService implements CxClient{
                 ResponseEntity<String> response = restTemplate.exchange(cxProperties.getUrl().concat(LDAP_SERVER),
                         HttpMethod.GET, requestEntity, String.class);
                 JSONArray objs = new JSONArray(response.getBody());
+                Map<String, Integer> servers = new LinkedHashMap<>();
                 for(int i=0; i < objs.length(); i++){
                     JSONObject obj = objs.getJSONObject(i);
-                    String name = obj.getString("name");
-                    if(name.equals(serverName)){
-                        return obj.getInt("id");
-                    }
+                    servers.put(obj.getString("name"), obj.getInt("id"));
                 }
-                log.info("No LDAP Server found for name {}", serverName);
+                return new ArrayList<>(servers.entrySet());
             } catch (HttpStatusCodeException e) {
                 log.error("Error occurred while retrieving ldap servers, http error {}", e.getStatusCode());
                 log.error(ExceptionUtils.getStackTrace(e));
+                throw new CheckmarxException("Error occurred while retrieving ldap servers");
             }
-            return UNKNOWN_INT;
         }
     }
     
@@ -2315,27 +3307,11 @@ public class CxService implements CxClient{
      * @throws CheckmarxException
      */
     public void waitForScanCompletion(Integer scanId) throws CheckmarxException{
-        Integer status = getScanStatus(scanId);
-        long timer = 0;
         try {
-
-            while (!status.equals(CxService.SCAN_STATUS_FINISHED) && !status.equals(CxService.SCAN_STATUS_CANCELED) &&
-                    !status.equals(CxService.SCAN_STATUS_FAILED)) {
-                Thread.sleep(cxProperties.getScanPolling());
-                status = getScanStatus(scanId);
-                timer += cxProperties.getScanPolling();
-                if (timer >= (cxProperties.getScanTimeout() * 60000)) {
-                    log.error("Scan timeout exceeded.  {} minutes", cxProperties.getScanTimeout());
-                    throw new CheckmarxException("Timeout exceeded during scan");
-                }
-            }
-            if (status.equals(CxService.SCAN_STATUS_FAILED) || status.equals(CxService.SCAN_STATUS_CANCELED)) {
-                throw new CheckmarxException("Scan was cancelled or failed");
-            }
+            await(scanWatcher.watchScan(scanId, estimateScanDuration(scanId)));
         }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
             throw new CheckmarxException("Thread interrupted");
-        }catch (HttpStatusCodeException e){
-            throw new CheckmarxException("HTTP Error".concat(ExceptionUtils.getRootCauseMessage(e)));
         }
     }
 }
@@ -0,0 +1,177 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.utils.ScanUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Fingerprints of the settings last applied to each project (scan settings, exclusions, git repository), so a write
+ * of unchanged settings can be skipped.
+ * <p>
+ * Only a SHA-256 hash of the settings (and the server URL) is kept, along with the result of the write.  Entries
+ * expire after the settings cache TTL (minutes, 0 to never skip a write), and all entries of a project are dropped
+ * with {@link #forget(Integer)} whenever the server rejects a write or a scan of the project.  When a settings cache
+ * file is configured, the fingerprints are persisted to it so they survive restarts.
+ */
+class CxSettingsCache {
+
+    static final String SCAN_SETTINGS = "scanSettings";
+    static final String EXCLUDE_SETTINGS = "excludeSettings";
+    static final String GIT_SETTINGS = "gitSettings";
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(CxSettingsCache.class);
+    private final CxProperties cxProperties;
+    private final Map<String, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    CxSettingsCache(CxProperties cxProperties) {
+        this.cxProperties = cxProperties;
+        load();
+    }
+
+    /**
+     * @param projectId
+     * @param type type of settings
+     * @param settings content of the settings
+     * @return true if the same settings were applied to the project within the TTL
+     */
+    boolean isApplied(Integer projectId, String type, String settings) {
+        Fingerprint fingerprint = fingerprints.get(key(projectId, type));
+        return fingerprint != null && !isExpired(fingerprint) && fingerprint.getHash().equals(hash(settings));
+    }
+
+    /**
+     * @return result of the last write of the settings (i.e. the scan settings id), or null if unknown
+     */
+    Integer getResult(Integer projectId, String type) {
+        Fingerprint fingerprint = fingerprints.get(key(projectId, type));
+        return fingerprint == null ? null : fingerprint.getResult();
+    }
+
+    /**
+     * Record the settings that have just been applied to the project
+     */
+    void applied(Integer projectId, String type, String settings, Integer result) {
+        fingerprints.put(key(projectId, type), new Fingerprint(hash(settings), result, System.currentTimeMillis()));
+        save();
+    }
+
+    /**
+     * Drop the fingerprints of a project, so its settings are written again on next use
+     */
+    void forget(Integer projectId) {
+        String prefix = projectId + ":";
+        if (fingerprints.keySet().removeIf(k -> k.startsWith(prefix))) {
+            save();
+        }
+    }
+
+    /**
+     * Drop the fingerprint of one type of settings of a project, so they are written again on next use
+     */
+    void forget(Integer projectId, String type) {
+        if (fingerprints.remove(key(projectId, type)) != null) {
+            save();
+        }
+    }
+
+    private boolean isExpired(Fingerprint fingerprint) {
+        return System.currentTimeMillis() - fingerprint.getApplied() >= TimeUnit.MINUTES.toMillis(cxProperties.getSettingsCacheTtl());
+    }
+
+    private String key(Integer projectId, String type) {
+        return projectId + ":" + type;
+    }
+
+    private String hash(String settings) {
+        return Hashing.sha256().hashString(cxProperties.getUrl() + "\n" + settings, UTF_8).toString();
+    }
+
+    private synchronized void save() {
+        String cacheFile = cxProperties.getSettingsCacheFile();
+        if (ScanUtils.empty(cacheFile)) {
+            return;
+        }
+        File file = new File(cacheFile);
+        try {
+            File tmp = new File(file.getPath().concat(".tmp"));
+            objectMapper.writeValue(tmp, new HashMap<>(fingerprints));
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to write settings cache {}: {}", cacheFile, ExceptionUtils.getMessage(e));
+        }
+    }
+
+    private void load() {
+        String cacheFile = cxProperties.getSettingsCacheFile();
+        if (ScanUtils.empty(cacheFile) || !new File(cacheFile).isFile()) {
+            return;
+        }
+        try {
+            Map<String, Fingerprint> cached = objectMapper.readValue(new File(cacheFile),
+                    new TypeReference<Map<String, Fingerprint>>() {
+                    });
+            cached.values().removeIf(this::isExpired);
+            fingerprints.putAll(cached);
+            log.debug("Loaded {} settings fingerprints from {}", cached.size(), cacheFile);
+        } catch (IOException e) {
+            log.warn("Unable to read settings cache {}: {}", cacheFile, ExceptionUtils.getMessage(e));
+        }
+    }
+
+    /**
+     * Hash of settings applied to a project, with the result of the write
+     */
+    public static class Fingerprint {
+        private String hash;
+        private Integer result;
+        private long applied;
+
+        public Fingerprint() {
+        }
+
+        Fingerprint(String hash, Integer result, long applied) {
+            this.hash = hash;
+            this.result = result;
+            this.applied = applied;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+
+        public Integer getResult() {
+            return result;
+        }
+
+        public void setResult(Integer result) {
+            this.result = result;
+        }
+
+        public long getApplied() {
+            return applied;
+        }
+
+        public void setApplied(long applied) {
+            this.applied = applied;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.checkmarx.sdk.service;
+
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent requests for the same key into a single in-flight operation, whose future is shared by all
+ * callers until it completes.
+ * <p>
+ * A request made while the operation for its key is in flight joins it rather than starting another one; once the
+ * operation completes (or fails) the next request starts a new one.  Requests are counted in the given metric
+ * (tagged with started/joined).
+ */
+class CxSingleFlight<K, V> {
+
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(CxSingleFlight.class);
+    private final String metric;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    CxSingleFlight(String metric) {
+        this.metric = metric;
+    }
+
+    /**
+     * @param key
+     * @param operation starts the operation for the key, unless it is already in flight
+     * @return future of the in-flight operation for the key
+     */
+    CompletableFuture<V> run(K key, Function<K, CompletableFuture<V>> operation) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            log.debug("Joining in-flight {} for {}", metric, key);
+            Metrics.counter(metric, "request", "joined").increment();
+            return existing;
+        }
+        Metrics.counter(metric, "request", "started").increment();
+        flight.whenComplete((result, e) -> inFlight.remove(key, flight));
+        try {
+            operation.apply(key).whenComplete((result, e) -> {
+                if (e != null) {
+                    flight.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                } else {
+                    flight.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+        }
+        return flight;
+    }
+
+    /**
+     * @return number of keys with an operation in flight
+     */
+    int size() {
+        return inFlight.size();
+    }
+}
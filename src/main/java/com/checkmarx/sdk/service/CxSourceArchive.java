@@ -0,0 +1,591 @@
+package com.checkmarx.sdk.service;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.CountingOutputStream;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Zip archive of a source directory, written directly to an output stream (i.e. the upload request body) without an
+ * intermediate file.
+ * <p>
+ * Folders matching a folder exclude are not walked, and files matching a file exclude are skipped, as are symbolic
+ * links (which are logged).  An exclude containing a '/' is a glob matched against the path relative to the
+ * directory, any other exclude is matched against the file or folder name (e.g. "node_modules", "*.min.js").
+ * <p>
+ * Files are split into chunks that are deflated concurrently on the given executor, each chunk being primed with the
+ * preceding 32KB of the file so the ratio is close to that of a single deflate stream.  The chunks are written in
+ * order, with at most a few chunks per thread held in memory.  Files larger than one chunk are written with a data
+ * descriptor, as their compressed size is only known once written.  Zip64 records are written when needed, a data
+ * descriptor being Zip64 when the compressed size of the file may reach 4GB.
+ * <p>
+ * Files are archived in name order, and the content of each chunk is hashed as it is compressed, so the archive
+ * yields a hash of the files it holds (see {@link #getHash()}).  The same hash can be computed before archiving (see
+ * {@link #hash()}), so comparing the two shows whether the files changed while being archived.
+ */
+class CxSourceArchive {
+
+    static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+    private static final int ZIP64_ENTRIES = 0xFFFF;
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(CxSourceArchive.class);
+    private final Path directory;
+    private final List<Exclude> folderExcludes;
+    private final List<Exclude> fileExcludes;
+    private final ExecutorService executor;
+    private final int window;
+    private HashCode hash;
+
+    /**
+     * @param directory source directory
+     * @param folderExcludes folder names or relative path globs to skip, may be null
+     * @param fileExcludes file names or relative path globs to skip, may be null
+     * @param executor executor the chunks are compressed on
+     * @param concurrency number of threads of the executor
+     */
+    CxSourceArchive(File directory, List<String> folderExcludes, List<String> fileExcludes, ExecutorService executor, int concurrency) {
+        this.directory = directory.toPath();
+        this.folderExcludes = compile(folderExcludes);
+        this.fileExcludes = compile(fileExcludes);
+        this.executor = executor;
+        this.window = Math.max(1, concurrency) * 2;
+    }
+
+    String getName() {
+        return directory.getFileName() + ".zip";
+    }
+
+    /**
+     * Walk the directory and write the archive
+     *
+     * @return number of files archived
+     */
+    int writeTo(OutputStream stream) throws IOException {
+        long start = System.currentTimeMillis();
+        List<Entry> entries = walk();
+        entries.sort(Comparator.comparing(entry -> entry.name));
+        Hasher hasher = Hashing.sha256().newHasher();
+        CountingOutputStream out = new CountingOutputStream(stream);
+        Deque<Pending> pending = new ArrayDeque<>();
+        try {
+            int next = 0;
+            long nextOffset = 0;
+            while (next < entries.size() || !pending.isEmpty()) {
+                /* keep the executor busy with the next chunks while writing the oldest one */
+                while (pending.size() < window && next < entries.size()) {
+                    Entry entry = entries.get(next);
+                    long length = Math.min(CHUNK_SIZE, entry.size - nextOffset);
+                    boolean last = nextOffset + length >= entry.size;
+                    long offset = nextOffset;
+                    pending.add(new Pending(entry, offset == 0, last,
+                            executor.submit(() -> compress(entry, offset, length, last))));
+                    if (last) {
+                        next++;
+                        nextOffset = 0;
+                    } else {
+                        nextOffset += length;
+                    }
+                }
+                Pending chunk = pending.poll();
+                Chunk data = get(chunk.chunk);
+                if (chunk.first) {
+                    putEntry(hasher, chunk.entry);
+                }
+                hasher.putBytes(data.hash.asBytes());
+                write(out, chunk.entry, chunk.first, chunk.last, data);
+            }
+        } finally {
+            for (Pending chunk : pending) {
+                chunk.chunk.cancel(true);
+            }
+        }
+        writeCentralDirectory(out, entries);
+        out.flush();
+        hash = hasher.hash();
+        log.debug("Archived {} files of {} ({} bytes) in {}ms", entries.size(), directory, out.getCount(),
+                System.currentTimeMillis() - start);
+        return entries.size();
+    }
+
+    /**
+     * Hash the names, sizes and content of the files that would be archived, hashing the files concurrently
+     *
+     * @return the hash {@link #getHash()} returns once the same files are archived
+     */
+    HashCode hash() throws IOException {
+        List<Entry> entries = walk();
+        entries.sort(Comparator.comparing(entry -> entry.name));
+        List<Future<List<HashCode>>> hashes = new ArrayList<>();
+        try {
+            for (Entry entry : entries) {
+                hashes.add(executor.submit(() -> hashChunks(entry)));
+            }
+            Hasher hasher = Hashing.sha256().newHasher();
+            for (int i = 0; i < entries.size(); i++) {
+                putEntry(hasher, entries.get(i));
+                for (HashCode chunk : get(hashes.get(i))) {
+                    hasher.putBytes(chunk.asBytes());
+                }
+            }
+            return hasher.hash();
+        } finally {
+            for (Future<List<HashCode>> hash : hashes) {
+                hash.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * @return SHA-256 of the names and content of the files of the last archive written (independent of the walk order
+     * and timestamps), or null before the archive is written
+     */
+    HashCode getHash() {
+        return hash;
+    }
+
+    /**
+     * Hash the name and size of a file, the size fixing the number of chunk hashes that follow
+     */
+    private static void putEntry(Hasher hasher, Entry entry) {
+        hasher.putString(entry.name, UTF_8).putByte((byte) 0).putLong(entry.size);
+    }
+
+    /**
+     * @return hash of each chunk of a file, as written by {@link #writeTo(OutputStream)}
+     */
+    private static List<HashCode> hashChunks(Entry entry) throws IOException {
+        List<HashCode> hashes = new ArrayList<>();
+        byte[] data = new byte[(int) Math.min(CHUNK_SIZE, entry.size)];
+        try (FileChannel channel = FileChannel.open(entry.path, StandardOpenOption.READ)) {
+            long offset = 0;
+            do {
+                int length = (int) Math.min(CHUNK_SIZE, entry.size - offset);
+                ByteBuffer buffer = ByteBuffer.wrap(data, 0, length);
+                int read = 0;
+                int n;
+                while (buffer.hasRemaining() && (n = channel.read(buffer)) != -1) {
+                    read += n;
+                }
+                hashes.add(Hashing.sha256().hashBytes(data, 0, read));
+                offset += length;
+            } while (offset < entry.size);
+        }
+        return hashes;
+    }
+
+    private List<Entry> walk() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(directory) && isExcluded(folderExcludes, dir)) {
+                    log.debug("Excluding folder {}", dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isSymbolicLink()) {
+                    /* not followed, as the link may point outside of the source directory */
+                    log.info("Skipping symbolic link {}", file);
+                } else if (!attrs.isRegularFile()) {
+                    log.debug("Skipping {}, not a regular file", file);
+                } else if (!isExcluded(fileExcludes, file)) {
+                    String name = directory.relativize(file).toString().replace(File.separatorChar, '/');
+                    entries.add(new Entry(file, name, attrs.size(), dosTime(attrs.lastModifiedTime().toMillis())));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                log.warn("Unable to read {}, skipping it: {}", file, e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return entries;
+    }
+
+    private boolean isExcluded(List<Exclude> excludes, Path path) {
+        for (Exclude exclude : excludes) {
+            if (exclude.matcher.matches(exclude.byPath ? directory.relativize(path) : path.getFileName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Exclude> compile(List<String> patterns) {
+        if (patterns == null) {
+            return Collections.emptyList();
+        }
+        List<Exclude> excludes = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern != null && !pattern.trim().isEmpty()) {
+                excludes.add(new Exclude(pattern.trim()));
+            }
+        }
+        return excludes;
+    }
+
+    /**
+     * Read and deflate a chunk of a file, finishing the deflate stream on the last chunk of the file
+     */
+    private static Chunk compress(Entry entry, long offset, long length, boolean last) throws IOException {
+        int dictionary = (int) Math.min(DICTIONARY_SIZE, offset);
+        byte[] data = new byte[dictionary + (int) length];
+        int read = 0;
+        try (FileChannel channel = FileChannel.open(entry.path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            channel.position(offset - dictionary);
+            int n;
+            while (buffer.hasRemaining() && (n = channel.read(buffer)) != -1) {
+                read += n;
+            }
+        }
+        /* the file may have been truncated since it was listed */
+        int size = Math.max(0, read - dictionary);
+        CRC32 crc = new CRC32();
+        crc.update(data, dictionary, size);
+        HashCode hash = Hashing.sha256().hashBytes(data, dictionary, size);
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if (dictionary > 0) {
+                deflater.setDictionary(data, 0, dictionary);
+            }
+            deflater.setInput(data, dictionary, size);
+            byte[] output = new byte[Math.max(1024, size / 2)];
+            int written = 0;
+            if (last) {
+                deflater.finish();
+            }
+            while (true) {
+                if (written == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                int n = deflater.deflate(output, written, output.length - written, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                written += n;
+                if (last ? deflater.finished() : written < output.length) {
+                    break;
+                }
+            }
+            return new Chunk(Arrays.copyOf(output, written), size, crc.getValue(), hash);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading source", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to read source", e.getCause());
+        }
+    }
+
+    private static void write(CountingOutputStream out, Entry entry, boolean first, boolean last, Chunk chunk) throws IOException {
+        if (first) {
+            entry.offset = out.getCount();
+            entry.descriptor = !last;
+            /* decided before the compressed size is known, so from the largest it can be */
+            entry.zip64 = entry.descriptor && compressedBound(entry.size) >= ZIP64_LIMIT;
+            if (!entry.descriptor) {
+                entry.crc = chunk.crc;
+                entry.compressedSize = chunk.data.length;
+                entry.uncompressedSize = chunk.size;
+            }
+            writeLocalHeader(out, entry);
+        }
+        out.write(chunk.data);
+        if (entry.descriptor) {
+            entry.crc = crc32Combine(entry.crc, chunk.crc, chunk.size);
+            entry.compressedSize += chunk.data.length;
+            entry.uncompressedSize += chunk.size;
+            if (last) {
+                ByteBuffer header = header(24)
+                        .putInt(0x08074b50)
+                        .putInt((int) entry.crc);
+                if (entry.zip64) {
+                    header.putLong(entry.compressedSize).putLong(entry.uncompressedSize);
+                } else if (entry.compressedSize >= ZIP64_LIMIT || entry.uncompressedSize >= ZIP64_LIMIT) {
+                    throw new IOException("Size of " + entry.name + " exceeds its data descriptor");
+                } else {
+                    header.putInt((int) entry.compressedSize).putInt((int) entry.uncompressedSize);
+                }
+                out.write(header.array(), 0, header.position());
+            }
+        }
+    }
+
+    /**
+     * @return the largest compressed size of a file: zlib's deflateBound for each chunk (incompressible data being
+     * written as stored blocks), plus the empty block of the sync flush ending each chunk
+     */
+    static long compressedBound(long size) {
+        long chunks = size / CHUNK_SIZE + 1;
+        return size + (size >> 12) + (size >> 14) + (size >> 25) + chunks * (13 + 5);
+    }
+
+    private static void writeLocalHeader(OutputStream out, Entry entry) throws IOException {
+        byte[] name = entry.name.getBytes(UTF_8);
+        ByteBuffer header = header(30 + name.length + 20)
+                .putInt(0x04034b50)
+                .putShort((short) (entry.zip64 ? 45 : 20))
+                .putShort((short) (entry.descriptor ? 0x0808 : 0x0800))
+                .putShort((short) Deflater.DEFLATED)
+                .putInt(entry.time)
+                .putInt((int) entry.crc)
+                .putInt(entry.zip64 ? (int) ZIP64_LIMIT : (int) entry.compressedSize)
+                .putInt(entry.zip64 ? (int) ZIP64_LIMIT : (int) entry.uncompressedSize)
+                .putShort((short) name.length)
+                .putShort((short) (entry.zip64 ? 20 : 0))
+                .put(name);
+        if (entry.zip64) {
+            /* sizes are in the data descriptor */
+            header.putShort((short) 0x0001).putShort((short) 16).putLong(0).putLong(0);
+        }
+        out.write(header.array(), 0, header.position());
+    }
+
+    private static void writeCentralDirectory(CountingOutputStream out, List<Entry> entries) throws IOException {
+        long start = out.getCount();
+        for (Entry entry : entries) {
+            byte[] name = entry.name.getBytes(UTF_8);
+            ByteBuffer extra = header(28);
+            if (entry.uncompressedSize >= ZIP64_LIMIT) {
+                extra.putLong(entry.uncompressedSize);
+            }
+            if (entry.compressedSize >= ZIP64_LIMIT) {
+                extra.putLong(entry.compressedSize);
+            }
+            if (entry.offset >= ZIP64_LIMIT) {
+                extra.putLong(entry.offset);
+            }
+            boolean zip64 = extra.position() > 0;
+            ByteBuffer header = header(46 + name.length + 4 + extra.position())
+                    .putInt(0x02014b50)
+                    .putShort((short) 45)
+                    .putShort((short) (zip64 || entry.zip64 ? 45 : 20))
+                    .putShort((short) (entry.descriptor ? 0x0808 : 0x0800))
+                    .putShort((short) Deflater.DEFLATED)
+                    .putInt(entry.time)
+                    .putInt((int) entry.crc)
+                    .putInt((int) Math.min(entry.compressedSize, ZIP64_LIMIT))
+                    .putInt((int) Math.min(entry.uncompressedSize, ZIP64_LIMIT))
+                    .putShort((short) name.length)
+                    .putShort((short) (zip64 ? 4 + extra.position() : 0))
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putInt(0)
+                    .putInt((int) Math.min(entry.offset, ZIP64_LIMIT))
+                    .put(name);
+            if (zip64) {
+                header.putShort((short) 0x0001).putShort((short) extra.position()).put(extra.array(), 0, extra.position());
+            }
+            out.write(header.array(), 0, header.position());
+        }
+        long size = out.getCount() - start;
+
+        if (entries.size() >= ZIP64_ENTRIES || start >= ZIP64_LIMIT || size >= ZIP64_LIMIT) {
+            long record = out.getCount();
+            ByteBuffer header = header(76)
+                    .putInt(0x06064b50)
+                    .putLong(44)
+                    .putShort((short) 45)
+                    .putShort((short) 45)
+                    .putInt(0)
+                    .putInt(0)
+                    .putLong(entries.size())
+                    .putLong(entries.size())
+                    .putLong(size)
+                    .putLong(start)
+                    /* locator */
+                    .putInt(0x07064b50)
+                    .putInt(0)
+                    .putLong(record)
+                    .putInt(1);
+            out.write(header.array(), 0, header.position());
+        }
+        ByteBuffer header = header(22)
+                .putInt(0x06054b50)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) Math.min(entries.size(), ZIP64_ENTRIES))
+                .putShort((short) Math.min(entries.size(), ZIP64_ENTRIES))
+                .putInt((int) Math.min(size, ZIP64_LIMIT))
+                .putInt((int) Math.min(start, ZIP64_LIMIT))
+                .putShort((short) 0);
+        out.write(header.array(), 0, header.position());
+    }
+
+    private static ByteBuffer header(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return MS-DOS date (high word) and time (low word) of a timestamp
+     */
+    private static int dosTime(long millis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16
+                | time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+    }
+
+    /**
+     * CRC-32 of the concatenation of two blocks, from the CRC-32 of each block (as in zlib's crc32_combine)
+     *
+     * @param written length of the second block
+     */
+    static long crc32Combine(long crc1, long crc2, long written) {
+        if (written <= 0) {
+            return crc1;
+        }
+        long[] even = new long[32];
+        long[] odd = new long[32];
+        odd[0] = 0xedb88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((written & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            written >>= 1;
+            if (written == 0) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if ((written & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            written >>= 1;
+        } while (written != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(matrix, matrix[n]);
+        }
+    }
+
+    private static class Exclude {
+        private final PathMatcher matcher;
+        private final boolean byPath;
+
+        Exclude(String pattern) {
+            this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+            this.byPath = pattern.contains("/");
+        }
+    }
+
+    private static class Entry {
+        private final Path path;
+        private final String name;
+        private final long size;
+        private final int time;
+        private long offset;
+        private boolean descriptor;
+        private boolean zip64;
+        private long crc;
+        private long compressedSize;
+        private long uncompressedSize;
+
+        Entry(Path path, String name, long size, int time) {
+            this.path = path;
+            this.name = name;
+            this.size = size;
+            this.time = time;
+        }
+    }
+
+    private static class Pending {
+        private final Entry entry;
+        private final boolean first;
+        private final boolean last;
+        private final Future<Chunk> chunk;
+
+        Pending(Entry entry, boolean first, boolean last, Future<Chunk> chunk) {
+            this.entry = entry;
+            this.first = first;
+            this.last = last;
+            this.chunk = chunk;
+        }
+    }
+
+    private static class Chunk {
+        private final byte[] data;
+        private final int size;
+        private final long crc;
+        private final HashCode hash;
+
+        Chunk(byte[] data, int size, long crc, HashCode hash) {
+            this.data = data;
+            this.size = size;
+            this.crc = crc;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.dto.cx.CxScanParams;
+import com.checkmarx.sdk.utils.ScanUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Scans of source archives and directories by content hash, so a scan of source identical to that of a finished scan
+ * can reuse the results of that scan.
+ * <p>
+ * The hash covers the content of the source (an archive file, or the names, sizes and content of the files of a
+ * directory left after the excludes) along with the server, team, project, preset, configuration, excludes and scan
+ * type, so a scan is only reused for the same project and settings.  The source is hashed before the scan, so a
+ * reused scan skips both the upload and the scan.  Entries expire after the source dedup TTL (minutes, 0 to disable
+ * the dedup).  When a source dedup file is configured, the entries are persisted to it so they survive restarts.
+ * Lookups are counted in the checkmarx.source.dedup metric (tagged with hit/miss), and the hit rate is published as
+ * the checkmarx.source.dedup.ratio gauge.
+ */
+class CxSourceDedup {
+
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(CxSourceDedup.class);
+    private final CxProperties cxProperties;
+    private final ExecutorService executor;
+    private final Map<String, Scan> scans = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param executor executor the files of a source directory are hashed on
+     */
+    CxSourceDedup(CxProperties cxProperties, ExecutorService executor) {
+        this.cxProperties = cxProperties;
+        this.executor = executor;
+        Metrics.gauge("checkmarx.source.dedup.ratio", this, CxSourceDedup::getHitRatio);
+        load();
+    }
+
+    /**
+     * Hash the source of a scan: the content of an archive file, or the files of a directory as they would be archived
+     * (see {@link CxSourceArchive#hash()})
+     *
+     * @return hash of the source, or null if the dedup is disabled or does not apply (i.e. to a git source or a forced
+     * scan)
+     */
+    HashCode hashSource(CxScanParams params) throws IOException {
+        if (!isApplicable(params)) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        File source = new File(params.getFilePath());
+        HashCode hash;
+        if (source.isDirectory()) {
+            hash = new CxSourceArchive(source, params.getFolderExclude(), params.getFileExclude(), executor,
+                    cxProperties.getSourceCompressionConcurrency()).hash();
+        } else {
+            hash = com.google.common.io.Files.asByteSource(source).hash(Hashing.sha256());
+        }
+        log.debug("Hashed source {} in {}ms: {}", source, System.currentTimeMillis() - start, hash);
+        return hash;
+    }
+
+    /**
+     * @param source hash of the source (see {@link #hashSource(CxScanParams)})
+     * @return hash of the source and settings of a scan, or null if the dedup is disabled or does not apply
+     */
+    String hash(CxScanParams params, HashCode source) {
+        if (!isApplicable(params) || source == null) {
+            return null;
+        }
+        Hasher hasher = Hashing.sha256().newHasher();
+        put(hasher, cxProperties.getUrl());
+        put(hasher, ScanUtils.empty(params.getTeamId()) ? params.getTeamName() : params.getTeamId());
+        put(hasher, params.getProjectId() == null ? params.getProjectName() : params.getProjectId().toString());
+        put(hasher, params.getScanPreset());
+        put(hasher, params.getScanConfiguration());
+        put(hasher, String.valueOf(params.isIncremental()));
+        put(hasher, params.getFolderExclude());
+        put(hasher, params.getFileExclude());
+        return hasher.putBytes(source.asBytes()).hash().toString();
+    }
+
+    /**
+     * Find the scan of an identical source
+     *
+     * @param hash hash of the source and settings
+     * @param finished checks that the scan is still available and finished
+     * @return the scan, or null if not found
+     */
+    Scan lookup(String hash, Predicate<Scan> finished) {
+        Scan scan = scans.get(hash);
+        if (scan != null && (isExpired(scan) || !finished.test(scan))) {
+            forget(hash);
+            scan = null;
+        }
+        (scan == null ? misses : hits).incrementAndGet();
+        Metrics.counter("checkmarx.source.dedup", "result", scan == null ? "miss" : "hit").increment();
+        return scan;
+    }
+
+    /**
+     * Record the finished scan of a source
+     */
+    void record(String hash, Integer projectId, Integer scanId) {
+        scans.put(hash, new Scan(projectId, scanId, System.currentTimeMillis()));
+        save();
+    }
+
+    void forget(String hash) {
+        if (scans.remove(hash) != null) {
+            save();
+        }
+    }
+
+    /**
+     * @return share of the lookups that found a scan, or 0 before any lookup
+     */
+    double getHitRatio() {
+        long hit = hits.get();
+        long total = hit + misses.get();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private boolean isApplicable(CxScanParams params) {
+        return isEnabled() && params.getSourceType() == CxScanParams.Type.FILE && !params.isForceScan();
+    }
+
+    private boolean isEnabled() {
+        return cxProperties.getSourceDedupTtl() != null && cxProperties.getSourceDedupTtl() > 0;
+    }
+
+    private boolean isExpired(Scan scan) {
+        return !isEnabled() || System.currentTimeMillis() - scan.getRecorded() >= TimeUnit.MINUTES.toMillis(cxProperties.getSourceDedupTtl());
+    }
+
+    private static void put(Hasher hasher, String value) {
+        hasher.putString(value == null ? "" : value, UTF_8).putByte((byte) 0);
+    }
+
+    private static void put(Hasher hasher, List<String> values) {
+        put(hasher, values == null ? null : String.join(",", values));
+    }
+
+    private synchronized void save() {
+        String dedupFile = cxProperties.getSourceDedupFile();
+        if (ScanUtils.empty(dedupFile)) {
+            return;
+        }
+        File file = new File(dedupFile);
+        try {
+            File tmp = new File(file.getPath().concat(".tmp"));
+            objectMapper.writeValue(tmp, new HashMap<>(scans));
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to write source dedup file {}: {}", dedupFile, ExceptionUtils.getMessage(e));
+        }
+    }
+
+    private void load() {
+        String dedupFile = cxProperties.getSourceDedupFile();
+        if (!isEnabled() || ScanUtils.empty(dedupFile) || !new File(dedupFile).isFile()) {
+            return;
+        }
+        try {
+            Map<String, Scan> cached = objectMapper.readValue(new File(dedupFile),
+                    new TypeReference<Map<String, Scan>>() {
+                    });
+            cached.values().removeIf(this::isExpired);
+            scans.putAll(cached);
+            log.debug("Loaded {} source hashes from {}", cached.size(), dedupFile);
+        } catch (IOException e) {
+            log.warn("Unable to read source dedup file {}: {}", dedupFile, ExceptionUtils.getMessage(e));
+        }
+    }
+
+    /**
+     * Finished scan of a source
+     */
+    public static class Scan {
+        private Integer projectId;
+        private Integer scanId;
+        private long recorded;
+
+        public Scan() {
+        }
+
+        Scan(Integer projectId, Integer scanId, long recorded) {
+            this.projectId = projectId;
+            this.scanId = scanId;
+            this.recorded = recorded;
+        }
+
+        public Integer getProjectId() {
+            return projectId;
+        }
+
+        public void setProjectId(Integer projectId) {
+            this.projectId = projectId;
+        }
+
+        public Integer getScanId() {
+            return scanId;
+        }
+
+        public void setScanId(Integer scanId) {
+            this.scanId = scanId;
+        }
+
+        public long getRecorded() {
+            return recorded;
+        }
+
+        public void setRecorded(long recorded) {
+            this.recorded = recorded;
+        }
+    }
+}
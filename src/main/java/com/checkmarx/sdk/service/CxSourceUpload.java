@@ -0,0 +1,165 @@
+package com.checkmarx.sdk.service;
+
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.web.client.RequestCallback;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes a source archive as a multipart/form-data request body, copying it from disk to the connection in small
+ * chunks so the archive is never held in memory (with a request factory that does not buffer request bodies).
+ * <p>
+ * For an archive file, the Content-Length is calculated up front, so the body is not sent chunked.  A
+ * {@link CxSourceArchive} of a directory is packaged while it is written, so its size is not known in advance and the
+ * body is sent chunked.  Progress is reported to the {@link UploadListener}, and the upload size, time and rate are
+ * recorded in the checkmarx.upload.bytes, checkmarx.upload and checkmarx.upload.rate (bytes/sec) metrics.
+ */
+class CxSourceUpload implements RequestCallback {
+
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(CxSourceUpload.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long PROGRESS_INTERVAL = 1024 * 1024;
+    private final HttpHeaders headers;
+    private final String partName;
+    private final File file;
+    private final CxSourceArchive archive;
+    private final UploadListener listener;
+    private final String boundary = UUID.randomUUID().toString();
+
+    CxSourceUpload(HttpHeaders headers, String partName, File file, UploadListener listener) {
+        this.headers = headers;
+        this.partName = partName;
+        this.file = file;
+        this.archive = null;
+        this.listener = listener;
+    }
+
+    CxSourceUpload(HttpHeaders headers, String partName, CxSourceArchive archive, UploadListener listener) {
+        this.headers = headers;
+        this.partName = partName;
+        this.file = null;
+        this.archive = archive;
+        this.listener = listener;
+    }
+
+    @Override
+    public void doWithRequest(ClientHttpRequest request) throws IOException {
+        String fileName = file != null ? file.getName() : archive.getName();
+        byte[] preamble = ("--" + boundary + "\r\n"
+                + "Content-Disposition: " + contentDisposition(partName, fileName) + "\r\n"
+                + "Content-Type: " + MediaType.APPLICATION_OCTET_STREAM_VALUE + "\r\n\r\n").getBytes(UTF_8);
+        byte[] epilogue = ("\r\n--" + boundary + "--\r\n").getBytes(US_ASCII);
+
+        request.getHeaders().putAll(headers);
+        request.getHeaders().setContentType(new MediaType(MediaType.MULTIPART_FORM_DATA, Collections.singletonMap("boundary", boundary)));
+        if (file != null) {
+            request.getHeaders().setContentLength(preamble.length + file.length() + epilogue.length);
+        }
+        if (request instanceof StreamingHttpOutputMessage) {
+            ((StreamingHttpOutputMessage) request).setBody(out -> write(out, preamble, epilogue));
+        } else {
+            write(request.getBody(), preamble, epilogue);
+        }
+    }
+
+    /**
+     * @return the Content-Disposition of the part, with the names as quoted strings: quotes and backslashes are
+     * escaped, and line breaks (which cannot be escaped) replaced, so any file name keeps the part header intact
+     */
+    static String contentDisposition(String name, String fileName) {
+        return "form-data; name=" + quote(name) + "; filename=" + quote(fileName);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c == '\r' || c == '\n') {
+                quoted.append('_');
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private void write(OutputStream out, byte[] preamble, byte[] epilogue) throws IOException {
+        long start = System.currentTimeMillis();
+        out.write(preamble);
+        Progress progress = new Progress(out, file != null ? file.length() : -1);
+        if (file != null) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = new FileInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    progress.write(buffer, 0, read);
+                }
+            }
+        } else {
+            archive.writeTo(progress);
+        }
+        out.write(epilogue);
+        out.flush();
+        long sent = progress.sent;
+        if (listener != null) {
+            listener.onProgress(sent, progress.total);
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        long rate = sent * 1000 / elapsed;
+        Metrics.counter("checkmarx.upload.bytes").increment(sent);
+        Metrics.timer("checkmarx.upload").record(elapsed, TimeUnit.MILLISECONDS);
+        Metrics.summary("checkmarx.upload.rate").record(rate);
+        log.info("Uploaded {} bytes in {}ms ({} KB/s)", sent, elapsed, rate / 1024);
+    }
+
+    /**
+     * Counts the bytes of the archive written to the connection, notifying the listener about every MB
+     */
+    private class Progress extends FilterOutputStream {
+        private final long total;
+        private long sent;
+        private long nextProgress = PROGRESS_INTERVAL;
+
+        Progress(OutputStream out, long total) {
+            super(out);
+            this.total = total;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            sent += len;
+            if (listener != null && sent >= nextProgress) {
+                listener.onProgress(sent, total);
+                nextProgress = sent + PROGRESS_INTERVAL;
+            }
+        }
+
+        @Override
+        public void close() {
+            /* the connection is closed once the epilogue is written */
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.checkmarx.sdk.service;
+
+import com.google.common.collect.Interner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Canonical instances of the strings of a report (query names, severities, languages, categories, file names, line
+ * numbers...), so the issues mapped from a report share a single copy of each distinct value rather than a copy per
+ * result.
+ * <p>
+ * A pool is used by the mapping of a single report, and is not thread safe.  When a global interner is given,
+ * strings new to the pool are canonicalized through it, so results of different reports held at the same time share
+ * their strings too.
+ */
+class CxStringPool {
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final Interner<String> global;
+
+    /**
+     * @param global interner shared by all reports, or null to only share strings within the report
+     */
+    CxStringPool(Interner<String> global) {
+        this.global = global;
+    }
+
+    /**
+     * @return the canonical instance of the value
+     */
+    String get(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = strings.get(value);
+        if (pooled == null) {
+            pooled = global == null ? value : global.intern(value);
+            strings.put(pooled, pooled);
+        }
+        return pooled;
+    }
+
+    /**
+     * @return number of distinct strings in the pool
+     */
+    int size() {
+        return strings.size();
+    }
+}
@@ -0,0 +1,181 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.dto.cx.CxTeam;
+import com.checkmarx.sdk.exception.CheckmarxException;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory tree of the Checkmarx teams, indexed by id and walked by path.
+ * <p>
+ * Paths are split on both the 8.x and 9.x team path separators, so a team can be found by either form of its full
+ * name, and a lookup costs one map access per path element.  The tree is built from the full names, so parent/child
+ * relationships are available for 8.x servers, which do not return the parent id.
+ * <p>
+ * The teams are reloaded once older than the team cache TTL (minutes, 0 to always reload) and after any change
+ * made through {@link #invalidate()}.  Concurrent lookups on an expired directory share a single reload.
+ */
+class CxTeamDirectory {
+
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(CxTeamDirectory.class);
+    private final CxProperties cxProperties;
+    private final Loader loader;
+    private final Object lock = new Object();
+    private volatile Snapshot snapshot;
+
+    CxTeamDirectory(CxProperties cxProperties, Loader loader) {
+        this.cxProperties = cxProperties;
+        this.loader = loader;
+    }
+
+    /**
+     * @param teamPath full name of the team, using either path separator
+     * @return the team, or null if not found
+     */
+    CxTeam getByPath(String teamPath) throws CheckmarxException {
+        Node node = current().find(teamPath);
+        return node == null ? null : node.team;
+    }
+
+    /**
+     * @return the team, or null if not found
+     */
+    CxTeam getById(String teamId) throws CheckmarxException {
+        Node node = current().byId.get(teamId);
+        return node == null ? null : node.team;
+    }
+
+    /**
+     * @param parentTeamId id of the parent team
+     * @param teamName short name of the team
+     * @return the team, or null if not found
+     */
+    CxTeam getChild(String parentTeamId, String teamName) throws CheckmarxException {
+        Node parent = current().byId.get(parentTeamId);
+        if (parent == null) {
+            return null;
+        }
+        Node node = parent.children.get(teamName);
+        return node == null ? null : node.team;
+    }
+
+    /**
+     * @return all teams below the given team, or an empty list if the team is not found
+     */
+    List<CxTeam> getDescendants(String teamId) throws CheckmarxException {
+        Node node = current().byId.get(teamId);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<CxTeam> descendants = new ArrayList<>();
+        collect(node, descendants);
+        return descendants;
+    }
+
+    /**
+     * Replace the directory with a list of teams that has just been retrieved
+     */
+    void update(List<CxTeam> teams) {
+        snapshot = new Snapshot(teams);
+    }
+
+    /**
+     * Discard the directory, so the next lookup reloads the teams
+     */
+    void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot current() throws CheckmarxException {
+        Snapshot s = snapshot;
+        if (s != null && !s.isExpired()) {
+            return s;
+        }
+        synchronized (lock) {
+            /* reloaded by another thread while waiting */
+            if (snapshot != null && snapshot != s && !snapshot.isExpired()) {
+                return snapshot;
+            }
+            long start = System.currentTimeMillis();
+            Snapshot loaded = new Snapshot(loader.load());
+            log.debug("Loaded {} teams in {}ms", loaded.byId.size(), System.currentTimeMillis() - start);
+            snapshot = loaded;
+            return loaded;
+        }
+    }
+
+    private static void collect(Node node, List<CxTeam> teams) {
+        for (Node child : node.children.values()) {
+            if (child.team != null) {
+                teams.add(child.team);
+            }
+            collect(child, teams);
+        }
+    }
+
+    private static String[] split(String path) {
+        List<String> names = new ArrayList<>();
+        for (String name : path.split("[\\\\/]")) {
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    @FunctionalInterface
+    interface Loader {
+        List<CxTeam> load() throws CheckmarxException;
+    }
+
+    private class Snapshot {
+        private final long loaded = System.currentTimeMillis();
+        private final Map<String, Node> byId = new HashMap<>();
+        private final Node root = new Node();
+
+        Snapshot(List<CxTeam> teams) {
+            for (CxTeam team : teams) {
+                if (team.getId() == null || team.getFullName() == null) {
+                    continue;
+                }
+                Node node = root;
+                for (String name : split(team.getFullName())) {
+                    node = node.children.computeIfAbsent(name, k -> new Node());
+                }
+                node.team = team;
+                byId.put(team.getId(), node);
+            }
+        }
+
+        Node find(String path) {
+            if (path == null) {
+                return null;
+            }
+            Node node = root;
+            for (String name : split(path)) {
+                node = node.children.get(name);
+                if (node == null) {
+                    return null;
+                }
+            }
+            return node == root ? null : node;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - loaded >= TimeUnit.MINUTES.toMillis(cxProperties.getTeamCacheTtl());
+        }
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        /* null for a path element without a visible team */
+        private CxTeam team;
+    }
+}
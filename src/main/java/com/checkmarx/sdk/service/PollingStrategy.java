@@ -0,0 +1,27 @@
+package com.checkmarx.sdk.service;
+
+/**
+ * Determines how long to wait between status checks of a scan or report that is being waited on.
+ * <p>
+ * A PollingStrategy bean marked as @Primary replaces the default one.
+ *
+ * @see BackoffPollingStrategy
+ */
+public interface PollingStrategy {
+
+    enum Type {
+        SCAN,
+        REPORT
+    }
+
+    /**
+     * Delay before the next status check
+     *
+     * @param type what is being waited on
+     * @param attempts number of status checks already made
+     * @param elapsed time (ms) since the wait started
+     * @param expected estimated time (ms) until ready, or 0 if unknown
+     * @return delay (ms)
+     */
+    long nextDelay(Type type, int attempts, long elapsed, long expected);
+}
@@ -0,0 +1,47 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.dto.cx.xml.CxXMLResultsType;
+import com.checkmarx.sdk.dto.cx.xml.QueryType;
+import com.checkmarx.sdk.dto.cx.xml.ResultType;
+
+/**
+ * Callback receiving the filtered Query/Result pairs of a SAST report while it is being downloaded and parsed.
+ * <p>
+ * Each Result is only held in memory for the duration of the {@link #visitResult(QueryType, ResultType)} call.
+ *
+ * @see CxClient#streamReport(Integer, java.util.List, ResultVisitor)
+ */
+public interface ResultVisitor {
+
+    /**
+     * Called once with the report level attributes (scanId, projectId, etc), before any Query is visited
+     *
+     * @param header report attributes (no Query elements are attached)
+     */
+    default void visitHeader(CxXMLResultsType header) {
+    }
+
+    /**
+     * Called for each Query meeting the filter criteria, before any of its Results are visited
+     *
+     * @param query query attributes (no Result elements are attached)
+     */
+    default void visitQuery(QueryType query) {
+    }
+
+    /**
+     * Called for each Result meeting the filter criteria
+     *
+     * @param query parent query
+     * @param result the result
+     */
+    void visitResult(QueryType query, ResultType result);
+
+    /**
+     * Called once all Results of a visited Query have been processed
+     *
+     * @param query the query
+     */
+    default void visitQueryEnd(QueryType query) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.checkmarx.sdk.service;
+
+/**
+ * Receives the progress of a source upload.
+ *
+ * @see CxClient#uploadProjectSource(Integer, java.io.File, UploadListener)
+ */
+@FunctionalInterface
+public interface UploadListener {
+
+    /**
+     * Called as the upload progresses (about every MB, and once complete), from the uploading thread
+     *
+     * @param bytesSent bytes of the source archive written so far
+     * @param totalBytes size of the source archive, or -1 when a directory is archived as it is uploaded
+     */
+    void onProgress(long bytesSent, long totalBytes);
+}
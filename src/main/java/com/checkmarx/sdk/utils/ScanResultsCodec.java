@@ -0,0 +1,581 @@
+package com.checkmarx.sdk.utils;
+
+import com.checkmarx.sdk.dto.ScanResults;
+import com.checkmarx.sdk.dto.cx.CxScanSummary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compact, versioned binary form of {@link ScanResults}, for holding results in caches and message queues.
+ * <p>
+ * Strings that repeat across issues (vulnerability, file name, severity, language, CWE, description...) are written
+ * once and then referenced by their index in a dictionary that is built as the stream is written and read, so
+ * encoding and decoding each take a single pass.  Line numbers, counts and dictionary indexes are written as varints.
+ * Links, comments and code snippets are length prefixed, so a {@link Reader} can skip the snippets without decoding
+ * them.  The scan level fields are written before the issues, so a {@link Reader} can process the issues one at a
+ * time without holding all of them.
+ * <p>
+ * Additional details may hold Strings, Integers, Longs, Doubles, Booleans, Lists and Maps (with String keys) of
+ * these; any other value is rejected with an IllegalArgumentException.
+ */
+public final class ScanResultsCodec {
+
+    /* "CXSR" */
+    static final int MAGIC = 0x43585352;
+    static final int VERSION = 1;
+    private static final int NULL = 0;
+    private static final int LITERAL = 1;
+    private static final int STRING = 1;
+    private static final int INTEGER = 2;
+    private static final int LONG = 3;
+    private static final int TRUE = 4;
+    private static final int FALSE = 5;
+    private static final int DOUBLE = 6;
+    private static final int LIST = 7;
+    private static final int MAP = 8;
+
+    private ScanResultsCodec() {
+    }
+
+    /**
+     * @return the encoded results
+     */
+    public static byte[] encode(ScanResults results) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(results, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Write the encoded results to the stream, which is flushed but not closed
+     */
+    public static void write(ScanResults results, OutputStream out) throws IOException {
+        Encoder encoder = new Encoder(new BufferedOutputStream(out, 65536));
+        encoder.writeInt(MAGIC);
+        encoder.writeVarint(VERSION);
+        encoder.writeBoolean(results.getOsa());
+        encoder.writeString(results.getProjectId());
+        encoder.writeString(results.getTeam());
+        encoder.writeString(results.getProject());
+        encoder.writeString(results.getLink());
+        encoder.writeString(results.getFiles());
+        encoder.writeString(results.getLoc());
+        encoder.writeString(results.getScanType());
+        encoder.writeText(results.getOutput());
+        encoder.writeValue(results.getAdditionalDetails());
+        encoder.writeScanSummary(results.getScanSummary());
+        List<ScanResults.XIssue> issues = results.getXIssues();
+        encoder.writeCount(issues == null ? null : issues.size());
+        if (issues != null) {
+            for (ScanResults.XIssue issue : issues) {
+                encoder.writeIssue(issue);
+            }
+        }
+        encoder.out.flush();
+    }
+
+    /**
+     * @return the decoded results
+     * @throws IOException if the data is not encoded results, or of a later version
+     */
+    public static ScanResults decode(byte[] data) throws IOException {
+        return read(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Read encoded results from the stream
+     *
+     * @throws IOException if the stream cannot be read or does not hold encoded results of a known version
+     */
+    public static ScanResults read(InputStream in) throws IOException {
+        Reader reader = reader(in, false);
+        ScanResults results = reader.getHeader();
+        if (reader.remaining < 0) {
+            return results;
+        }
+        List<ScanResults.XIssue> issues = new ArrayList<>(reader.remaining);
+        while (reader.hasNext()) {
+            issues.add(reader.next());
+        }
+        results.setXIssues(issues);
+        return results;
+    }
+
+    /**
+     * Read encoded results from the stream, one issue at a time
+     *
+     * @param in
+     * @param skipSnippets true to skip the code snippets of the issues, which are then null
+     * @throws IOException if the stream cannot be read or does not hold encoded results of a known version
+     */
+    public static Reader reader(InputStream in, boolean skipSnippets) throws IOException {
+        return new Reader(new Decoder(new BufferedInputStream(in, 65536)), skipSnippets);
+    }
+
+    /**
+     * Reads the scan level fields of encoded results, then their issues one at a time
+     */
+    public static class Reader {
+        private final Decoder decoder;
+        private final boolean skipSnippets;
+        private final ScanResults header;
+        /* issues left to read, or -1 if the results have no issue list */
+        private int remaining;
+
+        private Reader(Decoder decoder, boolean skipSnippets) throws IOException {
+            this.decoder = decoder;
+            this.skipSnippets = skipSnippets;
+            if (decoder.readInt() != MAGIC) {
+                throw new IOException("Not encoded scan results");
+            }
+            long version = decoder.readVarint();
+            if (version > VERSION) {
+                throw new IOException("Unsupported scan results version " + version);
+            }
+            this.header = decoder.readHeader();
+            Integer count = decoder.readCount();
+            this.remaining = count == null ? -1 : count;
+        }
+
+        /**
+         * @return the scan level fields, with no issues
+         */
+        public ScanResults getHeader() {
+            return header;
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * @return the next issue
+         * @throws EOFException if there are no issues left
+         */
+        public ScanResults.XIssue next() throws IOException {
+            if (!hasNext()) {
+                throw new EOFException("No issues left");
+            }
+            remaining--;
+            return decoder.readIssue(skipSnippets);
+        }
+    }
+
+    private static class Encoder {
+        private final OutputStream out;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        Encoder(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeIssue(ScanResults.XIssue issue) throws IOException {
+            writeString(issue.getVulnerability());
+            writeString(issue.getSimilarityId());
+            writeString(issue.getCwe());
+            writeString(issue.getCve());
+            writeString(issue.getDescription());
+            writeString(issue.getLanguage());
+            writeString(issue.getSeverity());
+            writeText(issue.getLink());
+            writeString(issue.getFilename());
+            writeString(issue.getGitUrl());
+            writeVarint(issue.getFalsePositiveCount());
+            List<ScanResults.OsaDetails> osaDetails = issue.getOsaDetails();
+            writeCount(osaDetails == null ? null : osaDetails.size());
+            if (osaDetails != null) {
+                for (ScanResults.OsaDetails osa : osaDetails) {
+                    writeString(osa.getCve());
+                    writeString(osa.getDescription());
+                    writeString(osa.getRecommendation());
+                    writeString(osa.getSeverity());
+                    writeString(osa.getUrl());
+                    writeString(osa.getVersion());
+                }
+            }
+            Map<Integer, ScanResults.IssueDetails> details = issue.getDetails();
+            writeCount(details == null ? null : details.size());
+            if (details != null) {
+                for (Map.Entry<Integer, ScanResults.IssueDetails> entry : details.entrySet()) {
+                    writeNullableInt(entry.getKey());
+                    ScanResults.IssueDetails detail = entry.getValue();
+                    writeBoolean(detail == null ? null : detail.isFalsePositive());
+                    if (detail != null) {
+                        writeText(detail.getComment());
+                        writeText(detail.getCodeSnippet());
+                    }
+                }
+            }
+            writeValue(issue.getAdditionalDetails());
+        }
+
+        void writeScanSummary(CxScanSummary summary) throws IOException {
+            writeBoolean(summary == null ? null : Boolean.TRUE);
+            if (summary != null) {
+                writeNullableInt(summary.getHighSeverity());
+                writeNullableInt(summary.getMediumSeverity());
+                writeNullableInt(summary.getLowSeverity());
+                writeNullableInt(summary.getInfoSeverity());
+                writeString(summary.getStatisticsCalculationDate());
+            }
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                writeVarint(NULL);
+            } else if (value instanceof String) {
+                writeVarint(STRING);
+                writeString((String) value);
+            } else if (value instanceof Integer) {
+                writeVarint(INTEGER);
+                writeVarint(zigzag((Integer) value));
+            } else if (value instanceof Long) {
+                writeVarint(LONG);
+                writeVarint(zigzag((Long) value));
+            } else if (value instanceof Boolean) {
+                writeVarint((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Double) {
+                writeVarint(DOUBLE);
+                writeLong(Double.doubleToLongBits((Double) value));
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                writeVarint(LIST);
+                writeVarint(list.size());
+                for (Object item : list) {
+                    writeValue(item);
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                writeVarint(MAP);
+                writeVarint(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (!(entry.getKey() instanceof String)) {
+                        throw new IllegalArgumentException("Unsupported additional detail key " + entry.getKey());
+                    }
+                    writeString((String) entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported additional detail type " + value.getClass().getName());
+            }
+        }
+
+        /**
+         * Write a string as a reference to the dictionary, adding it to the dictionary on first use
+         */
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarint(NULL);
+                return;
+            }
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                writeVarint(index + 2L);
+                return;
+            }
+            dictionary.put(value, dictionary.size());
+            writeVarint(LITERAL);
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarint(bytes.length);
+            out.write(bytes);
+        }
+
+        /**
+         * Write a string that is not expected to repeat, length prefixed
+         */
+        void writeText(String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarint(bytes.length + 1L);
+            out.write(bytes);
+        }
+
+        void writeCount(Integer count) throws IOException {
+            writeVarint(count == null ? 0 : count + 1L);
+        }
+
+        void writeNullableInt(Integer value) throws IOException {
+            writeVarint(value == null ? 0 : zigzag(value) + 1);
+        }
+
+        void writeBoolean(Boolean value) throws IOException {
+            out.write(value == null ? 0 : value ? 2 : 1);
+        }
+
+        void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void writeInt(int value) throws IOException {
+            out.write(value >>> 24);
+            out.write(value >>> 16);
+            out.write(value >>> 8);
+            out.write(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static class Decoder {
+        private final InputStream in;
+        private final List<String> dictionary = new ArrayList<>();
+
+        Decoder(InputStream in) {
+            this.in = in;
+        }
+
+        ScanResults readHeader() throws IOException {
+            ScanResults results = ScanResults.builder()
+                    .osa(readBoolean())
+                    .projectId(readString())
+                    .team(readString())
+                    .project(readString())
+                    .link(readString())
+                    .files(readString())
+                    .loc(readString())
+                    .scanType(readString())
+                    .build();
+            results.setOutput(readText());
+            results.setAdditionalDetails(readMap());
+            results.setScanSummary(readScanSummary());
+            return results;
+        }
+
+        ScanResults.XIssue readIssue(boolean skipSnippets) throws IOException {
+            ScanResults.XIssue.XIssueBuilder builder = ScanResults.XIssue.builder()
+                    .vulnerability(readString())
+                    .similarityId(readString())
+                    .cwe(readString())
+                    .cve(readString())
+                    .description(readString())
+                    .language(readString())
+                    .severity(readString())
+                    .link(readText())
+                    .file(readString());
+            String gitUrl = readString();
+            int falsePositiveCount = (int) readVarint();
+            Integer osaCount = readCount();
+            if (osaCount != null) {
+                List<ScanResults.OsaDetails> osaDetails = new ArrayList<>(osaCount);
+                for (int i = 0; i < osaCount; i++) {
+                    osaDetails.add(ScanResults.OsaDetails.builder()
+                            .cve(readString())
+                            .description(readString())
+                            .recommendation(readString())
+                            .severity(readString())
+                            .url(readString())
+                            .version(readString())
+                            .build());
+                }
+                builder.osaDetails(osaDetails);
+            }
+            Integer detailCount = readCount();
+            if (detailCount != null) {
+                Map<Integer, ScanResults.IssueDetails> details = new HashMap<>();
+                for (int i = 0; i < detailCount; i++) {
+                    Integer line = readNullableInt();
+                    Boolean falsePositive = readBoolean();
+                    ScanResults.IssueDetails detail = null;
+                    if (falsePositive != null) {
+                        detail = new ScanResults.IssueDetails()
+                                .falsePositive(falsePositive)
+                                .comment(readText());
+                        if (skipSnippets) {
+                            skipText();
+                        } else {
+                            detail.setCodeSnippet(readText());
+                        }
+                    }
+                    details.put(line, detail);
+                }
+                builder.details(details);
+            }
+            builder.additionalDetails(readMap());
+            ScanResults.XIssue issue = builder.build();
+            issue.setGitUrl(gitUrl);
+            issue.setFalsePositiveCount(falsePositiveCount);
+            return issue;
+        }
+
+        CxScanSummary readScanSummary() throws IOException {
+            if (readBoolean() == null) {
+                return null;
+            }
+            CxScanSummary summary = new CxScanSummary();
+            summary.setHighSeverity(readNullableInt());
+            summary.setMediumSeverity(readNullableInt());
+            summary.setLowSeverity(readNullableInt());
+            summary.setInfoSeverity(readNullableInt());
+            summary.setStatisticsCalculationDate(readString());
+            return summary;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> readMap() throws IOException {
+            Object value = readValue();
+            if (value != null && !(value instanceof Map)) {
+                throw new IOException("Malformed scan results: additional details are not a map");
+            }
+            return (Map<String, Object>) value;
+        }
+
+        Object readValue() throws IOException {
+            int tag = (int) readVarint();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return readString();
+                case INTEGER:
+                    return (int) unzigzag(readVarint());
+                case LONG:
+                    return unzigzag(readVarint());
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case DOUBLE:
+                    return Double.longBitsToDouble(((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL));
+                case LIST:
+                    int size = (int) readVarint();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                case MAP:
+                    int entries = (int) readVarint();
+                    Map<String, Object> map = new HashMap<>();
+                    for (int i = 0; i < entries; i++) {
+                        map.put(readString(), readValue());
+                    }
+                    return map;
+                default:
+                    throw new IOException("Malformed scan results: unknown value type " + tag);
+            }
+        }
+
+        String readString() throws IOException {
+            long ref = readVarint();
+            if (ref == NULL) {
+                return null;
+            }
+            if (ref == LITERAL) {
+                String value = new String(readBytes((int) readVarint()), UTF_8);
+                dictionary.add(value);
+                return value;
+            }
+            if (ref - 2 >= dictionary.size()) {
+                throw new IOException("Malformed scan results: unknown string " + ref);
+            }
+            return dictionary.get((int) (ref - 2));
+        }
+
+        String readText() throws IOException {
+            long length = readVarint();
+            return length == 0 ? null : new String(readBytes((int) (length - 1)), UTF_8);
+        }
+
+        void skipText() throws IOException {
+            long length = readVarint();
+            long remaining = length == 0 ? 0 : length - 1;
+            while (remaining > 0) {
+                long skipped = in.skip(remaining);
+                if (skipped <= 0) {
+                    if (in.read() < 0) {
+                        throw new EOFException();
+                    }
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+        }
+
+        Integer readCount() throws IOException {
+            long count = readVarint();
+            return count == 0 ? null : (int) (count - 1);
+        }
+
+        Integer readNullableInt() throws IOException {
+            long value = readVarint();
+            return value == 0 ? null : (int) unzigzag(value - 1);
+        }
+
+        Boolean readBoolean() throws IOException {
+            int value = read();
+            return value == 0 ? null : value == 2;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed scan results: varint too long");
+        }
+
+        int readInt() throws IOException {
+            return (read() << 24) | (read() << 16) | (read() << 8) | read();
+        }
+
+        private byte[] readBytes(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int n = in.read(bytes, offset, length - offset);
+                if (n < 0) {
+                    throw new EOFException();
+                }
+                offset += n;
+            }
+            return bytes;
+        }
+
+        private int read() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            return b;
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.checkmarx.sdk.dto;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class AdditionalIssueDetailsTest {
+
+    @Test
+    public void legacyMap() {
+        AdditionalIssueDetails details = details("10", "15");
+        assertEquals("OWASP Top 10 2017;A1-Injection", details.getCategories());
+        assertEquals("10", details.getResults().get(0).getSource().getLine());
+
+        Map<String, String> source = new HashMap<>();
+        source.put("file", "src/Dao.java");
+        source.put("line", "10");
+        source.put("column", "5");
+        source.put("object", "id");
+        Map<String, String> sink = new HashMap<>(source);
+        sink.put("line", "15");
+        Map<String, Object> result = new HashMap<>();
+        result.put("state", "0");
+        result.put("source", source);
+        result.put("sink", sink);
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("categories", "OWASP Top 10 2017;A1-Injection");
+        legacy.put("recommendedFix", "https://cx.example.com/CxWebClient/ScanQueryDescription.aspx?queryID=1");
+        legacy.put("results", Collections.singletonList(result));
+        assertEquals(legacy, details);
+        assertEquals(details, legacy);
+        assertEquals(legacy.hashCode(), details.hashCode());
+
+        Map<String, Object> noPath = new AdditionalIssueDetails.ResultState("1", null, null).toMap();
+        assertEquals(Collections.singletonMap("state", "1"), noPath);
+    }
+
+    @Test
+    public void typedGettersAfterMap() {
+        AdditionalIssueDetails details = details("10", "15");
+        assertEquals(3, details.size());
+        /* served from the map once it is built, including changes made through it */
+        assertEquals("15", details.getResults().get(0).getSink().getLine());
+        assertEquals("id", details.getResults().get(0).getSource().getObject());
+        details.put(AdditionalIssueDetails.CATEGORIES, "CWE;89");
+        assertEquals("CWE;89", details.getCategories());
+        assertEquals("https://cx.example.com/CxWebClient/ScanQueryDescription.aspx?queryID=1", details.getRecommendedFix());
+        details.merge(details("20", "25"));
+        assertEquals("20", details.getResults().get(1).getSource().getLine());
+        assertNull(new AdditionalIssueDetails.ResultState("1", null, null).toMap().get("source"));
+        assertNull(AdditionalIssueDetails.ResultState.of(Collections.singletonMap("state", "1")).getSource());
+    }
+
+    @Test
+    public void merge() {
+        AdditionalIssueDetails details = details("10", "15");
+        details.merge(details("20", "25"));
+        assertEquals(2, details.getResults().size());
+        assertEquals(2, ((List<?>) details.get("results")).size());
+
+        /* results merged once the map is built are added to it too */
+        details.merge(details("30", "35"));
+        assertEquals(3, details.getResults().size());
+        List<?> results = (List<?>) details.get("results");
+        assertEquals(3, results.size());
+        assertEquals("30", ((Map<?, ?>) ((Map<?, ?>) results.get(2)).get("source")).get("line"));
+    }
+
+    private static AdditionalIssueDetails details(String sourceLine, String sinkLine) {
+        AdditionalIssueDetails.ResultState result = new AdditionalIssueDetails.ResultState("0",
+                new AdditionalIssueDetails.SourceSink("src/Dao.java", sourceLine, "5", "id"),
+                new AdditionalIssueDetails.SourceSink("src/Dao.java", sinkLine, "5", "id"));
+        return new AdditionalIssueDetails("OWASP Top 10 2017;A1-Injection",
+                "https://cx.example.com/CxWebClient/ScanQueryDescription.aspx?queryID=1",
+                Collections.singletonList(result));
+    }
+}
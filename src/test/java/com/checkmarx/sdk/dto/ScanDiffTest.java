@@ -0,0 +1,90 @@
+package com.checkmarx.sdk.dto;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class ScanDiffTest {
+
+    @Test
+    public void compare() {
+        ScanResults.XIssue sqlInjection = issue("SQL_Injection", "100", "src/Dao.java");
+        ScanResults.XIssue xss = issue("Reflected_XSS", "200", "src/View.java");
+        ScanResults.XIssue xssMoved = issue("Reflected_XSS", "200", "src/Page.java");
+        ScanResults.XIssue noSimilarity = issue("Hardcoded_Password", null, "src/Config.java");
+        ScanResults.XIssue pathTraversal = issue("Path_Traversal", "300", "src/Files.java");
+
+        ScanResults baseline = results(sqlInjection, xss, noSimilarity);
+        ScanResults current = results(issue("SQL_Injection", "100", "src/Dao.java"), xssMoved,
+                issue("Hardcoded_Password", null, "src/Config.java"), pathTraversal);
+
+        ScanDiff diff = ScanDiff.compare(baseline, current);
+        assertEquals(Arrays.asList(xssMoved, pathTraversal), diff.getNewIssues());
+        assertEquals(Arrays.asList(xss), diff.getResolvedIssues());
+        assertEquals(2, diff.getRecurringCount());
+        assertEquals("100", diff.getRecurringIssues().get(0).getSimilarityId());
+
+        /* each baseline issue only matches once */
+        diff = ScanDiff.compare(results(sqlInjection), results(issue("SQL_Injection", "100", "src/Dao.java"),
+                issue("SQL_Injection", "100", "src/Dao.java")));
+        assertEquals(1, diff.getNewIssues().size());
+        assertEquals(1, diff.getRecurringCount());
+        assertTrue(diff.getResolvedIssues().isEmpty());
+
+        diff = ScanDiff.compare(null, baseline);
+        assertEquals(3, diff.getNewIssues().size());
+    }
+
+    @Test
+    public void compareMergedIssues() {
+        /* merged issues keep the similarity id of their first result only */
+        ScanResults.XIssue baselineIssue = issue("SQL_Injection", "100", "src/Dao.java", 10, 20, 30);
+        ScanResults.XIssue currentIssue = issue("SQL_Injection", "200", "src/Dao.java", 20, 30, 40);
+        currentIssue.getDetails().get(40).setFalsePositive(true);
+        ScanResults.XIssue unchanged = issue("Reflected_XSS", "300", "src/View.java", 5);
+
+        ScanDiff diff = ScanDiff.compare(results(baselineIssue, unchanged),
+                results(currentIssue, issue("Reflected_XSS", "400", "src/View.java", 5)));
+        assertEquals(1, diff.getNewIssues().size());
+        ScanResults.XIssue added = diff.getNewIssues().get(0);
+        assertEquals("src/Dao.java", added.getFilename());
+        assertEquals(Collections.singleton(40), added.getDetails().keySet());
+        assertEquals(1, added.getFalsePositiveCount());
+
+        assertEquals(1, diff.getResolvedIssues().size());
+        assertEquals(Collections.singleton(10), diff.getResolvedIssues().get(0).getDetails().keySet());
+
+        assertEquals(2, diff.getRecurringCount());
+        assertEquals(new HashSet<>(Arrays.asList(20, 30)), diff.getRecurringIssues().get(0).getDetails().keySet());
+        assertEquals(0, diff.getRecurringIssues().get(0).getFalsePositiveCount());
+        assertEquals("400", diff.getRecurringIssues().get(1).getSimilarityId());
+    }
+
+    private static ScanResults.XIssue issue(String vulnerability, String similarityId, String file, int... lines) {
+        ScanResults.XIssue issue = issue(vulnerability, similarityId, file);
+        for (int line : lines) {
+            issue.getDetails().put(line, new ScanResults.IssueDetails());
+        }
+        return issue;
+    }
+
+    private static ScanResults.XIssue issue(String vulnerability, String similarityId, String file) {
+        return ScanResults.XIssue.builder()
+                .vulnerability(vulnerability)
+                .similarityId(similarityId)
+                .file(file)
+                .details(new HashMap<>())
+                .build();
+    }
+
+    private static ScanResults results(ScanResults.XIssue... issues) {
+        ScanResults results = new ScanResults();
+        results.setXIssues(Arrays.asList(issues));
+        return results;
+    }
+}
@@ -0,0 +1,74 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.dto.cx.CxAuthResponse;
+import org.junit.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CxAuthServiceTest {
+
+    @Test
+    public void createAuthHeadersSingleLogin() {
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        AtomicInteger logins = new AtomicInteger();
+        when(restTemplate.postForObject(anyString(), any(HttpEntity.class), eq(CxAuthResponse.class))).thenAnswer(i -> {
+            Thread.sleep(200);
+            return new CxAuthResponse("token" + logins.incrementAndGet(), 3600L, "Bearer");
+        });
+        CxAuthService service = new CxAuthService(properties(), mock(CxLegacyService.class), restTemplate);
+
+        List<CompletableFuture<HttpHeaders>> headers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            headers.add(CompletableFuture.supplyAsync(service::createAuthHeaders));
+        }
+        for (CompletableFuture<HttpHeaders> h : headers) {
+            assertEquals("Bearer token1", h.join().getFirst(HttpHeaders.AUTHORIZATION));
+        }
+        assertEquals(1, logins.get());
+        assertEquals("token1", service.getCurrentToken());
+    }
+
+    @Test
+    public void refreshBeforeExpiry() throws Exception {
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        AtomicInteger logins = new AtomicInteger();
+        when(restTemplate.postForObject(anyString(), any(HttpEntity.class), eq(CxAuthResponse.class))).thenAnswer(i ->
+                new CxAuthResponse("token" + logins.incrementAndGet(), 600L, "Bearer"));
+        CxProperties properties = properties();
+        /* token is considered expired after 100 seconds (600 - 500), refreshed 99 seconds ahead of that */
+        properties.setTokenRefreshAhead(99);
+        CxAuthService service = new CxAuthService(properties, mock(CxLegacyService.class), restTemplate);
+
+        assertEquals("Bearer token1", service.createAuthHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        for (int i = 0; i < 50 && logins.get() < 2; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(2, logins.get());
+        assertEquals("token2", service.getCurrentToken());
+        /* not used since the refresh, so it is left to expire */
+        Thread.sleep(1500);
+        assertEquals(2, logins.get());
+    }
+
+    private static CxProperties properties() {
+        CxProperties properties = new CxProperties();
+        properties.setUrl("http://localhost");
+        properties.setUsername("user");
+        properties.setPassword("password");
+        properties.setClientId("resource_owner_client");
+        return properties;
+    }
+}
@@ -0,0 +1,40 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.dto.cx.CxPreset;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CxCatalogTest {
+
+    @Test
+    public void getId() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CxCatalog<CxPreset> catalog = new CxCatalog<>("presets", new CxProperties(), () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(preset(1, "Checkmarx Default"), preset(2, "All"), preset(3, "ALL"));
+        }, CxPreset::getName, CxPreset::getId);
+
+        assertEquals(Integer.valueOf(1), catalog.getId("checkmarx default"));
+        assertEquals(Integer.valueOf(2), catalog.getId("all"));
+        assertNull(catalog.getId("OWASP"));
+        assertNull(catalog.getId(null));
+        assertEquals(3, catalog.getAll().size());
+        assertEquals(1, loads.get());
+
+        catalog.invalidate();
+        assertEquals(Integer.valueOf(1), catalog.getId("CHECKMARX DEFAULT"));
+        assertEquals(2, loads.get());
+    }
+
+    private static CxPreset preset(Integer id, String name) {
+        CxPreset preset = new CxPreset();
+        preset.setId(id);
+        preset.setName(name);
+        return preset;
+    }
+}
@@ -0,0 +1,117 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class CxDescriptionServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void getQueryDescription() throws Exception {
+        File cacheFile = new File(folder.getRoot(), "descriptions.json");
+        CxProperties properties = new CxProperties();
+        properties.setQueryDescriptionCacheFile(cacheFile.getPath());
+        CxLegacyService legacyService = mock(CxLegacyService.class);
+        when(legacyService.getQueryDescription("session", 100)).thenReturn("SQL Injection description");
+
+        CxDescriptionService service = new CxDescriptionService(legacyService, properties);
+        assertEquals("SQL Injection description", service.getQueryDescription("session", 100, "1").join());
+        assertEquals("SQL Injection description", service.getQueryDescription("session", 100, "1").join());
+        verify(legacyService, times(1)).getQueryDescription("session", 100);
+        service.saveQueryDescriptions();
+        assertTrue(cacheFile.isFile());
+
+        /* cache is reloaded from the file, and replaced once the query version changes */
+        CxLegacyService reloadedLegacyService = mock(CxLegacyService.class);
+        when(reloadedLegacyService.getQueryDescription("session", 100)).thenReturn("Updated description");
+        CxDescriptionService reloaded = new CxDescriptionService(reloadedLegacyService, properties);
+        reloaded.loadQueryDescriptions();
+        assertEquals("SQL Injection description", reloaded.getQueryDescription("session", 100, "1").join());
+        verify(reloadedLegacyService, never()).getQueryDescription("session", 100);
+        assertEquals("Updated description", reloaded.getQueryDescription("session", 100, "2").join());
+        verify(reloadedLegacyService, times(1)).getQueryDescription("session", 100);
+    }
+
+    @Test
+    public void getDescription() {
+        CxProperties properties = new CxProperties();
+        properties.setQueryDescriptionCacheFile(null);
+        CxLegacyService legacyService = mock(CxLegacyService.class);
+        when(legacyService.getDescription("session", 1L, 2L)).thenReturn("description");
+        when(legacyService.getDescription("session", 1L, 3L)).thenThrow(new NullPointerException());
+
+        CxDescriptionService service = new CxDescriptionService(legacyService, properties);
+        assertEquals("description", service.getDescription("session", 1L, 2L).join());
+        assertEquals("description", service.getDescription("session", 1L, 2L).join());
+        assertEquals("", service.getDescription("session", 1L, 3L).join());
+        verify(legacyService, times(1)).getDescription("session", 1L, 2L);
+    }
+
+    @Test
+    public void getDescriptionConcurrently() throws Exception {
+        CxProperties properties = new CxProperties();
+        properties.setQueryDescriptionCacheFile(null);
+        properties.setDescriptionConcurrency(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CxLegacyService legacyService = mock(CxLegacyService.class);
+        when(legacyService.getDescription("session", 1L, 2L)).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return "description";
+        });
+
+        CxDescriptionService service = new CxDescriptionService(legacyService, properties);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(service.getDescription("session", 1L, 2L));
+        }
+        release.countDown();
+        for (CompletableFuture<String> future : futures) {
+            assertEquals("description", future.get(10, TimeUnit.SECONDS));
+        }
+        /* concurrent requests share a single call, and later ones are served from the cache */
+        assertEquals("description", service.getDescription("session", 1L, 2L).join());
+        verify(legacyService, times(1)).getDescription("session", 1L, 2L);
+        service.shutdown();
+    }
+
+    @Test
+    public void shutdownCompletesPendingDescriptions() throws Exception {
+        CxProperties properties = new CxProperties();
+        properties.setQueryDescriptionCacheFile(null);
+        properties.setDescriptionConcurrency(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CxLegacyService legacyService = mock(CxLegacyService.class);
+        when(legacyService.getDescription(eq("session"), eq(1L), anyLong())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return "description";
+        });
+
+        CxDescriptionService service = new CxDescriptionService(legacyService, properties);
+        try {
+            CompletableFuture<String> running = service.getDescription("session", 1L, 2L);
+            CompletableFuture<String> queued = service.getDescription("session", 1L, 3L);
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            service.shutdown();
+            assertEquals("", running.get(1, TimeUnit.SECONDS));
+            assertEquals("", queued.get(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+}
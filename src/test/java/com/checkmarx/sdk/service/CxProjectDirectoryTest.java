@@ -0,0 +1,124 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.dto.cx.CxProject;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.junit.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class CxProjectDirectoryTest {
+
+    @Test
+    public void lookups() {
+        AtomicInteger projectLoads = new AtomicInteger();
+        AtomicInteger idLoads = new AtomicInteger();
+        CxProjectDirectory directory = new CxProjectDirectory(new CxProperties(),
+                id -> {
+                    projectLoads.incrementAndGet();
+                    return id == 1 ? project(1, "10", "app") : null;
+                },
+                (teamId, name) -> {
+                    idLoads.incrementAndGet();
+                    return "10".equals(teamId) && "app".equals(name) ? 1 : null;
+                });
+        try {
+            assertEquals("app", directory.getProject(1).getName());
+            assertEquals("app", directory.getProject(1).getName());
+            assertEquals(1, projectLoads.get());
+            assertEquals(Integer.valueOf(1), directory.getProjectId("10", "app"));
+            assertEquals(Integer.valueOf(1), directory.getProjectId("10", "app"));
+            assertEquals(1, idLoads.get());
+
+            /* not found is not cached */
+            assertNull(directory.getProjectId("10", "other"));
+            assertNull(directory.getProjectId("10", "other"));
+            assertEquals(3, idLoads.get());
+
+            directory.put(project(2, "10", "other"));
+            assertEquals(Integer.valueOf(2), directory.getProjectId("10", "other"));
+            directory.putAll(Collections.singletonList(project(3, "11", "listed")));
+            assertEquals("listed", directory.getProject(3).getName());
+            assertEquals(Integer.valueOf(3), directory.getProjectId("11", "listed"));
+            assertEquals(3, idLoads.get());
+
+            directory.remove(1);
+            assertEquals(Integer.valueOf(1), directory.getProjectId("10", "app"));
+            assertEquals("app", directory.getProject(1).getName());
+            assertEquals(4, idLoads.get());
+            assertEquals(2, projectLoads.get());
+        } finally {
+            directory.shutdown();
+        }
+    }
+
+    @Test
+    public void refreshDropsMissingProjects() throws Exception {
+        AtomicLong time = new AtomicLong();
+        Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return time.get();
+            }
+        };
+        Map<Integer, CxProject> server = new ConcurrentHashMap<>();
+        server.put(1, project(1, "10", "app"));
+        server.put(2, project(2, "10", "other"));
+        CxProjectDirectory directory = new CxProjectDirectory(new CxProperties(),
+                id -> {
+                    if (id == 2 && !server.containsKey(2)) {
+                        throw new ResourceAccessException("Connection reset");
+                    }
+                    return server.get(id);
+                },
+                (teamId, name) -> server.values().stream()
+                        .filter(p -> p.getTeamId().equals(teamId) && p.getName().equals(name))
+                        .map(CxProject::getId)
+                        .findFirst().orElse(null),
+                ticker);
+        try {
+            assertEquals("app", directory.getProject(1).getName());
+            assertEquals("other", directory.getProject(2).getName());
+            assertEquals(Integer.valueOf(1), directory.getProjectId("10", "app"));
+
+            /* deleted (not found, or failing) and renamed outside of this client */
+            server.remove(2);
+            server.put(1, project(1, "10", "renamed"));
+            time.addAndGet(TimeUnit.MINUTES.toNanos(6));
+            /* the first lookup after the refresh interval triggers the refresh, returning the previous value */
+            directory.getProject(1);
+            directory.getProject(2);
+            directory.getProjectId("10", "app");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (System.currentTimeMillis() < deadline
+                    && !("renamed".equals(directory.getProject(1).getName()) && directory.getProjectId("10", "app") == null)) {
+                Thread.sleep(10);
+            }
+            assertEquals("renamed", directory.getProject(1).getName());
+            assertNull(directory.getProjectId("10", "app"));
+            assertEquals(Integer.valueOf(1), directory.getProjectId("10", "renamed"));
+            try {
+                directory.getProject(2);
+                fail("Expected the removed project to be loaded again");
+            } catch (UncheckedExecutionException e) {
+                /* no longer served from the cache */
+                assertTrue(e.getCause() instanceof ResourceAccessException);
+            }
+        } finally {
+            directory.shutdown();
+        }
+    }
+
+    private static CxProject project(Integer id, String teamId, String name) {
+        return CxProject.builder().id(id).teamId(teamId).name(name).build();
+    }
+}
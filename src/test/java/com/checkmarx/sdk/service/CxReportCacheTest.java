@@ -0,0 +1,98 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.StreamUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public class CxReportCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void putAndGet() throws Exception {
+        CxProperties properties = properties();
+        CxReportCache cache = new CxReportCache(properties);
+        assertNull(cache.get(1, CxReportCache.XML));
+
+        File file = cache.put(1, CxReportCache.XML, out -> out.write("<CxXMLResults ScanId=\"1\"/>".getBytes(UTF_8)));
+        assertEquals(file, cache.get(1, CxReportCache.XML));
+        try (InputStream in = cache.open(1, CxReportCache.XML)) {
+            assertEquals("<CxXMLResults ScanId=\"1\"/>", StreamUtils.copyToString(in, UTF_8));
+        }
+        assertNull(cache.open(2, CxReportCache.XML));
+
+        /* reports are kept per server */
+        properties.setUrl("https://other.example.com");
+        assertNull(cache.get(1, CxReportCache.XML));
+
+        /* and reused after a restart */
+        properties.setUrl("https://cx.example.com");
+        assertEquals(file, new CxReportCache(properties).get(1, CxReportCache.XML));
+
+        properties.setReportCacheDir(null);
+        assertFalse(new CxReportCache(properties).isEnabled());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception {
+        CxProperties properties = properties();
+        properties.setReportCacheSize(1);
+        CxReportCache cache = new CxReportCache(properties);
+        /* random content does not compress, so each report takes ~400KB */
+        byte[] content = new byte[400 * 1024];
+        new Random(1).nextBytes(content);
+        cache.put(1, CxReportCache.XML, out -> out.write(content));
+        cache.put(2, CxReportCache.XML, out -> out.write(content));
+        assertNotNull(cache.get(1, CxReportCache.XML));
+        cache.put(3, CxReportCache.XML, out -> out.write(content));
+
+        assertNotNull(cache.get(1, CxReportCache.XML));
+        assertNull(cache.get(2, CxReportCache.XML));
+        assertNull(cache.open(2, CxReportCache.XML));
+        assertNotNull(cache.get(3, CxReportCache.XML));
+        assertEquals(2, folder.getRoot().listFiles((dir, name) -> name.endsWith(".xml.gz")).length);
+
+        /* a failed write leaves nothing behind */
+        try {
+            cache.put(4, CxReportCache.XML, out -> {
+                throw new IOException("download failed");
+            });
+            fail();
+        } catch (IOException e) {
+            assertNull(cache.get(4, CxReportCache.XML));
+            assertEquals(2, folder.getRoot().listFiles().length);
+        }
+    }
+
+    @Test
+    public void expire() throws Exception {
+        CxProperties properties = properties();
+        CxReportCache cache = new CxReportCache(properties);
+        File file = cache.put(1, CxReportCache.XML, out -> out.write("<CxXMLResults ScanId=\"1\"/>".getBytes(UTF_8)));
+        assertNotNull(cache.get(1, CxReportCache.XML));
+
+        /* the triage of the results may have changed since the report was cached */
+        assertTrue(file.setLastModified(System.currentTimeMillis() - 61 * 60 * 1000L));
+        assertNull(cache.get(1, CxReportCache.XML));
+        assertFalse(file.exists());
+        assertNull(cache.open(1, CxReportCache.XML));
+    }
+
+    private CxProperties properties() {
+        CxProperties properties = new CxProperties();
+        properties.setUrl("https://cx.example.com");
+        properties.setReportCacheDir(folder.getRoot().getPath());
+        return properties;
+    }
+}
@@ -0,0 +1,84 @@
+package com.checkmarx.sdk.service;
+
+import checkmarx.wsdl.portal.CompareStatusType;
+import checkmarx.wsdl.portal.CxWSSingleResultCompareData;
+import com.checkmarx.sdk.dto.Filter;
+import com.checkmarx.sdk.dto.ScanDiff;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class CxScanCompareTest {
+
+    @Test
+    public void toScanDiff() {
+        List<CxWSSingleResultCompareData> results = Arrays.asList(
+                result(CompareStatusType.NEW, "SQL_Injection", "src/Dao.java", 10, 3, 0),
+                result(CompareStatusType.NEW, "SQL_Injection", "src/Dao.java", 20, 3, 1),
+                result(CompareStatusType.FIXED, "Reflected_XSS", "src/View.java", 5, 2, 2),
+                result(CompareStatusType.REOCCURED, "Path_Traversal", "src/Files.java", 7, 1, 0));
+
+        ScanDiff diff = CxScanCompare.toScanDiff(results, null,
+                (scanId, pathId) -> CompletableFuture.completedFuture("path " + pathId));
+        assertEquals(1, diff.getNewIssues().size());
+        assertEquals("High", diff.getNewIssues().get(0).getSeverity());
+        assertEquals(2, diff.getNewIssues().get(0).getDetails().size());
+        assertTrue(diff.getNewIssues().get(0).getDetails().get(20).isFalsePositive());
+        assertEquals("path 10", diff.getNewIssues().get(0).getDescription());
+        List<?> merged = (List<?>) diff.getNewIssues().get(0).getAdditionalDetails().get("results");
+        assertEquals(2, merged.size());
+        assertEquals("1", ((Map<?, ?>) merged.get(1)).get("state"));
+        assertEquals("Reflected_XSS", diff.getResolvedIssues().get(0).getVulnerability());
+        assertEquals(1, diff.getRecurringCount());
+        assertEquals("src/Files.java", diff.getRecurringIssues().get(0).getFilename());
+
+        List<?> details = (List<?>) diff.getResolvedIssues().get(0).getAdditionalDetails().get("results");
+        Map<?, ?> source = (Map<?, ?>) ((Map<?, ?>) details.get(0)).get("source");
+        assertEquals("5", source.get("line"));
+
+        diff = CxScanCompare.toScanDiff(results, Collections.singletonList(new Filter(Filter.Type.SEVERITY, "Medium")), null);
+        assertTrue(diff.getNewIssues().isEmpty());
+        assertEquals(1, diff.getResolvedIssues().size());
+        assertEquals("", diff.getResolvedIssues().get(0).getDescription());
+    }
+
+    @Test
+    public void checkFilter() {
+        CxWSSingleResultCompareData result = result(CompareStatusType.NEW, "SQL_Injection", "src/Dao.java", 10, 3, 2);
+        assertTrue(CxScanCompare.checkFilter(result, Collections.singletonList(new Filter(Filter.Type.TYPE, "sql_injection"))));
+        assertFalse(CxScanCompare.checkFilter(result, Collections.singletonList(new Filter(Filter.Type.TYPE, "Reflected_XSS"))));
+        assertTrue(CxScanCompare.checkFilter(result, Collections.singletonList(new Filter(Filter.Type.STATUS, "New"))));
+        assertTrue(CxScanCompare.checkFilter(result, Collections.singletonList(new Filter(Filter.Type.STATUS, "Confirmed"))));
+
+        result.setResultStatus(CompareStatusType.REOCCURED);
+        result.setState(0);
+        assertFalse(CxScanCompare.checkFilter(result, Collections.singletonList(new Filter(Filter.Type.STATUS, "New"))));
+        assertTrue(CxScanCompare.checkFilter(result, Arrays.asList(new Filter(Filter.Type.STATUS, "New"),
+                new Filter(Filter.Type.STATUS, "To Verify"))));
+
+        assertTrue(CxScanCompare.isSupported(null));
+        assertFalse(CxScanCompare.isSupported(Collections.singletonList(new Filter(Filter.Type.CWE, "89"))));
+    }
+
+    private static CxWSSingleResultCompareData result(CompareStatusType status, String query, String file,
+                                                      long line, int severity, int state) {
+        CxWSSingleResultCompareData result = new CxWSSingleResultCompareData();
+        result.setResultStatus(status);
+        result.setQueryName(query);
+        result.setSourceFile(file);
+        result.setSourceLine(line);
+        result.setDestFile(file);
+        result.setDestLine(line + 1);
+        result.setSeverity(severity);
+        result.setState(state);
+        result.setScanId(1L);
+        result.setPathId(line);
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.exception.CheckmarxException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class CxScanPipelineTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentStages() throws Exception {
+        CxScanPipeline pipeline = new CxScanPipeline(executor);
+        /* each stage waits for the other to start, so they only complete when run concurrently */
+        CountDownLatch started = new CountDownLatch(2);
+        CompletableFuture<Integer> first = pipeline.stage("first", () -> await(started, 1));
+        CompletableFuture<Integer> second = pipeline.stage("second", () -> await(started, 2));
+        CompletableFuture<Integer> sum = pipeline.stage("sum", () -> first.join() + second.join(), first, second);
+        assertEquals(Integer.valueOf(3), pipeline.await(sum));
+        pipeline.report(1);
+    }
+
+    @Test
+    public void failFast() {
+        ExecutorService twoThreads = Executors.newFixedThreadPool(2);
+        try {
+            CxScanPipeline pipeline = new CxScanPipeline(twoThreads);
+            CountDownLatch slowStarted = new CountDownLatch(1);
+            CountDownLatch failed = new CountDownLatch(1);
+            AtomicBoolean slowFinished = new AtomicBoolean();
+            AtomicBoolean dependentRan = new AtomicBoolean();
+            AtomicBoolean queuedRan = new AtomicBoolean();
+            CompletableFuture<Void> slow = pipeline.run("slow", () -> {
+                slowStarted.countDown();
+                try {
+                    failed.await(5, TimeUnit.SECONDS);
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                slowFinished.set(true);
+            });
+            CompletableFuture<Integer> failing = pipeline.stage("failing", () -> {
+                /* fails once the slow step is running, as a step not started by then is skipped */
+                try {
+                    slowStarted.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                failed.countDown();
+                throw new CheckmarxException("failed");
+            });
+            /* waits for a thread, which only frees up once the failing step has failed */
+            CompletableFuture<Void> queued = pipeline.run("queued", () -> queuedRan.set(true));
+            CompletableFuture<Void> dependent = pipeline.run("dependent", () -> dependentRan.set(true), failing);
+            try {
+                pipeline.await(CompletableFuture.allOf(slow, queued, dependent));
+                fail("Expected CheckmarxException");
+            } catch (CheckmarxException e) {
+                assertEquals("failed", e.getMessage());
+            }
+            /* the step still running has completed before the failure is reported, and no other step started */
+            assertTrue(slowFinished.get());
+            assertTrue(slow.isDone());
+            assertFalse(queuedRan.get());
+            assertFalse(dependentRan.get());
+        } finally {
+            twoThreads.shutdownNow();
+        }
+    }
+
+    private static Integer await(CountDownLatch latch, Integer value) throws CheckmarxException {
+        latch.countDown();
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new CheckmarxException("Timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,155 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.exception.CheckmarxException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class CxScanWatcherTest {
+
+    private CxService cxService;
+    private CxScanWatcher watcher;
+
+    @Before
+    public void setUp() {
+        CxProperties properties = new CxProperties();
+        cxService = mock(CxService.class);
+        watcher = new CxScanWatcher(cxService, properties, (type, attempts, elapsed, expected) -> 10);
+    }
+
+    @After
+    public void tearDown() {
+        watcher.shutdown();
+    }
+
+    @Test
+    public void watchScan() throws Exception {
+        when(cxService.getScanQueue())
+                .thenReturn(Collections.singleton(1))
+                .thenReturn(Collections.emptySet());
+        when(cxService.getScanStatus(1)).thenReturn(CxService.SCAN_STATUS_FINISHED);
+        when(cxService.getScanStatus(2)).thenReturn(CxService.SCAN_STATUS_FAILED);
+
+        CompletableFuture<Integer> finished = watcher.watchScan(1, 0);
+        CompletableFuture<Integer> failed = watcher.watchScan(2, 0);
+        assertSame(finished, watcher.watchScan(1, 0));
+        assertEquals(CxService.SCAN_STATUS_FINISHED, finished.get(5, TimeUnit.SECONDS));
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            fail("Expected scan to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CheckmarxException);
+        }
+    }
+
+    @Test
+    public void watchScanThroughErrors() throws Exception {
+        when(cxService.getScanQueue())
+                .thenThrow(new ResourceAccessException("Connection reset"))
+                .thenReturn(Collections.emptySet());
+        when(cxService.getScanStatus(1))
+                .thenThrow(new ResourceAccessException("Connection reset"))
+                .thenReturn(CxService.SCAN_STATUS_FINISHED);
+        when(cxService.getReportStatus(5)).thenReturn(CxService.REPORT_STATUS_CREATED);
+
+        CompletableFuture<Integer> scan = watcher.watchScan(1, 0);
+        CompletableFuture<Integer> report = watcher.watchReport(5);
+        /* reports are still polled while scan status checks fail */
+        assertEquals(CxService.REPORT_STATUS_CREATED, report.get(5, TimeUnit.SECONDS));
+        assertEquals(CxService.SCAN_STATUS_FINISHED, scan.get(5, TimeUnit.SECONDS));
+        /* failed checks are retried at the polling interval, not in a loop */
+        verify(cxService, atMost(5)).getScanQueue();
+    }
+
+    @Test
+    public void watchScanTimesOutThroughErrors() throws Exception {
+        CxProperties properties = new CxProperties();
+        properties.setScanTimeout(0);
+        CxScanWatcher expiring = new CxScanWatcher(cxService, properties, (type, attempts, elapsed, expected) -> 10);
+        when(cxService.getScanQueue()).thenThrow(new ResourceAccessException("Connection reset"));
+        when(cxService.getScanStatus(1)).thenThrow(new ResourceAccessException("Connection reset"));
+        try {
+            expiring.watchScan(1, 0).get(5, TimeUnit.SECONDS);
+            fail("Expected scan to time out");
+        } catch (ExecutionException e) {
+            assertEquals("Timeout exceeded during scan", e.getCause().getMessage());
+        } finally {
+            expiring.shutdown();
+        }
+    }
+
+    @Test
+    public void watchScanDuringPoll() throws Exception {
+        when(cxService.getScanQueue()).thenReturn(Collections.emptySet());
+        when(cxService.getScanStatus(1)).thenReturn(CxService.SCAN_STATUS_FINISHED);
+        CountDownLatch polling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> poller = new AtomicReference<>();
+        when(cxService.getReportStatus(5)).thenAnswer(invocation -> {
+            poller.set(Thread.currentThread());
+            polling.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return CxService.REPORT_STATUS_CREATED;
+        });
+        CompletableFuture<Integer> report = watcher.watchReport(5);
+        assertTrue(polling.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> scan;
+        synchronized (watcher) {
+            /* the poll completes the report, then waits to schedule the next poll */
+            release.countDown();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (poller.get().getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            scan = watcher.watchScan(1, 0);
+        }
+        assertEquals(CxService.REPORT_STATUS_CREATED, report.get(5, TimeUnit.SECONDS));
+        /* the scan is the only watch left, so it must have been seen by the poll in progress */
+        assertEquals(CxService.SCAN_STATUS_FINISHED, scan.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void watchReport() throws Exception {
+        when(cxService.getReportStatus(5)).thenReturn(1).thenReturn(CxService.REPORT_STATUS_CREATED);
+        assertEquals(CxService.REPORT_STATUS_CREATED, watcher.watchReport(5).get(5, TimeUnit.SECONDS));
+        verify(cxService, times(2)).getReportStatus(5);
+    }
+
+    @Test
+    public void backoffPollingStrategy() {
+        CxProperties properties = new CxProperties();
+        properties.setScanPolling(1000);
+        properties.setPollingMaxInterval(60000);
+        properties.setPollingJitter(0.0);
+        BackoffPollingStrategy strategy = new BackoffPollingStrategy(properties);
+        /* converges on the expected duration, bounded by the polling interval */
+        assertEquals(30000, strategy.nextDelay(PollingStrategy.Type.SCAN, 0, 0, 60000));
+        assertEquals(5000, strategy.nextDelay(PollingStrategy.Type.SCAN, 5, 50000, 60000));
+        assertEquals(1000, strategy.nextDelay(PollingStrategy.Type.SCAN, 8, 59500, 60000));
+        /* exponential once overdue (or unknown), bounded by the max interval */
+        assertEquals(1000, strategy.nextDelay(PollingStrategy.Type.SCAN, 0, 0, 0));
+        assertEquals(4000, strategy.nextDelay(PollingStrategy.Type.SCAN, 3, 4000, 0));
+        assertEquals(60000, strategy.nextDelay(PollingStrategy.Type.SCAN, 10, 600000, 0));
+
+        /* jittered delays stay within the bounds */
+        properties.setPollingJitter(0.5);
+        for (int i = 0; i < 100; i++) {
+            long delay = strategy.nextDelay(PollingStrategy.Type.SCAN, 0, 0, 0);
+            assertTrue(delay >= 1000 && delay <= 1500);
+            delay = strategy.nextDelay(PollingStrategy.Type.SCAN, 10, 600000, 0);
+            assertTrue(delay >= 30000 && delay <= 60000);
+        }
+    }
+}
@@ -1,29 +1,57 @@
 package com.checkmarx.sdk.service;
 
 import com.checkmarx.sdk.config.CxConfig;
+import com.checkmarx.sdk.config.Constants;
 import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.dto.ScanDiff;
 import com.checkmarx.sdk.dto.ScanResults;
 import com.checkmarx.sdk.exception.CheckmarxException;
+import com.checkmarx.sdk.utils.ScanResultsCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
-
-import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 @RunWith(SpringRunner.class)
 @Import(CxConfig.class)
 @SpringBootTest
 public class CxServiceTest {
 
+    private static final String URL = "http://cx.example.com/cxrestapi";
+
     @Autowired
     private CxProperties properties;
     @Autowired
@@ -31,6 +59,9 @@ public class CxServiceTest {
     @Autowired
     private CxAuthService authService;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
 
     @Test
     public void createScan() {
@@ -86,6 +117,216 @@ public class CxServiceTest {
         }
     }
 
+    @Test
+    public void getReportContentMergesDuplicateIssues() throws Exception {
+        properties.setOffline(true);
+        File file = new File(
+                getClass().getClassLoader().getResource("ScanReport.xml").getFile()
+        );
+        ScanResults results = service.getReportContent(file, null);
+        /* expected values are those of the list scan based merge the issue index replaced */
+        assertEquals(167, results.getXIssues().size());
+        int details = 0;
+        int falsePositives = 0;
+        int merged = 0;
+        for (ScanResults.XIssue issue : results.getXIssues()) {
+            details += issue.getDetails().size();
+            falsePositives += issue.getFalsePositiveCount();
+            merged += ((List<?>) issue.getAdditionalDetails().get("results")).size();
+        }
+        assertEquals(412, details);
+        assertEquals(2, falsePositives);
+        assertEquals(442, merged);
+        Map<String, Integer> summary = new HashMap<>();
+        summary.put("High", 28);
+        summary.put("Medium", 51);
+        summary.put("Low", 327);
+        summary.put("Information", 4);
+        assertEquals(summary, results.getAdditionalDetails().get(Constants.SUMMARY_KEY));
+
+        ScanResults.XIssue newsletter = results.getXIssues().stream()
+                .filter(x -> x.getVulnerability().equals("Command_Injection")
+                        && x.getFilename().equals("riches/pages/content/oper/Newsletter.jsp"))
+                .findFirst().orElseThrow(AssertionError::new);
+        assertEquals(new HashSet<>(Arrays.asList(18, 25)), newsletter.getDetails().keySet());
+        assertEquals(1, newsletter.getFalsePositiveCount());
+        assertEquals(2, ((List<?>) newsletter.getAdditionalDetails().get("results")).size());
+    }
+
+    @Test
+    public void encodeReportContent() throws Exception {
+        properties.setOffline(true);
+        File file = new File(
+                getClass().getClassLoader().getResource("ScanReport.xml").getFile()
+        );
+        ScanResults results = service.getReportContent(file, null);
+        /* scale the report up to 20 scans worth of issues */
+        List<ScanResults.XIssue> issues = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            issues.addAll(results.getXIssues());
+        }
+        results.setXIssues(issues);
+
+        byte[] json = new ObjectMapper().writeValueAsBytes(results);
+        byte[] binary = ScanResultsCodec.encode(results);
+        assertTrue(binary.length * 4 < json.length);
+
+        ScanResults decoded = ScanResultsCodec.decode(binary);
+        assertEquals(results.getXIssues(), decoded.getXIssues());
+        assertEquals(results.getXIssues().get(0).getDetails().keySet(), decoded.getXIssues().get(0).getDetails().keySet());
+        assertEquals(results.getXIssues().get(0).getAdditionalDetails(), decoded.getXIssues().get(0).getAdditionalDetails());
+    }
+
+    @Test
+    public void reportStringsPerFinding() throws Exception {
+        properties.setOffline(true);
+        File file = new File(
+                getClass().getClassLoader().getResource("ScanReport.xml").getFile()
+        );
+        ScanResults results = service.getReportContent(file, null);
+        int findings = 0;
+        Set<Object> strings = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ScanResults.XIssue issue : results.getXIssues()) {
+            findings += issue.getDetails().size();
+            collectStrings(strings, issue.getVulnerability(), issue.getCwe(), issue.getLanguage(), issue.getSeverity(),
+                    issue.getFilename(), issue.getAdditionalDetails());
+        }
+        long bytes = 0;
+        for (Object string : strings) {
+            /* String (24 bytes) + char[] (16 bytes + 2 per char) */
+            bytes += 40 + 2L * ((String) string).length();
+        }
+        /* ~870 bytes per finding with a copy of each string per result */
+        assertTrue("Retained strings per finding: " + bytes / findings, bytes / findings < 250);
+
+        /* with the global pool, the strings of the results of different reports are shared */
+        properties.setGlobalStringPool(true);
+        try {
+            ScanResults first = service.getReportContent(file, null);
+            ScanResults second = service.getReportContent(file, null);
+            assertSame(first.getXIssues().get(0).getFilename(), second.getXIssues().get(0).getFilename());
+        } finally {
+            properties.setGlobalStringPool(false);
+        }
+    }
+
+    private static void collectStrings(Set<Object> strings, Object... values) {
+        for (Object value : values) {
+            if (value instanceof String) {
+                strings.add(value);
+            } else if (value instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    collectStrings(strings, entry.getKey(), entry.getValue());
+                }
+            } else if (value instanceof Collection) {
+                collectStrings(strings, ((Collection<?>) value).toArray());
+            }
+        }
+    }
+
+    @Test
+    public void projectNotFoundIsRemovedFromCache() {
+        CxProperties cxProperties = new CxProperties();
+        cxProperties.setUrl(URL);
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        CxService cxService = restService(cxProperties, restTemplate);
+        server.expect(requestTo(URL + "/projects/1")).andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"id\":1,\"teamId\":\"10\",\"name\":\"app\"}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo(URL + "/projects/1/sourceCode/excludeSettings")).andExpect(method(HttpMethod.PUT))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+        server.expect(requestTo(URL + "/projects/1")).andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        assertEquals("app", cxService.getProject(1).getName());
+        assertEquals("app", cxService.getProject(1).getName());
+        /* deleted outside of this client */
+        cxService.setProjectExcludeDetails(1, Collections.singletonList("test"), null);
+        assertNull(cxService.getProject(1));
+        server.verify();
+    }
+
+    @Test
+    public void gitSettingsAreWrittenAfterFileUpload() throws Exception {
+        CxProperties cxProperties = new CxProperties();
+        cxProperties.setUrl(URL);
+        cxProperties.setSettingsCacheTtl(60);
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        CxService cxService = restService(cxProperties, restTemplate);
+        server.expect(requestTo(URL + "/projects/1/sourceCode/remoteSettings/git")).andRespond(withSuccess());
+        server.expect(requestTo(URL + "/projects/1/sourceCode/attachments")).andRespond(withSuccess());
+        server.expect(requestTo(URL + "/projects/1/sourceCode/remoteSettings/git")).andRespond(withSuccess());
+
+        File zip = File.createTempFile("cx-source", ".zip");
+        try {
+            cxService.setProjectRepositoryDetails(1, "https://github.com/example/app.git", "refs/heads/master");
+            /* unchanged */
+            cxService.setProjectRepositoryDetails(1, "https://github.com/example/app.git", "refs/heads/master");
+            cxService.uploadProjectSource(1, zip);
+            /* the uploaded source replaced the repository, so the same settings are written again */
+            cxService.setProjectRepositoryDetails(1, "https://github.com/example/app.git", "refs/heads/master");
+        } finally {
+            zip.delete();
+        }
+        server.verify();
+    }
+
+    @Test
+    public void getScanDiffKeepsRecurringIssues() throws Exception {
+        CxProperties cxProperties = new CxProperties();
+        cxProperties.setUrl(URL);
+        cxProperties.setReportCacheDir(folder.getRoot().getPath());
+        File report = new File(getClass().getClassLoader().getResource("ScanReport.xml").getFile());
+        CxReportCache reportCache = new CxReportCache(cxProperties);
+        reportCache.put(1, CxReportCache.XML, out -> Files.copy(report.toPath(), out));
+        reportCache.put(2, CxReportCache.XML, out -> Files.copy(report.toPath(), out));
+        /* the report parser is not mocked, as both reports are streamed from the report cache */
+        CxService cxService = new CxService(mock(CxAuthClient.class), cxProperties, mock(CxLegacyService.class), new RestTemplate(),
+                new RestTemplate(), new CxReportParser(), mock(CxDescriptionService.class), (type, attempts, elapsed, expected) -> 10);
+
+        ScanDiff diff = cxService.getScanDiff(1, 2, null);
+        assertTrue(diff.getNewIssues().isEmpty());
+        assertTrue(diff.getResolvedIssues().isEmpty());
+        /* the recurring count is of the (minimal) recurring issues, as for a diff of full scan results */
+        assertEquals(167, diff.getRecurringIssues().size());
+        assertEquals(167, diff.getRecurringCount());
+        int details = 0;
+        for (ScanResults.XIssue issue : diff.getRecurringIssues()) {
+            details += issue.getDetails().size();
+        }
+        assertEquals(412, details);
+    }
+
+    @Test
+    public void estimateScanDurationIsUnknownOnConnectionError() {
+        CxProperties cxProperties = new CxProperties();
+        cxProperties.setUrl(URL);
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        CxService cxService = restService(cxProperties, restTemplate);
+        server.expect(requestTo(URL + "/sast/scans/1")).andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess("{\"id\":1,\"project\":{\"id\":2}}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo(URL + "/sast/scans?projectId=2&scanStatus=7&last=1")).andExpect(method(HttpMethod.GET))
+                .andRespond(request -> {
+                    throw new IOException("Connection reset");
+                });
+
+        /* the scan is then waited for without an estimate, rather than failed */
+        assertEquals(0, cxService.estimateScanDuration(1));
+        server.verify();
+    }
+
+    /**
+     * CxService calling the REST API through the given RestTemplate
+     */
+    private static CxService restService(CxProperties cxProperties, RestTemplate restTemplate) {
+        CxAuthClient authClient = mock(CxAuthClient.class);
+        when(authClient.createAuthHeaders()).thenReturn(new HttpHeaders());
+        return new CxService(authClient, cxProperties, mock(CxLegacyService.class), restTemplate, restTemplate,
+                mock(CxReportParser.class), mock(CxDescriptionService.class), (type, attempts, elapsed, expected) -> 10);
+    }
+
     @Test
     public void getXmlReportContent() {
     }
@@ -0,0 +1,51 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class CxSettingsCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void isApplied() {
+        CxProperties properties = new CxProperties();
+        properties.setUrl("http://localhost/cxrestapi");
+        properties.setSettingsCacheFile(new File(folder.getRoot(), "settings.json").getPath());
+        CxSettingsCache cache = new CxSettingsCache(properties);
+
+        /* disabled by default */
+        cache.applied(1, CxSettingsCache.SCAN_SETTINGS, "36,1", 100);
+        assertFalse(cache.isApplied(1, CxSettingsCache.SCAN_SETTINGS, "36,1"));
+        cache.forget(1);
+
+        properties.setSettingsCacheTtl(60);
+        assertFalse(cache.isApplied(1, CxSettingsCache.SCAN_SETTINGS, "36,1"));
+        cache.applied(1, CxSettingsCache.SCAN_SETTINGS, "36,1", 100);
+        cache.applied(12, CxSettingsCache.SCAN_SETTINGS, "36,1", 101);
+        assertTrue(cache.isApplied(1, CxSettingsCache.SCAN_SETTINGS, "36,1"));
+        assertFalse(cache.isApplied(1, CxSettingsCache.SCAN_SETTINGS, "36,2"));
+        assertFalse(cache.isApplied(1, CxSettingsCache.EXCLUDE_SETTINGS, "36,1"));
+        assertEquals(Integer.valueOf(100), cache.getResult(1, CxSettingsCache.SCAN_SETTINGS));
+
+        /* persisted across instances */
+        CxSettingsCache reloaded = new CxSettingsCache(properties);
+        assertTrue(reloaded.isApplied(1, CxSettingsCache.SCAN_SETTINGS, "36,1"));
+        assertEquals(Integer.valueOf(100), reloaded.getResult(1, CxSettingsCache.SCAN_SETTINGS));
+
+        reloaded.forget(1);
+        assertFalse(reloaded.isApplied(1, CxSettingsCache.SCAN_SETTINGS, "36,1"));
+        assertTrue(reloaded.isApplied(12, CxSettingsCache.SCAN_SETTINGS, "36,1"));
+
+        /* expired */
+        properties.setSettingsCacheTtl(0);
+        assertFalse(reloaded.isApplied(12, CxSettingsCache.SCAN_SETTINGS, "36,1"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.exception.CheckmarxException;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CxSingleFlightTest {
+
+    @Test
+    public void run() throws Exception {
+        CxSingleFlight<Integer, String> flights = new CxSingleFlight<>("test.flight");
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<String> report = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flights.run(1, id -> {
+            started.incrementAndGet();
+            return report;
+        });
+        CompletableFuture<String> joined = flights.run(1, id -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        CompletableFuture<String> other = flights.run(2, id -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture("report 2");
+        });
+        assertSame(first, joined);
+        assertEquals("report 2", other.get());
+        assertEquals(2, started.get());
+        assertEquals(1, flights.size());
+
+        report.complete("report 1");
+        assertEquals("report 1", joined.get());
+        assertEquals(0, flights.size());
+
+        /* a completed flight is not reused */
+        assertEquals("again", flights.run(1, id -> CompletableFuture.completedFuture("again")).get());
+    }
+
+    @Test
+    public void failure() throws Exception {
+        CxSingleFlight<Integer, String> flights = new CxSingleFlight<>("test.flight");
+        CompletableFuture<String> failed = flights.run(1, id -> CompletableFuture.<String>completedFuture(null)
+                .thenApply(v -> {
+                    throw new CompletionException(new CheckmarxException("Report failed"));
+                }));
+        try {
+            failed.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CheckmarxException);
+        }
+        CompletableFuture<String> thrown = flights.run(1, id -> {
+            throw new IllegalStateException("not started");
+        });
+        assertTrue(thrown.isCompletedExceptionally());
+        assertEquals(0, flights.size());
+    }
+}
@@ -0,0 +1,192 @@
+package com.checkmarx.sdk.service;
+
+import com.google.common.hash.HashCode;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public class CxSourceArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void archive() throws Exception {
+        File source = folder.newFolder("source");
+        Map<String, byte[]> expected = new HashMap<>();
+        expected.put("pom.xml", "<project/>".getBytes(UTF_8));
+        expected.put("src/main/App.java", "class App {}".getBytes(UTF_8));
+        expected.put("src/main/empty.txt", new byte[0]);
+        /* several chunks, partly compressible */
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(1);
+        while (text.length() < 3 * CxSourceArchive.CHUNK_SIZE + 123) {
+            text.append("line ").append(random.nextInt(1000)).append('\n');
+        }
+        expected.put("src/main/big.txt", text.toString().getBytes(UTF_8));
+        expected.put("web/lib.js", "var a;".getBytes(UTF_8));
+        for (Map.Entry<String, byte[]> file : expected.entrySet()) {
+            write(source, file.getKey(), file.getValue());
+        }
+        write(source, "web/lib.min.js", "var a;".getBytes(UTF_8));
+        write(source, "node_modules/dep/index.js", "x".getBytes(UTF_8));
+        write(source, "src/test/AppTest.java", "x".getBytes(UTF_8));
+        write(source, "docs/readme.md", "x".getBytes(UTF_8));
+
+        CxSourceArchive archive = new CxSourceArchive(source, Arrays.asList("node_modules", " src/test "), Arrays.asList("*.min.js", "docs/*"), executor, 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(expected.size(), archive.writeTo(out));
+        assertEquals("source.zip", archive.getName());
+
+        /* read sequentially (local headers and data descriptors) */
+        Map<String, byte[]> streamed = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                streamed.put(entry.getName(), StreamUtils.copyToByteArray(zip));
+            }
+        }
+        assertContent(expected, streamed);
+
+        /* read through the central directory */
+        File file = folder.newFile("source.zip");
+        Files.write(file.toPath(), out.toByteArray());
+        Map<String, byte[]> read = new HashMap<>();
+        try (ZipFile zip = new ZipFile(file)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                byte[] content = StreamUtils.copyToByteArray(zip.getInputStream(entry));
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                assertEquals(entry.getName(), crc.getValue(), entry.getCrc());
+                assertEquals(entry.getName(), content.length, entry.getSize());
+                read.put(entry.getName(), content);
+            }
+        }
+        assertContent(expected, read);
+    }
+
+    @Test
+    public void incompressibleFile() throws Exception {
+        File source = folder.newFolder("source");
+        byte[] content = new byte[2 * CxSourceArchive.CHUNK_SIZE + 5];
+        new Random(1).nextBytes(content);
+        write(source, "random.bin", content);
+        Path link = new File(source, "link.bin").toPath();
+        Files.createSymbolicLink(link, new File(source, "random.bin").toPath());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, new CxSourceArchive(source, null, null, executor, 3).writeTo(out));
+        File file = folder.newFile("source.zip");
+        Files.write(file.toPath(), out.toByteArray());
+        try (ZipFile zip = new ZipFile(file)) {
+            assertNull(zip.getEntry("link.bin"));
+            ZipEntry entry = zip.getEntry("random.bin");
+            /* grows when deflated, within the bound the Zip64 decision is made on */
+            assertTrue(entry.getCompressedSize() > content.length);
+            assertTrue(entry.getCompressedSize() <= CxSourceArchive.compressedBound(content.length));
+            assertArrayEquals(content, StreamUtils.copyToByteArray(zip.getInputStream(entry)));
+        }
+        /* a file just under 4GB may exceed it once deflated */
+        assertTrue(CxSourceArchive.compressedBound(0xFFFFFFFFL - CxSourceArchive.CHUNK_SIZE) > 0xFFFFFFFFL);
+    }
+
+    @Test
+    public void hash() throws Exception {
+        File source = folder.newFolder("source");
+        write(source, "src/App.java", "class App {}".getBytes(UTF_8));
+        byte[] big = new byte[CxSourceArchive.CHUNK_SIZE + 10];
+        new Random(3).nextBytes(big);
+        write(source, "src/big.bin", big);
+        write(source, "target/App.class", "x".getBytes(UTF_8));
+        write(source, "src/empty.txt", new byte[0]);
+        CxSourceArchive archive = new CxSourceArchive(source, Collections.singletonList("target"), null, executor, 3);
+        assertNull(archive.getHash());
+        HashCode hash = archive.hash();
+        /* the same hash before and once archived */
+        archive.writeTo(new ByteArrayOutputStream());
+        assertEquals(hash, archive.getHash());
+
+        /* timestamps and excluded files are not part of the hash */
+        File app = new File(source, "src/App.java");
+        assertTrue(app.setLastModified(app.lastModified() - 60000));
+        write(source, "target/Other.class", "y".getBytes(UTF_8));
+        archive.writeTo(new ByteArrayOutputStream());
+        assertEquals(hash, archive.getHash());
+
+        assertEquals(hash, archive.hash());
+
+        write(source, "src/App.java", "class App { }".getBytes(UTF_8));
+        assertNotEquals(hash, archive.hash());
+        archive.writeTo(new ByteArrayOutputStream());
+        assertEquals(archive.hash(), archive.getHash());
+    }
+
+    @Test
+    public void emptyDirectory() throws Exception {
+        CxSourceArchive archive = new CxSourceArchive(folder.newFolder("empty"), null, Collections.emptyList(), executor, 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, archive.writeTo(out));
+        File file = folder.newFile("empty.zip");
+        Files.write(file.toPath(), out.toByteArray());
+        try (ZipFile zip = new ZipFile(file)) {
+            assertEquals(0, zip.size());
+        }
+    }
+
+    @Test
+    public void crc32Combine() {
+        byte[] data = new byte[10000];
+        new Random(2).nextBytes(data);
+        CRC32 whole = new CRC32();
+        whole.update(data);
+        CRC32 first = new CRC32();
+        first.update(data, 0, 3333);
+        CRC32 second = new CRC32();
+        second.update(data, 3333, data.length - 3333);
+        assertEquals(whole.getValue(), CxSourceArchive.crc32Combine(first.getValue(), second.getValue(), data.length - 3333));
+    }
+
+    private static void write(File directory, String name, byte[] content) throws Exception {
+        File file = new File(directory, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content);
+    }
+
+    private static void assertContent(Map<String, byte[]> expected, Map<String, byte[]> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> file : expected.entrySet()) {
+            assertArrayEquals(file.getKey(), file.getValue(), actual.get(file.getKey()));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.dto.cx.CxScanParams;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public class CxSourceDedupTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    @Test
+    public void hash() throws Exception {
+        CxProperties properties = properties();
+        CxSourceDedup dedup = new CxSourceDedup(properties, executor);
+        File source = folder.newFolder("source");
+        File zip = write(folder.getRoot(), "app.zip", "PK");
+        String hash = dedup.hash(params(zip), dedup.hashSource(params(zip)));
+        assertNotNull(hash);
+        assertEquals(Files.asByteSource(zip).hash(Hashing.sha256()), dedup.hashSource(params(zip)));
+        write(folder.getRoot(), "app.zip", "PK!");
+        assertNotEquals(hash, dedup.hash(params(zip), dedup.hashSource(params(zip))));
+
+        /* a directory is hashed as it would be archived, before the upload */
+        File app = write(source, "src/App.java", "class App {}");
+        write(source, "target/App.class", "x");
+        CxScanParams params = params(source);
+        HashCode sourceHash = dedup.hashSource(params);
+        assertEquals(new CxSourceArchive(source, params.getFolderExclude(), null, executor, 2).hash(), sourceHash);
+        assertTrue(app.setLastModified(app.lastModified() - 60000));
+        write(source, "target/Other.class", "y");
+        assertEquals(sourceHash, dedup.hashSource(params));
+        write(source, "src/App.java", "class App { }");
+        assertNotEquals(sourceHash, dedup.hashSource(params));
+
+        hash = dedup.hash(params, sourceHash);
+        assertNotNull(hash);
+        assertNotEquals(hash, dedup.hash(params(source).withScanPreset("Default"), sourceHash));
+        assertNull(dedup.hashSource(params(source).withForceScan(true)));
+        assertNull(dedup.hash(params(source).withForceScan(true), sourceHash));
+        assertNull(dedup.hashSource(params(source).withSourceType(CxScanParams.Type.GIT)));
+        assertNull(dedup.hash(params, null));
+
+        properties.setSourceDedupTtl(0);
+        assertNull(dedup.hashSource(params));
+        assertNull(dedup.hash(params, sourceHash));
+    }
+
+    @Test
+    public void lookup() throws Exception {
+        CxProperties properties = properties();
+        CxSourceDedup dedup = new CxSourceDedup(properties, executor);
+        assertNull(dedup.lookup("abc", scan -> true));
+        dedup.record("abc", 1, 100);
+        assertEquals(Integer.valueOf(100), dedup.lookup("abc", scan -> true).getScanId());
+        assertEquals(0.5, dedup.getHitRatio(), 0.0001);
+
+        /* persisted across instances */
+        CxSourceDedup reloaded = new CxSourceDedup(properties, executor);
+        assertEquals(Integer.valueOf(1), reloaded.lookup("abc", scan -> true).getProjectId());
+
+        /* dropped once the scan is no longer available */
+        assertNull(reloaded.lookup("abc", scan -> false));
+        assertNull(reloaded.lookup("abc", scan -> true));
+    }
+
+    private CxProperties properties() {
+        CxProperties properties = new CxProperties();
+        properties.setUrl("http://localhost/cxrestapi");
+        properties.setSourceDedupTtl(60);
+        properties.setSourceDedupFile(new File(folder.getRoot(), "dedup.json").getPath());
+        return properties;
+    }
+
+    private static CxScanParams params(File source) {
+        return new CxScanParams()
+                .withTeamName("\\CxServer\\SP")
+                .withProjectName("app")
+                .withScanPreset("Checkmarx Default")
+                .withSourceType(CxScanParams.Type.FILE)
+                .withFilePath(source.getPath())
+                .withFolderExclude(Collections.singletonList("target"));
+    }
+
+    private static File write(File directory, String name, String content) throws Exception {
+        File file = new File(directory, name);
+        file.getParentFile().mkdirs();
+        Files.write(content.getBytes(UTF_8), file);
+        return file;
+    }
+}
@@ -0,0 +1,141 @@
+package com.checkmarx.sdk.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipInputStream;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public class CxSourceUploadTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void upload() throws Exception {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(1).nextBytes(content);
+        File file = folder.newFile("source.zip");
+        Files.write(file.toPath(), content);
+
+        AtomicReference<byte[]> received = new AtomicReference<>();
+        AtomicReference<com.sun.net.httpserver.Headers> receivedHeaders = new AtomicReference<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            receivedHeaders.set(exchange.getRequestHeaders());
+            received.set(StreamUtils.copyToByteArray(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
+            requestFactory.setBufferRequestBody(false);
+            RestTemplate restTemplate = new RestTemplate(requestFactory);
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.AUTHORIZATION, "Bearer token");
+            List<Long> progress = new ArrayList<>();
+            CxSourceUpload upload = new CxSourceUpload(headers, "zippedSource", file, (sent, total) -> {
+                assertEquals(content.length, total);
+                progress.add(sent);
+            });
+            restTemplate.execute("http://localhost:" + server.getAddress().getPort() + "/projects/1/sourceCode/attachments",
+                    HttpMethod.POST, upload, null);
+
+            assertEquals("Bearer token", receivedHeaders.get().getFirst(HttpHeaders.AUTHORIZATION));
+            String contentType = receivedHeaders.get().getFirst(HttpHeaders.CONTENT_TYPE);
+            assertTrue(contentType.startsWith("multipart/form-data;boundary="));
+            assertEquals(String.valueOf(received.get().length), receivedHeaders.get().getFirst(HttpHeaders.CONTENT_LENGTH));
+            String boundary = contentType.substring(contentType.indexOf('=') + 1);
+            String preamble = "--" + boundary + "\r\nContent-Disposition: form-data; name=\"zippedSource\"; filename=\"source.zip\"\r\n"
+                    + "Content-Type: application/octet-stream\r\n\r\n";
+            String epilogue = "\r\n--" + boundary + "--\r\n";
+            byte[] body = received.get();
+            assertEquals(preamble.length() + content.length + epilogue.length(), body.length);
+            assertEquals(preamble, new String(body, 0, preamble.length(), "UTF-8"));
+            assertArrayEquals(content, Arrays.copyOfRange(body, preamble.length(), preamble.length() + content.length));
+            assertEquals(epilogue, new String(body, preamble.length() + content.length, epilogue.length(), "UTF-8"));
+            assertEquals(4, progress.size());
+            assertEquals(Long.valueOf(content.length), progress.get(progress.size() - 1));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void uploadDirectory() throws Exception {
+        File source = folder.newFolder("source");
+        Files.write(new File(source, "App.java").toPath(), "class App {}".getBytes(UTF_8));
+
+        AtomicReference<byte[]> received = new AtomicReference<>();
+        AtomicReference<com.sun.net.httpserver.Headers> receivedHeaders = new AtomicReference<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            receivedHeaders.set(exchange.getRequestHeaders());
+            received.set(StreamUtils.copyToByteArray(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
+            requestFactory.setBufferRequestBody(false);
+            RestTemplate restTemplate = new RestTemplate(requestFactory);
+            List<Long> totals = new ArrayList<>();
+            CxSourceArchive archive = new CxSourceArchive(source, null, null, executor, 2);
+            CxSourceUpload upload = new CxSourceUpload(new HttpHeaders(), "zippedSource", archive, (sent, total) -> totals.add(total));
+            restTemplate.execute("http://localhost:" + server.getAddress().getPort() + "/projects/1/sourceCode/attachments",
+                    HttpMethod.POST, upload, null);
+
+            /* size unknown until the archive is written */
+            assertNull(receivedHeaders.get().getFirst(HttpHeaders.CONTENT_LENGTH));
+            assertEquals("chunked", receivedHeaders.get().getFirst(HttpHeaders.TRANSFER_ENCODING));
+            assertEquals(Collections.singletonList(-1L), totals);
+            String body = new String(received.get(), ISO_8859_1);
+            assertTrue(body.contains("filename=\"source.zip\""));
+            int start = body.indexOf("\r\n\r\n") + 4;
+            int end = body.lastIndexOf("\r\n--");
+            try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(Arrays.copyOfRange(received.get(), start, end)))) {
+                assertEquals("App.java", zip.getNextEntry().getName());
+                assertEquals("class App {}", new String(StreamUtils.copyToByteArray(zip), UTF_8));
+                assertNull(zip.getNextEntry());
+            }
+        } finally {
+            executor.shutdownNow();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void contentDisposition() {
+        assertEquals("form-data; name=\"zippedSource\"; filename=\"source.zip\"",
+                CxSourceUpload.contentDisposition("zippedSource", "source.zip"));
+        assertEquals("form-data; name=\"zippedSource\"; filename=\"my \\\"app\\\" \\\\ __x_.zip\"",
+                CxSourceUpload.contentDisposition("zippedSource", "my \"app\" \\ \r\nx\n.zip"));
+        assertEquals("form-data; name=\"zippedSource\"; filename=\"sourcé.zip\"",
+                CxSourceUpload.contentDisposition("zippedSource", "sourcé.zip"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.checkmarx.sdk.service;
+
+import com.checkmarx.sdk.config.CxProperties;
+import com.checkmarx.sdk.dto.cx.CxTeam;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class CxTeamDirectoryTest {
+
+    @Test
+    public void lookups() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CxTeamDirectory directory = new CxTeamDirectory(new CxProperties(), () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(
+                    team("1", "CxServer", "/CxServer", null),
+                    team("2", "SP", "/CxServer/SP", "1"),
+                    team("3", "Company", "/CxServer/SP/Company", "2"),
+                    team("4", "Users", "/CxServer/SP/Company/Users", "3"));
+        });
+
+        assertEquals("3", directory.getByPath("/CxServer/SP/Company").getId());
+        assertEquals("3", directory.getByPath("\\CxServer\\SP\\Company").getId());
+        assertNull(directory.getByPath("/CxServer/SP/Other"));
+        assertEquals("/CxServer/SP/Company/Users", directory.getById("4").getFullName());
+        assertEquals("4", directory.getChild("3", "Users").getId());
+        assertNull(directory.getChild("2", "Users"));
+        List<String> descendants = directory.getDescendants("2").stream().map(CxTeam::getId).sorted().collect(Collectors.toList());
+        assertEquals(Arrays.asList("3", "4"), descendants);
+        assertEquals(1, loads.get());
+
+        directory.invalidate();
+        assertEquals("1", directory.getByPath("/CxServer").getId());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void expiry() throws Exception {
+        CxProperties properties = new CxProperties();
+        properties.setTeamCacheTtl(0);
+        AtomicInteger loads = new AtomicInteger();
+        CxTeamDirectory directory = new CxTeamDirectory(properties, () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(team("1", "CxServer", "\\CxServer", null));
+        });
+        assertEquals("1", directory.getByPath("\\CxServer").getId());
+        assertEquals("1", directory.getByPath("/CxServer").getId());
+        assertEquals(2, loads.get());
+    }
+
+    private static CxTeam team(String id, String name, String fullName, String parentId) {
+        CxTeam team = new CxTeam();
+        team.setId(id);
+        team.setName(name);
+        team.setFullName(fullName);
+        team.setParentId(parentId);
+        return team;
+    }
+}
@@ -0,0 +1,151 @@
+package com.checkmarx.sdk.utils;
+
+import com.checkmarx.sdk.dto.ScanResults;
+import com.checkmarx.sdk.dto.cx.CxScanSummary;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public class ScanResultsCodecTest {
+
+    @Test
+    public void roundTrip() throws Exception {
+        ScanResults results = results(50);
+        byte[] data = ScanResultsCodec.encode(results);
+        ScanResults decoded = ScanResultsCodec.decode(data);
+
+        assertEquals("Team", decoded.getTeam());
+        assertEquals("Project", decoded.getProject());
+        assertEquals("<CxXMLResults/>", decoded.getOutput());
+        assertEquals(Integer.valueOf(3), decoded.getScanSummary().getHighSeverity());
+        assertNull(decoded.getScanSummary().getInfoSeverity());
+        assertEquals(results.getAdditionalDetails(), decoded.getAdditionalDetails());
+        assertEquals(50, decoded.getXIssues().size());
+        for (int i = 0; i < 50; i++) {
+            ScanResults.XIssue issue = results.getXIssues().get(i);
+            ScanResults.XIssue copy = decoded.getXIssues().get(i);
+            assertEquals(issue, copy);
+            assertEquals(issue.getSimilarityId(), copy.getSimilarityId());
+            assertEquals(issue.getSeverity(), copy.getSeverity());
+            assertEquals(issue.getFalsePositiveCount(), copy.getFalsePositiveCount());
+            assertEquals(issue.getAdditionalDetails(), copy.getAdditionalDetails());
+            assertEquals(issue.getDetails().keySet(), copy.getDetails().keySet());
+            assertEquals(issue.getDetails().get(i + 10).getCodeSnippet(), copy.getDetails().get(i + 10).getCodeSnippet());
+            assertTrue(copy.getDetails().get(i + 10).isFalsePositive());
+        }
+    }
+
+    @Test
+    public void readerSkipsSnippets() throws Exception {
+        ScanResults results = results(3);
+        ScanResultsCodec.Reader reader = ScanResultsCodec.reader(new ByteArrayInputStream(ScanResultsCodec.encode(results)), true);
+        assertEquals("Project", reader.getHeader().getProject());
+        assertNull(reader.getHeader().getXIssues());
+        int count = 0;
+        while (reader.hasNext()) {
+            ScanResults.XIssue issue = reader.next();
+            assertNull(issue.getDetails().get(count + 10).getCodeSnippet());
+            assertEquals("comment " + count, issue.getDetails().get(count + 10).getComment());
+            count++;
+        }
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void repeatedStringsAreWrittenOnce() {
+        String data = new String(ScanResultsCodec.encode(results(100)), UTF_8);
+        assertEquals(1, occurrences(data, "src/main/java/com/example/Dao0.java"));
+        assertEquals(1, occurrences(data, "SQL_Injection"));
+        assertEquals(1, occurrences(data, "OWASP Top 10 2017;A1-Injection"));
+        assertEquals(100, occurrences(data, "SELECT * FROM users"));
+    }
+
+    @Test
+    public void rejectsUnknownData() {
+        try {
+            ScanResultsCodec.decode("not scan results".getBytes());
+            fail();
+        } catch (IOException e) {
+            assertEquals("Not encoded scan results", e.getMessage());
+        }
+        try {
+            ScanResults results = results(1);
+            results.getAdditionalDetails().put("object", new Object());
+            ScanResultsCodec.encode(results);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Unsupported additional detail type"));
+        }
+    }
+
+    private static int occurrences(String data, String value) {
+        int count = 0;
+        for (int i = data.indexOf(value); i >= 0; i = data.indexOf(value, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static ScanResults results(int issueCount) {
+        List<ScanResults.XIssue> issues = new ArrayList<>();
+        for (int i = 0; i < issueCount; i++) {
+            Map<Integer, ScanResults.IssueDetails> details = new HashMap<>();
+            details.put(i + 10, new ScanResults.IssueDetails()
+                    .codeSnippet("String query = \"SELECT * FROM users WHERE id = \" + id" + i + ";")
+                    .comment("comment " + i)
+                    .falsePositive(true));
+            details.put(-1, null);
+            Map<String, Object> source = new HashMap<>();
+            source.put("file", "src/main/java/com/example/Dao" + (i % 3) + ".java");
+            source.put("line", String.valueOf(i + 10));
+            Map<String, Object> result = new HashMap<>();
+            result.put("state", "0");
+            result.put("source", source);
+            Map<String, Object> additionalDetails = new HashMap<>();
+            additionalDetails.put("categories", "OWASP Top 10 2017;A1-Injection");
+            additionalDetails.put("results", Collections.singletonList(result));
+            ScanResults.XIssue issue = ScanResults.XIssue.builder()
+                    .vulnerability(i % 2 == 0 ? "SQL_Injection" : "Reflected_XSS_All_Clients")
+                    .similarityId(String.valueOf(-1000000 - i))
+                    .cwe("89")
+                    .language("Java")
+                    .severity("High")
+                    .description("")
+                    .link("https://cx.example.com/CxWebClient/ViewerMain.aspx?scanid=1&pathid=" + i)
+                    .file("src/main/java/com/example/Dao" + (i % 3) + ".java")
+                    .details(details)
+                    .additionalDetails(additionalDetails)
+                    .build();
+            issue.setFalsePositiveCount(1);
+            issues.add(issue);
+        }
+        CxScanSummary summary = new CxScanSummary();
+        summary.setHighSeverity(3);
+        summary.setStatisticsCalculationDate("2020-01-01T00:00:00");
+        Map<String, Object> additionalDetails = new HashMap<>();
+        additionalDetails.put("scanId", "1000");
+        additionalDetails.put("numbers", Arrays.asList(1, 2L, 3.5, true, null));
+        ScanResults results = ScanResults.builder()
+                .osa(false)
+                .projectId("10")
+                .team("Team")
+                .project("Project")
+                .link("https://cx.example.com/CxWebClient/ViewerMain.aspx?scanid=1")
+                .xIssues(issues)
+                .additionalDetails(additionalDetails)
+                .scanSummary(summary)
+                .build();
+        results.setOutput("<CxXMLResults/>");
+        return results;
+    }
+}